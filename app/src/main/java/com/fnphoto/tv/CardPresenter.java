@@ -22,6 +22,7 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.LazyHeaders;
 import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.net.RequestScheduler;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,17 +30,29 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class CardPresenter extends Presenter {
     private static final String TAG = "CardPresenter";
-    private static final int CARD_WIDTH = 320;
-    private static final int CARD_HEIGHT = 180;
+    static final int CARD_WIDTH = 320;
+    static final int CARD_HEIGHT = 180;
     private static final int DATE_CARD_WIDTH = 240;
     private static final int DATE_CARD_HEIGHT = 180;
     private static final int PADDING = 4;
     private static final int MAX_PREVIEW = 8;
+    
+    // 卡片图片加载的调度分组名，焦点位置由 MainFragment 通过 setFocus 更新
+    public static final String TASK_GROUP = "cards";
+    private static final int VISIBLE_RADIUS = 12;
+    private static final int NEAR_RADIUS = 32;
+    private static final int KEEP_RADIUS = 96; // 时间线上下几行的卡片也可能可见，取较大的保留范围
 
     private String baseUrl;
+    private final String taskGroup;
 
-    public CardPresenter(String baseUrl) {
+    /**
+     * @param taskGroup 图片加载的调度分组，通常由所属页面的 RequestScope 创建
+     */
+    public CardPresenter(String baseUrl, String taskGroup) {
         this.baseUrl = baseUrl;
+        this.taskGroup = taskGroup;
+        RequestScheduler.getInstance().configureWindow(taskGroup, VISIBLE_RADIUS, NEAR_RADIUS, KEEP_RADIUS);
     }
 
     @Override
@@ -78,6 +91,9 @@ public class CardPresenter extends Presenter {
 
         cardView.setTitleText(mediaItem.getTitle());
         
+        // 视图被重用时取消上一个项尚未完成的加载
+        cancelTasks(cardView);
+        
         // 存储当前item的ID和类型，用于检查视图是否已被重用
         cardView.setTag(R.id.media_item_id, mediaItem.getId());
         cardView.setTag(R.id.media_item_type, mediaItem.getType());
@@ -87,7 +103,7 @@ public class CardPresenter extends Presenter {
             
             List<String> previewUrls = mediaItem.getPreviewThumbUrls();
             if (previewUrls != null && !previewUrls.isEmpty()) {
-                loadPreviewImages(cardView, previewUrls, mediaItem.getId());
+                loadPreviewImages(cardView, previewUrls, mediaItem.getId(), mediaItem.getListPosition());
             } else {
                 cardView.setMainImage(createPlaceholderDrawable(cardView.getContext()));
             }
@@ -131,7 +147,8 @@ public class CardPresenter extends Presenter {
         final String itemId = mediaItem.getId();
         
         // 加载缩略图并添加播放图标
-        CachedImageLoader.loadImage(context, finalUrl, token, CARD_WIDTH, CARD_HEIGHT,
+        submitTask(cardView, "card:" + itemId, mediaItem.getListPosition(),
+                CachedImageLoader.imageJob(context, finalUrl, token, CARD_WIDTH, CARD_HEIGHT,
                 new CachedImageLoader.ImageLoadCallback() {
                     @Override
                     public void onBitmapLoaded(Bitmap bitmap) {
@@ -156,7 +173,7 @@ public class CardPresenter extends Presenter {
                         Drawable drawable = ContextCompat.getDrawable(context, android.R.drawable.ic_media_play);
                         cardView.setMainImage(drawable);
                     }
-                });
+                }));
     }
     
     /**
@@ -219,7 +236,7 @@ public class CardPresenter extends Presenter {
         return composite;
     }
 
-    private void loadPreviewImages(ImageCardView cardView, List<String> urls, String itemId) {
+    private void loadPreviewImages(ImageCardView cardView, List<String> urls, String itemId, int position) {
         Context context = cardView.getContext();
         SharedPreferences prefs = context.getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
         String token = prefs.getString("api_token", "");
@@ -238,8 +255,9 @@ public class CardPresenter extends Presenter {
             
             final int index = i;
             
-            // 使用带缓存的加载器
-            CachedImageLoader.loadImage(context, url, token, 150, 150, 
+            // 使用带缓存的加载器，按焦点距离调度
+            submitTask(cardView, "card:" + itemId + ":" + i, position,
+                    CachedImageLoader.imageJob(context, url, token, 150, 150,
                     new CachedImageLoader.ImageLoadCallback() {
                         @Override
                         public void onBitmapLoaded(Bitmap bitmap) {
@@ -271,7 +289,7 @@ public class CardPresenter extends Presenter {
                                 }
                             }
                         }
-                    });
+                    }));
         }
     }
 
@@ -367,7 +385,8 @@ public class CardPresenter extends Presenter {
 
         if (imageUrl != null && !imageUrl.isEmpty()) {
             // 使用带缓存的加载
-            CachedImageLoader.loadIntoImageView(cardView.getMainImageView(), imageUrl, token);
+            submitTask(cardView, "card:" + mediaItem.getId(), mediaItem.getListPosition(),
+                    CachedImageLoader.imageViewJob(cardView.getMainImageView(), imageUrl, token));
         } else {
             Drawable drawable = ContextCompat.getDrawable(cardView.getContext(),
                     android.R.drawable.ic_menu_gallery);
@@ -375,9 +394,33 @@ public class CardPresenter extends Presenter {
         }
     }
 
+    private void submitTask(ImageCardView cardView, String key, int position, RequestScheduler.Job job) {
+        @SuppressWarnings("unchecked")
+        List<RequestScheduler.Task> tasks = (List<RequestScheduler.Task>) cardView.getTag(R.id.media_item_tasks);
+        if (tasks == null) {
+            tasks = new ArrayList<>();
+            cardView.setTag(R.id.media_item_tasks, tasks);
+        }
+        tasks.add(RequestScheduler.getInstance().submit(key + "@" + taskGroup, taskGroup, position,
+                RequestScheduler.Priority.VISIBLE, job));
+    }
+
+    private void cancelTasks(ImageCardView cardView) {
+        @SuppressWarnings("unchecked")
+        List<RequestScheduler.Task> tasks = (List<RequestScheduler.Task>) cardView.getTag(R.id.media_item_tasks);
+        if (tasks != null) {
+            for (RequestScheduler.Task task : tasks) {
+                task.cancel();
+            }
+            tasks.clear();
+        }
+    }
+
     @Override
     public void onUnbindViewHolder(ViewHolder viewHolder) {
         ImageCardView cardView = (ImageCardView) viewHolder.view;
+        // 卡片离开屏幕，取消尚未完成的加载
+        cancelTasks(cardView);
         cardView.setBadgeImage(null);
         cardView.setMainImage(null);
         cardView.setTag(R.id.media_item_id, null);
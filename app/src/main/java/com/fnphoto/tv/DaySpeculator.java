@@ -0,0 +1,229 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.data.DayPhotoPager;
+import com.fnphoto.tv.data.LibraryStore;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 时间线上的投机预取：焦点在某个日期卡片上停留超过阈值后，以 PREFETCH 优先级加载这一天的第一页
+ * 和首屏缩略图，打开时直接接管已加载的分页器，首屏几乎不需要等待网络。
+ *
+ * 同一时间只保留一个投机任务，焦点移到其他日期时丢弃旧的。加载到的页同样写入本地库，
+ * 没有被打开的投机也会为之后的访问预热缓存。
+ *
+ * 必须在主线程使用。
+ */
+public class DaySpeculator {
+    private static final String TAG = "DaySpeculator";
+    public static final long DEFAULT_DWELL_MS = 600;  // 焦点停留多久后开始预取
+    private static final int PREFETCH_THUMBS = 8;     // 预取的缩略图数量（大致是首屏的卡片）
+
+    private final Context appContext;
+    private final FnHttpApi api;
+    private final String token;
+    private final String baseUrl;
+    private final String taskGroup;
+    private final LibraryStore store;
+    private final int pageSize;
+    private final long dwellMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private String focusedDate;         // 正在等待停留阈值的日期
+    private int focusedCount;
+    private long focusedAt;
+
+    private String speculatedDate;      // 已开始预取的日期
+    private DayPhotoPager pager;        // 该日期的分页器，只预取缩略图（本地已缓存）时为 null
+    private boolean firstPageLoaded;
+    private final List<String> thumbKeys = new ArrayList<>();
+
+    private final Runnable dwellRunnable = this::speculate;
+
+    public DaySpeculator(Context context, FnHttpApi api, String token, String baseUrl,
+                         String taskGroup, LibraryStore store, int pageSize) {
+        this.appContext = context.getApplicationContext();
+        this.api = api;
+        this.token = token;
+        this.baseUrl = baseUrl;
+        this.taskGroup = taskGroup;
+        this.store = store;
+        this.pageSize = pageSize;
+        this.dwellMs = appContext.getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE)
+                .getLong("speculation_dwell_ms", DEFAULT_DWELL_MS);
+    }
+
+    /**
+     * 日期卡片获得焦点，重新开始计时
+     */
+    public void onDateFocused(String dateStr, int itemCount) {
+        if (dateStr == null || dateStr.equals(focusedDate)) return;
+        handler.removeCallbacks(dwellRunnable);
+        focusedDate = dateStr;
+        focusedCount = itemCount;
+        focusedAt = SystemClock.elapsedRealtime();
+        if (!dateStr.equals(speculatedDate)) {
+            handler.postDelayed(dwellRunnable, dwellMs);
+        }
+    }
+
+    /**
+     * 焦点离开日期卡片，停止计时（已开始的预取保留，回到这一天或打开时仍可使用）
+     */
+    public void cancelDwell() {
+        handler.removeCallbacks(dwellRunnable);
+        focusedDate = null;
+    }
+
+    /**
+     * 打开某一天时取走投机结果（数量已变化的投机视为未命中）
+     *
+     * @return 已开始加载的分页器，调用方负责接管（设置监听、提升优先级）；没有可用的投机时返回 null
+     */
+    public DayPhotoPager take(String dateStr, int itemCount) {
+        handler.removeCallbacks(dwellRunnable);
+        if (dateStr == null || !dateStr.equals(speculatedDate)
+                || (pager != null && pager.getTotalCount() != itemCount)) {
+            if (speculatedDate != null) {
+                AppMetrics.increment("speculation.misses");
+            }
+            discard();
+            focusedDate = null;
+            return null;
+        }
+
+        AppMetrics.increment("speculation.hits");
+        if (pager == null || firstPageLoaded) {
+            AppMetrics.increment("speculation.hits_ready");
+        }
+        if (focusedAt > 0) {
+            AppMetrics.recordTiming("speculation.dwell_to_open", SystemClock.elapsedRealtime() - focusedAt);
+        }
+        // 缩略图即将显示，提升为可见优先级
+        for (String key : thumbKeys) {
+            RequestScheduler.getInstance().reprioritize(key, RequestScheduler.Priority.VISIBLE);
+        }
+        DayPhotoPager result = pager;
+        if (result != null) {
+            result.setListener(null);
+        }
+        pager = null;
+        speculatedDate = null;
+        focusedDate = null;
+        firstPageLoaded = false;
+        thumbKeys.clear();
+        return result;
+    }
+
+    /**
+     * 离开时间线或页面销毁时调用
+     */
+    public void cancel() {
+        cancelDwell();
+        discard();
+    }
+
+    private void speculate() {
+        final String dateStr = focusedDate;
+        final int itemCount = focusedCount;
+        if (dateStr == null || api == null || token == null || token.isEmpty()) return;
+
+        discard();
+        speculatedDate = dateStr;
+        AppMetrics.increment("speculation.started");
+        Log.d(TAG, "Speculating on " + dateStr + " after " + dwellMs + "ms dwell");
+
+        store.loadDay(dateStr, itemCount, cached -> {
+            if (!dateStr.equals(speculatedDate) || pager != null) return;
+            if (cached != null && !cached.isEmpty()) {
+                // 本地已有列表，打开时直接显示，只需预热缩略图
+                AppMetrics.increment("speculation.cached");
+                List<MediaItem> items = new ArrayList<>();
+                for (int i = 0; i < cached.size() && i < PREFETCH_THUMBS; i++) {
+                    items.add(DayPhotoPager.toMediaItem(cached.get(i), baseUrl));
+                }
+                prefetchThumbnails(items);
+                return;
+            }
+
+            final DayPhotoPager speculative = new DayPhotoPager(api, token, baseUrl, dateStr,
+                    itemCount, pageSize);
+            speculative.setFirstPagePriority(RequestScheduler.Priority.PREFETCH);
+            speculative.setTaskGroup(taskGroup);
+            speculative.setStore(store);
+            speculative.setListener(new DayPhotoPager.Listener() {
+                @Override
+                public void onPageLoaded(List<MediaItem> newItems, int offset) {
+                    if (speculative != pager || offset != 0) return;
+                    firstPageLoaded = true;
+                    prefetchThumbnails(newItems);
+                }
+
+                @Override
+                public void onPageFailed(int offset, Throwable t) {
+                    Log.w(TAG, "Speculative page failed for " + dateStr);
+                }
+            });
+            pager = speculative;
+            speculative.start();
+        });
+    }
+
+    /**
+     * 以卡片尺寸预取缩略图，卡片绑定时直接命中缓存
+     */
+    private void prefetchThumbnails(List<MediaItem> items) {
+        for (int i = 0; i < items.size() && i < PREFETCH_THUMBS; i++) {
+            MediaItem item = items.get(i);
+            String url = item.getThumbnailUrl() != null ? item.getThumbnailUrl() : item.getMediaUrl();
+            if (url == null || url.isEmpty()) continue;
+            String key = "spec-thumb:" + item.getId();
+            thumbKeys.add(key);
+            RequestScheduler.getInstance().submit(key, taskGroup, i, RequestScheduler.Priority.PREFETCH,
+                    CachedImageLoader.imageJob(appContext, url, token,
+                            CardPresenter.CARD_WIDTH, CardPresenter.CARD_HEIGHT,
+                            new CachedImageLoader.ImageLoadCallback() {
+                                @Override
+                                public void onBitmapLoaded(Bitmap bitmap) {
+                                    AppMetrics.increment("speculation.thumbs_loaded");
+                                }
+
+                                @Override
+                                public void onLoadFailed() {
+                                }
+                            }));
+        }
+    }
+
+    /**
+     * 丢弃当前的投机：第一页已加载说明流量已经花掉，记为浪费
+     */
+    private void discard() {
+        if (speculatedDate != null) {
+            AppMetrics.increment(pager == null || firstPageLoaded
+                    ? "speculation.wasted" : "speculation.cancelled");
+        }
+        if (pager != null) {
+            pager.cancel();
+            pager = null;
+        }
+        for (String key : thumbKeys) {
+            RequestScheduler.getInstance().cancel(key);
+        }
+        thumbKeys.clear();
+        speculatedDate = null;
+        firstPageLoaded = false;
+    }
+}
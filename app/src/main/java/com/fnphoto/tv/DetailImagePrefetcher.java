@@ -0,0 +1,269 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 详情页的前后预取：当前项前后若干项的大图提前下载并解码到屏幕尺寸，保存在有上限的缓冲区中，
+ * 左右切换时直接显示。窗口偏向浏览方向（前方多、后方少），离开窗口的加载被取消，缓冲的图片被释放。
+ *
+ * 必须在主线程使用。
+ */
+public class DetailImagePrefetcher {
+    private static final String TAG = "DetailImagePrefetcher";
+    public static final int DEFAULT_AHEAD = 3;  // 浏览方向上预取的数量
+    static final int BEHIND = 1;                 // 反方向保留的数量
+
+    /**
+     * 一张已解码的图片，释放时取消 handle，Glide 才会回收图片
+     */
+    private static final class Entry {
+        final Bitmap bitmap;
+        final CachedImageLoader.LoadHandle handle;
+
+        Entry(Bitmap bitmap, CachedImageLoader.LoadHandle handle) {
+            this.bitmap = bitmap;
+            this.handle = handle;
+        }
+    }
+
+    private final Context context;
+    private final RequestScope requestScope;
+    private final String taskGroup;
+    private final String token;
+    private final int width;
+    private final int height;
+    private final List<MediaItem> items;
+    private final int ahead;
+    private final LruCache<String, Entry> buffer;
+    private final Map<String, RequestScheduler.Task> inFlight = new HashMap<>(); // 媒体 id -> 加载任务
+
+    private int currentIndex = -1;
+    private int direction = 1;   // 1 向后浏览，-1 向前浏览
+    private String displayId;    // 等待显示的项
+    private CachedImageLoader.ImageLoadCallback displayCallback;
+
+    public DetailImagePrefetcher(Context context, RequestScope requestScope, String token,
+                                 int width, int height, List<MediaItem> items) {
+        this(context, requestScope, token, width, height, items, DEFAULT_AHEAD);
+    }
+
+    /**
+     * @param ahead 浏览方向上预取的数量，缓冲区上限随之增加
+     */
+    public DetailImagePrefetcher(Context context, RequestScope requestScope, String token,
+                                 int width, int height, List<MediaItem> items, int ahead) {
+        this.context = context;
+        this.requestScope = requestScope;
+        this.taskGroup = requestScope.group("neighbors");
+        this.token = token;
+        this.width = width;
+        this.height = height;
+        this.items = items;
+        this.ahead = ahead;
+        // 上限按窗口内的项数和屏幕尺寸计算，图片按屏幕尺寸解码，不会超过
+        int maxBytes = width * height * 4 * (ahead + BEHIND + 1);
+        this.buffer = new LruCache<String, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Entry oldEntry, Entry newEntry) {
+                if (oldEntry != newEntry) {
+                    oldEntry.handle.cancel();
+                }
+            }
+        };
+    }
+
+    /**
+     * 详情页显示的图片地址：照片使用大图，视频使用预览图
+     */
+    public static String imageUrlOf(MediaItem item) {
+        return "video".equals(item.getType()) ? item.getThumbnailUrl() : item.getMediaUrl();
+    }
+
+    /**
+     * 显示某一项：已缓冲时立即回调，正在预取时提升为可见优先级并在完成后回调，否则立即开始加载。
+     * 之后的 show 调用会替换尚未回调的 callback
+     */
+    public void show(int index, CachedImageLoader.ImageLoadCallback callback) {
+        if (currentIndex >= 0 && index != currentIndex) {
+            direction = index > currentIndex ? 1 : -1;
+        }
+        currentIndex = index;
+        MediaItem item = items.get(index);
+        displayId = item.getId();
+        displayCallback = callback;
+
+        Entry entry = buffer.get(item.getId());
+        if (entry != null) {
+            AppMetrics.increment("detail.prefetch_hits");
+            deliver(item.getId(), entry.bitmap);
+        } else {
+            RequestScheduler.Task task = inFlight.get(item.getId());
+            if (task != null) {
+                AppMetrics.increment("detail.prefetch_in_flight");
+                RequestScheduler.getInstance().reprioritize(task.getKey(), RequestScheduler.Priority.VISIBLE);
+            } else {
+                AppMetrics.increment("detail.prefetch_misses");
+                load(index, RequestScheduler.Priority.VISIBLE);
+            }
+        }
+        updateWindow();
+    }
+
+    /**
+     * 某一项是否已解码在缓冲区中
+     */
+    public boolean isBuffered(int index) {
+        return index >= 0 && index < items.size() && buffer.get(items.get(index).getId()) != null;
+    }
+
+    /**
+     * 列表追加了新的一页后调用，补齐窗口
+     */
+    public void onItemsAppended() {
+        if (currentIndex >= 0) {
+            updateWindow();
+        }
+    }
+
+    public void release() {
+        for (RequestScheduler.Task task : new ArrayList<>(inFlight.values())) {
+            task.cancel();
+        }
+        inFlight.clear();
+        buffer.evictAll();
+        displayCallback = null;
+    }
+
+    /**
+     * 按当前位置和浏览方向调整窗口：取消离开窗口的加载，释放窗口外的图片，开始加载窗口内缺少的项
+     */
+    private void updateWindow() {
+        int first = direction > 0 ? currentIndex - BEHIND : currentIndex - ahead;
+        int last = direction > 0 ? currentIndex + ahead : currentIndex + BEHIND;
+        first = Math.max(0, first);
+        last = Math.min(items.size() - 1, last);
+
+        Map<String, Integer> window = new HashMap<>();
+        for (int i = first; i <= last; i++) {
+            window.put(items.get(i).getId(), i);
+        }
+
+        for (String id : new ArrayList<>(inFlight.keySet())) {
+            if (!window.containsKey(id)) {
+                inFlight.remove(id).cancel();
+                AppMetrics.increment("detail.prefetch_cancelled");
+            }
+        }
+        for (String id : buffer.snapshot().keySet()) {
+            if (!window.containsKey(id)) {
+                buffer.remove(id);
+            }
+        }
+
+        // 由近到远加载，紧邻的下一项优先
+        for (int distance = 1; distance <= ahead; distance++) {
+            int ahead = currentIndex + distance * direction;
+            int behind = currentIndex - distance * direction;
+            if (ahead >= first && ahead <= last) {
+                prefetch(ahead, distance == 1
+                        ? RequestScheduler.Priority.NEAR_VISIBLE : RequestScheduler.Priority.PREFETCH);
+            }
+            if (distance <= BEHIND && behind >= first && behind <= last) {
+                prefetch(behind, RequestScheduler.Priority.PREFETCH);
+            }
+        }
+        // 当前项最后访问，缓冲区超出上限时先淘汰其他项
+        buffer.get(items.get(currentIndex).getId());
+    }
+
+    private void prefetch(int index, RequestScheduler.Priority priority) {
+        String id = items.get(index).getId();
+        if (buffer.get(id) != null) return;
+        RequestScheduler.Task task = inFlight.get(id);
+        if (task != null) {
+            RequestScheduler.getInstance().reprioritize(task.getKey(), priority);
+        } else {
+            load(index, priority);
+        }
+    }
+
+    private void load(int index, RequestScheduler.Priority priority) {
+        final MediaItem item = items.get(index);
+        final String id = item.getId();
+        final String url = imageUrlOf(item);
+        if (url == null || url.isEmpty()) {
+            if (id.equals(displayId) && displayCallback != null) {
+                displayCallback.onLoadFailed();
+            }
+            return;
+        }
+        final long start = SystemClock.elapsedRealtime();
+        final CachedImageLoader.LoadHandle handle = CachedImageLoader.createHandle(context);
+        final boolean[] completed = {false};
+        RequestScheduler.Task submitted = requestScope.submit(taskGroup, "neighbor:" + id, index, priority,
+                CachedImageLoader.imageJob(context, url, token, width, height, handle,
+                        new CachedImageLoader.ImageLoadCallback() {
+                            @Override
+                            public void onBitmapLoaded(Bitmap bitmap) {
+                                completed[0] = true;
+                                AppMetrics.recordTiming("detail.prefetch_load", SystemClock.elapsedRealtime() - start);
+                                onLoaded(id, bitmap, handle);
+                            }
+
+                            @Override
+                            public void onLoadFailed() {
+                                completed[0] = true;
+                                onFailed(id);
+                            }
+                        }));
+        // 命中缓存或地址无效时任务可能在提交时已同步完成（成功或失败），回调已从 inFlight 移除，不能再加入
+        if (!completed[0]) {
+            inFlight.put(id, submitted);
+        }
+    }
+
+    private void onLoaded(String id, Bitmap bitmap, CachedImageLoader.LoadHandle handle) {
+        inFlight.remove(id);
+        // 提前上传纹理，显示时不再等待
+        bitmap.prepareToDraw();
+        buffer.put(id, new Entry(bitmap, handle));
+        deliver(id, bitmap);
+    }
+
+    private void onFailed(String id) {
+        inFlight.remove(id);
+        Log.w(TAG, "Failed to load image for " + id);
+        if (id.equals(displayId) && displayCallback != null) {
+            CachedImageLoader.ImageLoadCallback callback = displayCallback;
+            displayCallback = null;
+            callback.onLoadFailed();
+        }
+    }
+
+    private void deliver(String id, Bitmap bitmap) {
+        if (id.equals(displayId) && displayCallback != null) {
+            CachedImageLoader.ImageLoadCallback callback = displayCallback;
+            displayCallback = null;
+            callback.onBitmapLoaded(bitmap);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import android.app.Application;
 import android.content.Context;
 import androidx.multidex.MultiDex;
 
+import com.fnphoto.tv.net.NetworkPolicy;
+
 /**
  * Application 类，用于支持 API 19 (Android 4.4) 的 Multidex
  */
@@ -15,4 +17,11 @@ public class FnPhotoApplication extends Application {
         // 启用 Multidex 支持
         MultiDex.install(this);
     }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 开始跟踪网络质量，按估计结果调整请求并发数和缩略图尺寸
+        NetworkPolicy.getInstance();
+    }
 }
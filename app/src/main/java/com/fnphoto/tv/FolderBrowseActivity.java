@@ -25,7 +25,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.fnphoto.tv.api.FnAuthUtils;
 import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnHttpClient;
 import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.data.FolderMediaStore;
+import com.fnphoto.tv.data.LibraryChangeMonitor;
+import com.fnphoto.tv.data.LibraryStore;
+import com.fnphoto.tv.data.MediaSessionRepository;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -63,12 +70,19 @@ public class FolderBrowseActivity extends FragmentActivity {
     private PhotoGridAdapter photoAdapter;
 
     private List<FnHttpApi.SubFolderItem> folderList = new ArrayList<>();
-    private List<FnHttpApi.FolderMediaItem> photoList = new ArrayList<>();
+    private FolderMediaStore photoStore = new FolderMediaStore(); // 文件按列紧凑保存，上万个文件也只占少量内存
 
     private int loadedCount = 0;
     private boolean hasMorePhotos = true;
     private boolean isLoading = false;
     private AtomicInteger pendingRequests = new AtomicInteger(2); // 两个请求待完成
+    private RequestScope requestScope; // 离开页面时暂停，销毁时取消本页面的所有请求
+    private LibraryStore libraryStore; // 本地缓存的文件夹内容，先显示再与网络核对
+    private int cachedTotal = -1;      // 本地缓存时的文件总数
+    private boolean subFoldersSynced = false;
+    private boolean filesSynced = false;
+    private String taskGroup; // 本页面请求的调度分组，位置为照片墙中的索引
+    private final LibraryChangeMonitor.Listener libraryChangeListener = this::onLibraryChanged;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -89,14 +103,41 @@ public class FolderBrowseActivity extends FragmentActivity {
             return;
         }
 
+        // 按焦点位置调度缩略图加载，滚出范围的请求直接取消
+        requestScope = RequestScope.bind(this, "folder");
+        taskGroup = requestScope.getGroup();
+        RequestScheduler.getInstance().configureWindow(taskGroup,
+                GRID_SPAN_COUNT * 3, GRID_SPAN_COUNT * 6, GRID_SPAN_COUNT * 15);
+
         // 初始化视图
         initViews();
 
         // 初始化API
         initApi();
+        libraryStore = LibraryStore.getInstance(this);
 
         // 加载文件夹内容
         loadFolderContent();
+
+        LibraryChangeMonitor.getInstance(this).addListener(libraryChangeListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        LibraryChangeMonitor.getInstance(this).removeListener(libraryChangeListener);
+    }
+
+    /**
+     * NAS 通知当前文件夹有变化：本地缓存已失效，重新从网络加载
+     */
+    private void onLibraryChanged(LibraryChangeMonitor.Changes changes) {
+        if (requestScope.isDestroyed() || !changes.folders.contains(currentFolderPath)) return;
+        Log.d(TAG, "Folder changed, reloading: " + currentFolderPath);
+        subFoldersSynced = false;
+        filesSynced = false;
+        cachedTotal = -1;
+        loadFolderContent();
     }
 
     private void initViews() {
@@ -188,6 +229,7 @@ public class FolderBrowseActivity extends FragmentActivity {
 
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(baseUrl + "/")
+                .client(FnHttpClient.get())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
         api = retrofit.create(FnHttpApi.class);
@@ -197,7 +239,26 @@ public class FolderBrowseActivity extends FragmentActivity {
         isLoading = true;
         pendingRequests.set(2);
 
-        // 并行加载子文件夹和媒体文件
+        // 先显示本地缓存，同时从网络加载子文件夹和媒体文件
+        libraryStore.loadFolder(currentFolderPath, snapshot -> {
+            if (requestScope.isDestroyed() || snapshot == null || snapshot.isEmpty()) return;
+            Log.d(TAG, "Showing cached folder: " + snapshot.subFolders.size() + " folders, "
+                    + snapshot.files.size() + " files");
+            if (!subFoldersSynced) {
+                folderList.clear();
+                folderList.addAll(snapshot.subFolders);
+                updateFoldersUI();
+            }
+            if (!filesSynced) {
+                photoStore = snapshot.files;
+                cachedTotal = snapshot.total;
+                loadedCount = photoStore.size();
+                hasMorePhotos = cachedTotal < 0 || loadedCount < cachedTotal;
+                updatePhotosUI();
+            }
+            tvLoading.setVisibility(View.GONE);
+        });
+
         loadSubFolders();
         loadMediaFiles(0);
     }
@@ -206,17 +267,24 @@ public class FolderBrowseActivity extends FragmentActivity {
         String params = "desc=false&orderBy=2&folderPath=" + currentFolderPath;
         String authx = FnAuthUtils.generateAuthX("/p/api/v1/folder_view/getFolderList", "GET", params);
 
-        api.getSubFolders(token, authx, currentFolderPath, false, 2)
-                .enqueue(new Callback<FnHttpApi.SubFolderListResponse>() {
+        Call<FnHttpApi.SubFolderListResponse> call = api.getSubFolders(token, authx, currentFolderPath, false, 2);
+        requestScope.submit("subfolders:" + currentFolderPath, RequestScheduler.Priority.VISIBLE,
+                new RequestScheduler.CallJob<FnHttpApi.SubFolderListResponse>(call, new Callback<FnHttpApi.SubFolderListResponse>() {
                     @Override
                     public void onResponse(Call<FnHttpApi.SubFolderListResponse> call,
                                            Response<FnHttpApi.SubFolderListResponse> response) {
                         if (response.isSuccessful() && response.body() != null) {
                             FnHttpApi.SubFolderListResponse result = response.body();
                             if (result.code == 0 && result.data != null && result.data.list != null) {
+                                subFoldersSynced = true;
                                 folderList.clear();
                                 folderList.addAll(result.data.list);
-                                updateFoldersUI();
+                                if (folderList.isEmpty()) {
+                                    folderAdapter.notifyDataSetChanged();
+                                } else {
+                                    updateFoldersUI();
+                                }
+                                libraryStore.saveSubFolders(currentFolderPath, result.data.list);
                             }
                         } else {
                             Log.e(TAG, "加载子文件夹失败: HTTP " + response.code());
@@ -229,25 +297,27 @@ public class FolderBrowseActivity extends FragmentActivity {
                         Log.e(TAG, "加载子文件夹失败", t);
                         checkLoadingComplete();
                     }
-                });
+                }));
     }
 
     private void loadMediaFiles(int offset) {
         String params = "folderPath=" + currentFolderPath + "&desc=false&orderBy=2&limit=" + PAGE_LIMIT + "&offset=" + offset;
         String authx = FnAuthUtils.generateAuthX("/p/api/v1/folder_view/getFileList", "GET", params);
 
-        api.getFolderFiles(token, authx, currentFolderPath, false, 2, PAGE_LIMIT, offset)
-                .enqueue(new Callback<FnHttpApi.FolderFileListResponse>() {
+        Call<FnHttpApi.FolderFileListResponse> call =
+                api.getFolderFiles(token, authx, currentFolderPath, false, 2, PAGE_LIMIT, offset);
+        // 第一页决定首屏，后续页是滚动到末尾前的预取
+        RequestScheduler.Priority priority = offset == 0
+                ? RequestScheduler.Priority.VISIBLE : RequestScheduler.Priority.NEAR_VISIBLE;
+        requestScope.submit("files:" + offset, priority,
+                new RequestScheduler.CallJob<FnHttpApi.FolderFileListResponse>(call, new Callback<FnHttpApi.FolderFileListResponse>() {
                     @Override
                     public void onResponse(Call<FnHttpApi.FolderFileListResponse> call,
                                            Response<FnHttpApi.FolderFileListResponse> response) {
                         if (response.isSuccessful() && response.body() != null) {
                             FnHttpApi.FolderFileListResponse result = response.body();
                             if (result.code == 0 && result.data != null && result.data.list != null) {
-                                photoList.addAll(result.data.list);
-                                loadedCount += result.data.list.size();
-                                hasMorePhotos = result.data.list.size() >= PAGE_LIMIT;
-                                updatePhotosUI();
+                                onMediaFilesLoaded(offset, result.data.list, result.data.total);
                             }
                         } else {
                             Log.e(TAG, "加载媒体文件失败: HTTP " + response.code());
@@ -260,7 +330,39 @@ public class FolderBrowseActivity extends FragmentActivity {
                         Log.e(TAG, "加载媒体文件失败", t);
                         checkLoadingComplete();
                     }
-                });
+                }));
+    }
+
+    private void onMediaFilesLoaded(int offset, List<FnHttpApi.FolderMediaItem> page, int total) {
+        if (offset == 0) {
+            filesSynced = true;
+            // 总数和第一页都与本地一致时保留本地列表，后续页从缓存末尾继续
+            boolean unchanged = !photoStore.isEmpty() && total == cachedTotal
+                    && photoStore.matchesPrefix(page);
+            libraryStore.saveFolderPage(currentFolderPath, 0, page, total, !unchanged);
+            if (unchanged) {
+                Log.d(TAG, "Cached folder is up to date");
+                loadedCount = photoStore.size();
+                hasMorePhotos = loadedCount < total;
+                return;
+            }
+            photoStore.clear();
+            loadedCount = 0;
+        } else if (offset != photoStore.size()) {
+            // 列表已被第一页的结果替换，丢弃过期的页
+            return;
+        } else {
+            libraryStore.saveFolderPage(currentFolderPath, offset, page, total, false);
+        }
+
+        photoStore.addAll(page);
+        loadedCount += page.size();
+        hasMorePhotos = page.size() >= PAGE_LIMIT;
+        if (photoStore.isEmpty()) {
+            photoAdapter.notifyDataSetChanged(); // 本地缓存的文件已全部删除
+        } else {
+            updatePhotosUI();
+        }
     }
 
     private void checkLoadingComplete() {
@@ -269,7 +371,7 @@ public class FolderBrowseActivity extends FragmentActivity {
             isLoading = false;
             tvLoading.setVisibility(View.GONE);
 
-            if (folderList.isEmpty() && photoList.isEmpty()) {
+            if (folderList.isEmpty() && photoStore.isEmpty()) {
                 Toast.makeText(this, "该文件夹为空", Toast.LENGTH_SHORT).show();
             }
         }
@@ -287,7 +389,7 @@ public class FolderBrowseActivity extends FragmentActivity {
     }
 
     private void updatePhotosUI() {
-        if (!photoList.isEmpty()) {
+        if (!photoStore.isEmpty()) {
             findViewWithTag("photos_title").setVisibility(View.VISIBLE);
             rvPhotos.setVisibility(View.VISIBLE);
             photoAdapter.notifyDataSetChanged();
@@ -386,22 +488,29 @@ public class FolderBrowseActivity extends FragmentActivity {
 
         @Override
         public void onBindViewHolder(ViewHolder holder, int position) {
-            FnHttpApi.FolderMediaItem item = photoList.get(position);
-            holder.bind(item);
+            holder.bind(position);
 
-            if (position == photoList.size() - 5 && hasMorePhotos && !isLoading) {
+            if (position == photoStore.size() - 5 && hasMorePhotos && !isLoading) {
                 loadMediaFiles(loadedCount);
             }
         }
 
         @Override
         public int getItemCount() {
-            return photoList.size();
+            return photoStore.size();
+        }
+
+        @Override
+        public void onViewRecycled(ViewHolder holder) {
+            super.onViewRecycled(holder);
+            // 滚出屏幕，取消尚未完成的缩略图加载
+            holder.cancelThumbnail();
         }
 
         class ViewHolder extends RecyclerView.ViewHolder {
             ImageView ivPhoto;
             View vVideoIndicator;
+            RequestScheduler.Task thumbTask;
 
             ViewHolder(View itemView) {
                 super(itemView);
@@ -418,16 +527,32 @@ public class FolderBrowseActivity extends FragmentActivity {
                 itemView.setOnFocusChangeListener((v, hasFocus) -> {
                     if (hasFocus) {
                         v.setBackgroundResource(R.drawable.menu_item_focused);
+                        // 按新的焦点位置调整缩略图加载的优先级
+                        int pos = getAdapterPosition();
+                        if (pos != RecyclerView.NO_POSITION) {
+                            RequestScheduler.getInstance().setFocus(taskGroup, pos);
+                        }
                     } else {
                         v.setBackgroundResource(0);
                     }
                 });
             }
 
-            void bind(FnHttpApi.FolderMediaItem item) {
-                String thumbUrl = baseUrl + "/p/api/v1/stream/p/t/" + item.id + "/s/" + item.photoUUID;
+            void cancelThumbnail() {
+                if (thumbTask != null) {
+                    thumbTask.cancel();
+                    thumbTask = null;
+                }
+            }
+
+            void bind(int position) {
+                String thumbUrl = photoStore.getThumbnailUrl(position, baseUrl);
 
-                CachedImageLoader.loadImage(FolderBrowseActivity.this, thumbUrl, token,
+                cancelThumbnail();
+                ivPhoto.setImageDrawable(null);
+                thumbTask = requestScope.submit("thumb:" + photoStore.getId(position), position,
+                        RequestScheduler.Priority.VISIBLE,
+                        CachedImageLoader.imageJob(FolderBrowseActivity.this, thumbUrl, token,
                         ivPhoto.getWidth(), ivPhoto.getHeight(),
                         new CachedImageLoader.ImageLoadCallback() {
                             @Override
@@ -439,37 +564,19 @@ public class FolderBrowseActivity extends FragmentActivity {
                             public void onLoadFailed() {
                                 ivPhoto.setImageResource(android.R.drawable.ic_menu_gallery);
                             }
-                        });
+                        }));
 
-                vVideoIndicator.setVisibility("video".equals(item.category) ? View.VISIBLE : View.GONE);
+                vVideoIndicator.setVisibility(photoStore.isVideo(position) ? View.VISIBLE : View.GONE);
             }
         }
     }
 
     private void openMediaDetail(int position) {
-        List<MediaItem> mediaItems = new ArrayList<>();
-        for (FnHttpApi.FolderMediaItem item : photoList) {
-            String thumbUrl = baseUrl + "/p/api/v1/stream/p/t/" + item.id + "/s/" + item.photoUUID;
-            String mediaUrl;
-            if ("video".equals(item.category)) {
-                mediaUrl = baseUrl + "/p/api/v1/stream/v/" + item.id;
-            } else {
-                mediaUrl = baseUrl + "/p/api/v1/stream/p/t/" + item.id + "/o/" + item.photoUUID;
-            }
-
-            MediaItem mediaItem = new MediaItem(
-                    String.valueOf(item.id),
-                    item.fileName,
-                    item.category,
-                    thumbUrl,
-                    mediaUrl
-            );
-            mediaItems.add(mediaItem);
-        }
-
+        // 详情页按位置从存储的快照读取，只生成用到的 MediaItem
         Intent intent = new Intent(this, MediaDetailActivity.class);
-        intent.putExtra("MEDIA_LIST", new ArrayList<>(mediaItems));
-        intent.putExtra("CURRENT_INDEX", position);
+        MediaSessionRepository.getInstance(this).attach(intent, photoStore.asMediaList(baseUrl), position);
+        // 进程被回收后从本地缓存的文件夹内容重建列表
+        intent.putExtra(MediaSessionRepository.EXTRA_FOLDER_PATH, currentFolderPath);
         startActivity(intent);
     }
 }
@@ -22,6 +22,12 @@ import androidx.leanback.widget.VerticalGridView;
 import androidx.recyclerview.widget.RecyclerView;
 import com.fnphoto.tv.api.FnAuthUtils;
 import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnHttpClient;
+import com.fnphoto.tv.data.LibraryChangeMonitor;
+import com.fnphoto.tv.data.LibraryStore;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
 import java.util.ArrayList;
 import java.util.List;
 import retrofit2.*;
@@ -31,6 +37,7 @@ public class MainActivity extends FragmentActivity {
     private static final String TAG = "MainActivity";
     private DrawerLayout drawerLayout;
     private VerticalGridView menuGrid;
+    private RequestScope requestScope;
     private MenuAdapter menuAdapter;
     private FnHttpApi api;
     private String token;
@@ -137,8 +144,29 @@ public class MainActivity extends FragmentActivity {
         // 添加 MainFragment
         setupMainFragment();
 
+        // 本页面的请求随 Activity 生命周期暂停和取消
+        requestScope = RequestScope.bind(this, "home");
+
         // 初始化 API 并获取相册应用版本
         initApiAndGetVersion();
+
+        // 订阅 NAS 的文件变化通知，用于本地缓存的精确失效
+        if (!baseUrl.isEmpty() && !token.isEmpty()) {
+            LibraryChangeMonitor.getInstance(this).start(baseUrl, token);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 退到后台时输出一次调度和加载指标，便于排查卡顿
+        AppMetrics.logSnapshot();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        LibraryChangeMonitor.getInstance(this).stop();
     }
 
     private void setupSideMenu() {
@@ -151,6 +179,7 @@ public class MainActivity extends FragmentActivity {
         // 添加菜单项
         // 第一组：浏览
         menuAdapter.add(new MenuItem("图库", "gallery"));
+        menuAdapter.add(new MenuItem("按年月跳转", "jump"));
         menuAdapter.add(new MenuItem("文件夹", "folders"));
         menuAdapter.add(new MenuItem("收藏", "favorites"));
         menuAdapter.add(new MenuItem("地图", "map"));
@@ -200,6 +229,11 @@ public class MainActivity extends FragmentActivity {
             case "gallery":
                 loadTimelinePhotos();
                 break;
+            case "jump":
+                // 先关闭菜单，焦点交给跳转面板
+                drawerLayout.closeDrawer(GravityCompat.END);
+                showMonthJumper();
+                return;
             case "folders":
                 loadFolders();
                 break;
@@ -233,6 +267,9 @@ public class MainActivity extends FragmentActivity {
             .remove("saved_user")
             .remove("saved_pass")
             .apply();
+        // 本地媒体库属于当前账号
+        LibraryChangeMonitor.getInstance(this).stop();
+        LibraryStore.getInstance(this).clear();
         
         Toast.makeText(this, "已退出登录", Toast.LENGTH_SHORT).show();
         
@@ -254,6 +291,11 @@ public class MainActivity extends FragmentActivity {
                 menuGrid.requestFocus();
             }
             return true;
+        } else if (keyCode == KeyEvent.KEYCODE_GUIDE) {
+            // 节目指南键打开年月跳转
+            if (!drawerLayout.isDrawerOpen(GravityCompat.END) && showMonthJumper()) {
+                return true;
+            }
         } else if (keyCode == KeyEvent.KEYCODE_BACK) {
             if (drawerLayout.isDrawerOpen(GravityCompat.END)) {
                 drawerLayout.closeDrawer(GravityCompat.END);
@@ -293,6 +335,7 @@ public class MainActivity extends FragmentActivity {
 
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(baseUrl + "/")
+                .client(FnHttpClient.get())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
         api = retrofit.create(FnHttpApi.class);
@@ -302,7 +345,9 @@ public class MainActivity extends FragmentActivity {
         
         Log.d(TAG, "Fetching album app version from: " + baseUrl);
         
-        api.getAppVersion(token, authx).enqueue(new Callback<FnHttpApi.AppVersionResponse>() {
+        requestScope.submit("app-version", RequestScheduler.Priority.VISIBLE,
+                new RequestScheduler.CallJob<FnHttpApi.AppVersionResponse>(api.getAppVersion(token, authx),
+                        new Callback<FnHttpApi.AppVersionResponse>() {
             @Override
             public void onResponse(Call<FnHttpApi.AppVersionResponse> call, 
                                   Response<FnHttpApi.AppVersionResponse> response) {
@@ -328,7 +373,7 @@ public class MainActivity extends FragmentActivity {
             public void onFailure(Call<FnHttpApi.AppVersionResponse> call, Throwable t) {
                 Log.e(TAG, "网络请求失败: " + t.getMessage(), t);
             }
-        });
+        }));
     }
 
     private void getPhotoStats() {
@@ -342,7 +387,9 @@ public class MainActivity extends FragmentActivity {
 
         Log.d(TAG, "Fetching photo stats...");
 
-        api.getPhotoStats(token, authx).enqueue(new Callback<FnHttpApi.PhotoStatsResponse>() {
+        requestScope.submit("photo-stats", RequestScheduler.Priority.BACKGROUND,
+                new RequestScheduler.CallJob<FnHttpApi.PhotoStatsResponse>(api.getPhotoStats(token, authx),
+                        new Callback<FnHttpApi.PhotoStatsResponse>() {
             @Override
             public void onResponse(Call<FnHttpApi.PhotoStatsResponse> call,
                                    Response<FnHttpApi.PhotoStatsResponse> response) {
@@ -367,7 +414,7 @@ public class MainActivity extends FragmentActivity {
             public void onFailure(Call<FnHttpApi.PhotoStatsResponse> call, Throwable t) {
                 Log.e(TAG, "获取统计信息失败: " + t.getMessage(), t);
             }
-        });
+        }));
     }
 
     private void loadTimelinePhotos() {
@@ -379,6 +426,12 @@ public class MainActivity extends FragmentActivity {
         }
     }
 
+    private boolean showMonthJumper() {
+        MainFragment fragment = (MainFragment) getSupportFragmentManager()
+                .findFragmentById(R.id.main_content_container);
+        return fragment != null && fragment.showMonthJumper();
+    }
+
     private void loadFolders() {
         MainFragment fragment = (MainFragment) getSupportFragmentManager()
                 .findFragmentById(R.id.main_content_container);
@@ -1,20 +1,36 @@
 package com.fnphoto.tv;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.view.ViewGroup;
 
 import androidx.leanback.app.BrowseSupportFragment;
 import androidx.leanback.widget.*;
 
 import com.fnphoto.tv.api.FnAuthUtils;
 import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnHttpClient;
+import com.fnphoto.tv.data.DayPhotoPager;
+import com.fnphoto.tv.data.LibraryChangeMonitor;
+import com.fnphoto.tv.data.LibraryStore;
+import com.fnphoto.tv.data.MediaSessionRepository;
+import com.fnphoto.tv.data.TimelineIndex;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.NetworkPolicy;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import retrofit2.Call;
@@ -27,26 +43,47 @@ public class MainFragment extends BrowseSupportFragment {
     private static final String TAG = "MainFragment";
     private static final int PREVIEW_LOAD_DELAY = 300; // 延迟加载时间
     private static final int VISIBLE_RANGE_BUFFER = 8; // 可视范围前后的缓冲数量
+    private static final int PREVIEW_THUMB_COUNT = 4; // 每个日期卡片的预览图数量
+    private static final int MAX_BATCH_PREVIEW_ITEMS = 200; // 一次范围查询最多返回的照片数量
+    private static final int KEEP_MATERIALIZED_ROWS = 12; // 焦点上下保留卡片的月份行数，更远的行释放卡片和预览
 
     private FnHttpApi api;
     private String token;
     private String baseUrl;
     private ArrayObjectAdapter mRowsAdapter;
     private CardPresenter mCardPresenter;
+    private final RowsUpdater rowsUpdater = new RowsUpdater(); // 行模型在后台构建，按差异更新适配器
+    private RequestScope requestScope;   // 本页面的请求随 Fragment 生命周期暂停和取消
+    private String cardTaskGroup;        // 卡片图片加载的调度分组
+    private String previewTaskGroup;     // 日期预览请求的调度分组
     private List<FnHttpApi.TimelineItem> timelineItems;
+    private LibraryStore libraryStore;       // 本地元数据，时间线和按天列表先从这里读取
+    private int timelineGeneration = 0;      // 每次加载时间线或切换到其他视图时递增，丢弃过期的回调
+    private boolean timelineSynced = false;  // 本次加载的时间线已与服务端核对
+    private int dayLoadGeneration = 0;       // 同上，用于按天列表
+    private final LibraryChangeMonitor.Listener libraryChangeListener = this::onLibraryChanged;
     private boolean isPhotoListView = false;
     private List<MediaItem> currentMediaList;
     
+    // 按天分页加载
+    private DayPhotoPager photoPager;
+    private DaySpeculator daySpeculator;      // 焦点停留在日期上时预取当天的第一页和缩略图
+    private ArrayObjectAdapter photoRowAdapter;
+    private int photoPageSize = DayPhotoPager.DEFAULT_PAGE_SIZE;
+    
     // 懒加载相关
-    private List<MediaItem> allDateItems = new ArrayList<>();
-    private List<FnHttpApi.TimelineItem> allTimelineItems = new ArrayList<>();
-    private Set<Integer> loadedIndexes = new HashSet<>();
+    private TimelineIndex timelineIndex = TimelineIndex.EMPTY;          // 日期 -> 索引 -> 行列位置
+    private List<FnHttpApi.TimelineItem> indexedItems = Collections.emptyList(); // 构建 timelineIndex 的时间线
+    private ListRow[] monthRows = new ListRow[0];                       // 月份行，卡片由 TimelineMonthAdapter 按需创建
+    private final BitSet materializedRows = new BitSet();               // 已创建卡片的月份行
+    private final BitSet loadedIndexes = new BitSet();                  // 已加载（或正在加载）预览的索引
     private Handler lazyLoadHandler = new Handler(Looper.getMainLooper());
     private Handler positionHandler = new Handler(Looper.getMainLooper()); // 专门用于位置恢复
     private int lastVisibleIndex = -1;
     
     // 保存滚动位置
-    private int savedTimelinePosition = -1;  // 保存时间线的选中位置
+    private String savedTimelineDate;        // 保存时间线的选中日期，内容变化后仍能找回
+    private MonthJumpOverlay monthJumpOverlay; // 年月跳转面板，未显示时为 null
     private int savedPhotoListPosition = -1; // 保存照片列表的选中位置
 
     @Override
@@ -57,18 +94,37 @@ public class MainFragment extends BrowseSupportFragment {
             baseUrl = getArguments().getString("nas_url", "");
             token = getArguments().getString("api_token", "");
         }
+        
+        if (getActivity() != null) {
+            photoPageSize = getActivity().getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE)
+                    .getInt("photo_page_size", DayPhotoPager.DEFAULT_PAGE_SIZE);
+        }
+
+        requestScope = RequestScope.bind(this, "main");
+        libraryStore = LibraryStore.getInstance(requireContext());
+        cardTaskGroup = requestScope.group(CardPresenter.TASK_GROUP);
+        previewTaskGroup = requestScope.group("timeline-previews");
 
         setupUI();
         
+        // 焦点离开后，超出范围的预览请求直接取消
+        RequestScheduler.getInstance().configureWindow(previewTaskGroup,
+                VISIBLE_RANGE_BUFFER, VISIBLE_RANGE_BUFFER * 2, VISIBLE_RANGE_BUFFER * 4);
+        
         if (baseUrl != null && !baseUrl.isEmpty()) {
             Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(baseUrl + "/")
+                    .client(FnHttpClient.get())
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
             api = retrofit.create(FnHttpApi.class);
         }
+        daySpeculator = new DaySpeculator(requireContext(), api, token, baseUrl,
+                requestScope.group("speculation"), libraryStore, photoPageSize);
 
         setupEventListeners();
+
+        LibraryChangeMonitor.getInstance(requireContext()).addListener(libraryChangeListener);
     }
 
     private void setupUI() {
@@ -77,7 +133,7 @@ public class MainFragment extends BrowseSupportFragment {
         setBrandColor(getResources().getColor(android.R.color.black));
         setSearchAffordanceColor(getResources().getColor(android.R.color.white));
         
-        mCardPresenter = new CardPresenter(baseUrl);
+        mCardPresenter = new CardPresenter(baseUrl, cardTaskGroup);
         mRowsAdapter = new ArrayObjectAdapter(new ListRowPresenter());
         setAdapter(mRowsAdapter);
     }
@@ -107,11 +163,31 @@ public class MainFragment extends BrowseSupportFragment {
             @Override
             public void onItemSelected(Presenter.ViewHolder itemViewHolder, Object item,
                                        RowPresenter.ViewHolder rowViewHolder, Row row) {
+                if (item instanceof MediaItem) {
+                    // 按新的焦点位置调整卡片图片加载的优先级
+                    RequestScheduler.getInstance().setFocus(cardTaskGroup,
+                            ((MediaItem) item).getListPosition());
+                }
+                
                 if (item instanceof MediaItem && ((MediaItem) item).getType().equals("date")) {
                     // 找到选中项的索引
-                    int selectedIndex = allDateItems.indexOf(item);
+                    int selectedIndex = timelineIndex.indexOf(((MediaItem) item).getDateStr());
                     if (selectedIndex >= 0) {
+                        daySpeculator.onDateFocused(timelineIndex.getDateStr(selectedIndex),
+                                timelineIndex.getCount(selectedIndex));
+                        RequestScheduler.getInstance().setFocus(previewTaskGroup, selectedIndex);
                         scheduleLazyLoad(selectedIndex);
+                        releaseFarRows(timelineIndex.getRow(selectedIndex));
+                    }
+                } else {
+                    daySpeculator.cancelDwell();
+                }
+
+                if (isPhotoListView && photoPager != null && item instanceof MediaItem) {
+                    // 焦点接近已加载末尾时预取后续页
+                    int position = ((MediaItem) item).getListPosition();
+                    if (position >= 0) {
+                        photoPager.onPositionVisible(position);
                     }
                 }
             }
@@ -134,46 +210,119 @@ public class MainFragment extends BrowseSupportFragment {
     }
     
     private void loadVisiblePreviews(int centerIndex) {
-        if (allDateItems.isEmpty() || allTimelineItems.isEmpty()) return;
+        if (timelineIndex.size() == 0 || monthRows.length != timelineIndex.getRowCount()) return;
         
         int start = Math.max(0, centerIndex - VISIBLE_RANGE_BUFFER);
-        int end = Math.min(allDateItems.size(), centerIndex + VISIBLE_RANGE_BUFFER + 1);
+        int end = Math.min(timelineIndex.size(), centerIndex + VISIBLE_RANGE_BUFFER + 1);
         
         Log.d(TAG, "Loading previews for visible range: " + start + " to " + end);
         
+        // 收集需要从服务端获取预览的日期，合并为少量范围查询
+        List<Integer> pending = new ArrayList<>();
         for (int i = start; i < end; i++) {
-            if (!loadedIndexes.contains(i)) {
-                loadedIndexes.add(i);
-                final int index = i;
-                final MediaItem mediaItem = allDateItems.get(i);
-                final FnHttpApi.TimelineItem timelineItem = allTimelineItems.get(i);
-                
-                if (timelineItem.itemCount > 0) {
-                    loadDatePreviewThumbnails(mediaItem, timelineItem, () -> {
-                        // 通知更新
-                        notifyItemChanged(mediaItem);
-                    });
+            if (!loadedIndexes.get(i)) {
+                loadedIndexes.set(i);
+                if (timelineIndex.getCount(i) > 0 && !TimelineMonthAdapter.hasServerPreviews(indexedItems, i)) {
+                    pending.add(i);
                 }
             }
         }
+        
+        if (pending.isEmpty()) return;
+        
+        // 按连续范围分批：范围查询会返回两个待加载日期之间所有日期的照片，一并计入 limit，
+        // 每批总数不超过 MAX_BATCH_PREVIEW_ITEMS
+        int batchStart = 0;
+        int batchTotal = 0;
+        for (int p = 0; p < pending.size(); p++) {
+            int index = pending.get(p);
+            int from = p == batchStart ? index : pending.get(p - 1) + 1;
+            int count = timelineIndex.sumCounts(from, index);
+            if (p > batchStart && batchTotal + count > MAX_BATCH_PREVIEW_ITEMS) {
+                loadBatchPreviewThumbnails(new ArrayList<>(pending.subList(batchStart, p)), batchTotal);
+                batchStart = p;
+                batchTotal = timelineIndex.getCount(index);
+            } else {
+                batchTotal += count;
+            }
+        }
+        loadBatchPreviewThumbnails(new ArrayList<>(pending.subList(batchStart, pending.size())), batchTotal);
     }
     
-    private void notifyItemChanged(MediaItem item) {
-        // 遍历所有行，找到并更新对应的项
-        for (int i = 0; i < mRowsAdapter.size(); i++) {
-            Object row = mRowsAdapter.get(i);
-            if (row instanceof ListRow) {
-                ArrayObjectAdapter rowAdapter = (ArrayObjectAdapter) ((ListRow) row).getAdapter();
-                int itemIndex = rowAdapter.indexOf(item);
-                if (itemIndex >= 0) {
-                    rowAdapter.notifyItemRangeChanged(itemIndex, 1);
-                    break;
-                }
-            }
+    private TimelineMonthAdapter monthAdapter(int row) {
+        return (TimelineMonthAdapter) monthRows[row].getAdapter();
+    }
+
+    private void onRowMaterialized(int row) {
+        materializedRows.set(row);
+    }
+
+    /**
+     * 释放远离焦点的月份行的卡片，回到附近时重新创建（已加载的预览保留在行中，不再重新查询）
+     */
+    private void releaseFarRows(int focusRow) {
+        for (int row = materializedRows.nextSetBit(0); row >= 0; row = materializedRows.nextSetBit(row + 1)) {
+            if (Math.abs(row - focusRow) <= KEEP_MATERIALIZED_ROWS || row >= monthRows.length) continue;
+            monthAdapter(row).release();
+            materializedRows.clear(row);
+            AppMetrics.increment("timeline.rows_released");
+        }
+    }
+
+    /**
+     * 打开年月跳转面板，只在时间线视图中可用
+     * @return 是否已打开
+     */
+    public boolean showMonthJumper() {
+        if (isPhotoListView || timelineItems == null || timelineIndex.getRowCount() == 0
+                || monthJumpOverlay != null || !(getView() instanceof ViewGroup)) {
+            return false;
+        }
+        int currentRow = lastVisibleIndex >= 0 && lastVisibleIndex < timelineIndex.size()
+                ? timelineIndex.getRow(lastVisibleIndex) : getSelectedPosition();
+        monthJumpOverlay = new MonthJumpOverlay(requireContext(), timelineIndex, currentRow, this::jumpToRow);
+        ((ViewGroup) getView()).addView(monthJumpOverlay, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        monthJumpOverlay.focus();
+        return true;
+    }
+
+    private boolean hideMonthJumper() {
+        if (monthJumpOverlay == null) return false;
+        ViewGroup parent = (ViewGroup) monthJumpOverlay.getParent();
+        if (parent != null) {
+            parent.removeView(monthJumpOverlay);
+        }
+        monthJumpOverlay = null;
+        return true;
+    }
+
+    /**
+     * 直接定位到某个月份行：不平滑滚动，中间的行不会被绑定，也不会触发它们的预览加载，
+     * 只加载落点附近的预览
+     */
+    private void jumpToRow(int row) {
+        hideMonthJumper();
+        if (row < 0 || row >= timelineIndex.getRowCount()) return;
+        int index = timelineIndex.getRowStart(row);
+        Log.d(TAG, "Jumping to " + timelineIndex.getRowYear(row) + "-" + timelineIndex.getRowMonth(row));
+        AppMetrics.increment("timeline.month_jumps");
+
+        lazyLoadHandler.removeCallbacksAndMessages(null);
+        lastVisibleIndex = index;
+        RequestScheduler.getInstance().setFocus(previewTaskGroup, index);
+        RequestScheduler.getInstance().setFocus(cardTaskGroup, index);
+        setSelectedPosition(row, false, new ListRowPresenter.SelectItemViewHolderTask(0));
+        if (getView() != null) {
+            getView().requestFocus();
         }
+        loadVisiblePreviews(index);
     }
 
     public boolean onBackPressed() {
+        if (hideMonthJumper()) {
+            return true;
+        }
         if (isPhotoListView && timelineItems != null) {
             Log.d(TAG, "Returning to timeline");
             // 保存照片列表的滚动位置
@@ -186,16 +335,10 @@ public class MainFragment extends BrowseSupportFragment {
     
     private void saveTimelinePosition() {
         try {
-            // 找到当前选中的日期项在allDateItems中的索引
-            int selectedRow = getSelectedPosition();
-            if (selectedRow >= 0 && selectedRow < mRowsAdapter.size()) {
-                Object row = mRowsAdapter.get(selectedRow);
-                if (row instanceof ListRow) {
-                    // 获取当前行的选中位置
-                    // 注意：Leanback不直接提供行内选中位置，我们使用lastVisibleIndex
-                    savedTimelinePosition = lastVisibleIndex;
-                    Log.d(TAG, "Saved timeline position: " + savedTimelinePosition);
-                }
+            // Leanback 不直接提供行内选中位置，使用最后选中的日期索引
+            if (!isPhotoListView && lastVisibleIndex >= 0 && lastVisibleIndex < timelineIndex.size()) {
+                savedTimelineDate = timelineIndex.getDateStr(lastVisibleIndex);
+                Log.d(TAG, "Saved timeline position: " + savedTimelineDate);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error saving timeline position", e);
@@ -212,37 +355,23 @@ public class MainFragment extends BrowseSupportFragment {
     }
     
     private void restoreTimelinePosition() {
-        Log.d(TAG, "restoreTimelinePosition called, saved position: " + savedTimelinePosition + ", total items: " + allDateItems.size());
-        if (savedTimelinePosition >= 0 && savedTimelinePosition < allDateItems.size()) {
-            // 使用独立的 Handler，避免被 lazyLoadHandler 清空
-            positionHandler.postDelayed(() -> {
-                try {
-                    // 找到该日期项所在的行
-                    MediaItem targetItem = allDateItems.get(savedTimelinePosition);
-                    Log.d(TAG, "Looking for item: " + targetItem.getId() + " at position " + savedTimelinePosition);
-                    
-                    for (int rowIdx = 0; rowIdx < mRowsAdapter.size(); rowIdx++) {
-                        Object row = mRowsAdapter.get(rowIdx);
-                        if (row instanceof ListRow) {
-                            ArrayObjectAdapter rowAdapter = (ArrayObjectAdapter) ((ListRow) row).getAdapter();
-                            int itemIdx = rowAdapter.indexOf(targetItem);
-                            Log.d(TAG, "Row " + rowIdx + ": item index = " + itemIdx);
-                            
-                            if (itemIdx >= 0) {
-                                // 找到行，选中它
-                                setSelectedPosition(rowIdx);
-                                Log.d(TAG, "Restored timeline position - row: " + rowIdx + ", item index: " + savedTimelinePosition);
-                                break;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error restoring timeline position", e);
-                }
-            }, 800); // 延迟800ms等待视图准备好
-        } else {
-            Log.w(TAG, "Invalid saved timeline position: " + savedTimelinePosition);
+        final int index = timelineIndex.indexOf(savedTimelineDate);
+        Log.d(TAG, "restoreTimelinePosition called, saved date: " + savedTimelineDate + ", index: " + index);
+        if (index < 0) {
+            return;
         }
+        final int row = timelineIndex.getRow(index);
+        final int column = timelineIndex.getColumn(index);
+        // 使用独立的 Handler，避免被 lazyLoadHandler 清空
+        positionHandler.postDelayed(() -> {
+            try {
+                // 同时恢复行和行内的位置
+                setSelectedPosition(row, false, new ListRowPresenter.SelectItemViewHolderTask(column));
+                Log.d(TAG, "Restored timeline position - row: " + row + ", column: " + column);
+            } catch (Exception e) {
+                Log.e(TAG, "Error restoring timeline position", e);
+            }
+        }, 800); // 延迟800ms等待视图准备好
     }
 
     public void loadTimeline() {
@@ -251,16 +380,46 @@ public class MainFragment extends BrowseSupportFragment {
             return;
         }
 
+        final int generation = ++timelineGeneration;
+        timelineSynced = false;
+
+        // 先显示本地时间线，网络返回后再核对
+        libraryStore.loadTimeline(cached -> {
+            if (generation != timelineGeneration || timelineSynced || requestScope.isDestroyed()) return;
+            if (cached != null && !cached.isEmpty()) {
+                Log.d(TAG, "Showing " + cached.size() + " days from local library");
+                displayTimeline(cached);
+            }
+        });
+
+        fetchTimeline(generation, Collections.<String>emptySet());
+    }
+
+    /**
+     * NAS 通知媒体库变化：本地库已失效相关的日期，这里只重新核对时间线，
+     * 内容有变化的日期（包括正在浏览的那一天）才重新加载
+     */
+    private void onLibraryChanged(LibraryChangeMonitor.Changes changes) {
+        if (timelineItems == null || api == null || requestScope.isDestroyed()) {
+            // 不在时间线视图，下次进入时会重新加载
+            return;
+        }
+        Log.d(TAG, "Library changed: days=" + changes.days + ", timelineStale=" + changes.timelineStale);
+        fetchTimeline(++timelineGeneration, changes.days);
+    }
+
+    private void fetchTimeline(final int generation, final Set<String> reloadDays) {
         String authx = FnAuthUtils.generateAuthX("/p/api/v1/gallery/timeline", "GET", null);
 
-        api.getTimeline(token, authx).enqueue(new Callback<FnHttpApi.TimelineResponse>() {
+        requestScope.submit("timeline", RequestScheduler.Priority.VISIBLE,
+                new RequestScheduler.CallJob<FnHttpApi.TimelineResponse>(api.getTimeline(token, authx), new Callback<FnHttpApi.TimelineResponse>() {
             @Override
             public void onResponse(Call<FnHttpApi.TimelineResponse> call, 
                                    Response<FnHttpApi.TimelineResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     FnHttpApi.TimelineResponse result = response.body();
                     if (result.code == 0 && result.data != null && result.data.list != null) {
-                        displayTimeline(result.data.list);
+                        reconcileTimeline(generation, result.data.list, reloadDays);
                     }
                 }
             }
@@ -269,49 +428,137 @@ public class MainFragment extends BrowseSupportFragment {
             public void onFailure(Call<FnHttpApi.TimelineResponse> call, Throwable t) {
                 Log.e(TAG, "加载时间线失败", t);
             }
+        }));
+    }
+
+    /**
+     * 把服务端时间线写入本地库，只有内容变化时才重新显示
+     *
+     * @param reloadDays 即使数量没变也需要重新加载的日期
+     */
+    private void reconcileTimeline(int generation, List<FnHttpApi.TimelineItem> items, Set<String> reloadDays) {
+        if (generation != timelineGeneration) return;
+        final boolean showingCached = timelineItems != null;
+        libraryStore.saveTimeline(items, changedDays -> {
+            if (generation != timelineGeneration || requestScope.isDestroyed()) return;
+            timelineSynced = true;
+            if (isPhotoListView && photoPager != null) {
+                String dateStr = photoPager.getDateStr();
+                if ((reloadDays.contains(dateStr) || (changedDays != null && changedDays.contains(dateStr)))
+                        && !reloadOpenDay(dateStr, items)) {
+                    // 这一天的照片已全部删除，回到时间线
+                    Log.d(TAG, dateStr + " no longer exists, returning to timeline");
+                    displayTimeline(items);
+                    return;
+                }
+            }
+            if (showingCached && changedDays != null && changedDays.isEmpty() && reloadDays.isEmpty()) {
+                Log.d(TAG, "Local timeline is up to date");
+                return;
+            }
+            if (isPhotoListView) {
+                // 正在浏览某一天，返回时再显示新的时间线
+                timelineItems = items;
+                return;
+            }
+            if (showingCached) {
+                saveTimelinePosition();
+            }
+            displayTimeline(items);
         });
     }
 
+    /**
+     * 正在浏览的日期内容有变化：按新的数量重新加载，保持当前位置
+     *
+     * @return 新的时间线中已没有这一天时返回 false
+     */
+    private boolean reloadOpenDay(String dateStr, List<FnHttpApi.TimelineItem> items) {
+        for (FnHttpApi.TimelineItem item : items) {
+            if (dateStr.equals(LibraryStore.toDateStr(item))) {
+                Log.d(TAG, "Reloading " + dateStr + " after library change");
+                savePhotoListPosition();
+                openDay(dateStr, item.itemCount);
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void displayTimeline(List<FnHttpApi.TimelineItem> items) {
+        hideMonthJumper();
         timelineItems = items;
         isPhotoListView = false;
-        allDateItems.clear();
-        allTimelineItems.clear();
-        loadedIndexes.clear();
-        
-        mRowsAdapter.clear();
-        
-        String currentYearMonth = "";
-        ArrayObjectAdapter currentRowAdapter = null;
-        
-        for (FnHttpApi.TimelineItem item : items) {
-            String yearMonth = item.year + "年" + item.month + "月";
-            String dateStr = item.year + "-" + String.format("%02d", item.month) + "-" + String.format("%02d", item.day);
-            
-            if (!yearMonth.equals(currentYearMonth)) {
-                currentYearMonth = yearMonth;
-                HeaderItem header = new HeaderItem(yearMonth);
-                currentRowAdapter = new ArrayObjectAdapter(mCardPresenter);
-                mRowsAdapter.add(new ListRow(header, currentRowAdapter));
+        releasePhotoPager();
+        RequestScheduler.getInstance().cancelGroup(previewTaskGroup);
+
+        // 后台只构建紧凑的索引，卡片在月份行被绑定时才创建
+        rowsUpdater.submit(() -> new TimelineIndex(items), index -> {
+            showTimelineRows(index, items);
+
+            // 初始加载前几个可见项的预览
+            if (timelineIndex.size() > 0) {
+                lazyLoadHandler.postDelayed(() -> loadVisiblePreviews(0), 500);
             }
-            
-            MediaItem mediaItem = new MediaItem(
-                dateStr,
-                item.day + "日 (" + item.itemCount + "张)",
-                item.itemCount
-            );
-            currentRowAdapter.add(mediaItem);
-            allDateItems.add(mediaItem);
-            allTimelineItems.add(item);
+
+            // 恢复之前保存的位置
+            restoreTimelinePosition();
+        });
+    }
+
+    /**
+     * 按索引生成月份行：id 相同的行复用原有的行和适配器，
+     * 已创建的卡片和预览在内容不变时保留，不会重新绑定
+     */
+    private void showTimelineRows(TimelineIndex index, List<FnHttpApi.TimelineItem> items) {
+        Map<Long, ListRow> existing = new HashMap<>();
+        for (ListRow row : monthRows) {
+            existing.put(row.getId(), row);
         }
-        
-        // 初始加载前几个可见项的预览
-        if (!allDateItems.isEmpty()) {
-            lazyLoadHandler.postDelayed(() -> loadVisiblePreviews(0), 500);
+
+        ListRow[] rows = new ListRow[index.getRowCount()];
+        materializedRows.clear();
+        loadedIndexes.clear();
+        for (int r = 0; r < rows.length; r++) {
+            long id = index.getRowId(r);
+            ListRow row = existing.get(id);
+            if (row != null) {
+                TimelineMonthAdapter adapter = (TimelineMonthAdapter) row.getAdapter();
+                adapter.update(index, r, items);
+                if (adapter.isMaterialized()) {
+                    materializedRows.set(r);
+                }
+                int rowStart = index.getRowStart(r);
+                for (int column = 0; column < adapter.size(); column++) {
+                    if (adapter.hasPreviews(column)) {
+                        loadedIndexes.set(rowStart + column);
+                    }
+                }
+            } else {
+                TimelineMonthAdapter adapter = new TimelineMonthAdapter(mCardPresenter, baseUrl, index, r, items,
+                        this::onRowMaterialized);
+                row = new ListRow(new HeaderItem(id, index.getRowYear(r) + "年" + index.getRowMonth(r) + "月"), adapter);
+            }
+            rows[r] = row;
         }
-        
-        // 恢复之前保存的位置
-        restoreTimelinePosition();
+
+        timelineIndex = index;
+        indexedItems = items;
+        monthRows = rows;
+        rowsUpdater.applyRows(mRowsAdapter, Arrays.asList(rows));
+        Log.d(TAG, "Timeline: " + index.size() + " days in " + rows.length + " rows, "
+                + materializedRows.cardinality() + " rows materialized");
+    }
+
+    /**
+     * 离开时间线（文件夹、相册）时释放月份行
+     */
+    private void releaseTimelineRows() {
+        monthRows = new ListRow[0];
+        materializedRows.clear();
+        loadedIndexes.clear();
+        timelineIndex = TimelineIndex.EMPTY;
+        indexedItems = Collections.emptyList();
     }
 
     public void loadFolders() {
@@ -330,7 +577,9 @@ public class MainFragment extends BrowseSupportFragment {
 
         String authx = FnAuthUtils.generateAuthX("/p/api/v1/photo/folder/list", "GET", params);
 
-        api.getManagedFolders(token, authx, desc, orderBy).enqueue(new Callback<FnHttpApi.FolderListResponse>() {
+        requestScope.submit("folders", RequestScheduler.Priority.VISIBLE,
+                new RequestScheduler.CallJob<FnHttpApi.FolderListResponse>(api.getManagedFolders(token, authx, desc, orderBy),
+                        new Callback<FnHttpApi.FolderListResponse>() {
             @Override
             public void onResponse(Call<FnHttpApi.FolderListResponse> call,
                                    Response<FnHttpApi.FolderListResponse> response) {
@@ -350,46 +599,51 @@ public class MainFragment extends BrowseSupportFragment {
             public void onFailure(Call<FnHttpApi.FolderListResponse> call, Throwable t) {
                 Log.e(TAG, "加载文件夹失败", t);
             }
-        });
+        }));
     }
 
     private void displayFolders(List<FnHttpApi.FolderItem> folders) {
+        hideMonthJumper();
+        timelineGeneration++;
         isPhotoListView = false;
+        releasePhotoPager();
+        daySpeculator.cancel();
         timelineItems = null;
-        mRowsAdapter.clear();
-        
-        HeaderItem header = new HeaderItem("文件夹 (" + folders.size() + ")");
-        ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(mCardPresenter);
-        
-        for (FnHttpApi.FolderItem folder : folders) {
-            // 构建显示文本：文件夹名 + 文件数量
-            String displayName = folder.getFolderName();
-            int totalCount = folder.getTotalCount();
-            if (totalCount > 0) {
-                StringBuilder countInfo = new StringBuilder();
-                if (folder.photoCount > 0) {
-                    countInfo.append(folder.photoCount).append("张照片");
-                }
-                if (folder.videoCount > 0) {
-                    if (countInfo.length() > 0) {
-                        countInfo.append("，");
+        releaseTimelineRows();
+
+        rowsUpdater.submit(() -> {
+            List<MediaItem> items = new ArrayList<>(folders.size());
+            for (FnHttpApi.FolderItem folder : folders) {
+                // 构建显示文本：文件夹名 + 文件数量
+                String displayName = folder.getFolderName();
+                int totalCount = folder.getTotalCount();
+                if (totalCount > 0) {
+                    StringBuilder countInfo = new StringBuilder();
+                    if (folder.photoCount > 0) {
+                        countInfo.append(folder.photoCount).append("张照片");
+                    }
+                    if (folder.videoCount > 0) {
+                        if (countInfo.length() > 0) {
+                            countInfo.append("，");
+                        }
+                        countInfo.append(folder.videoCount).append("个视频");
                     }
-                    countInfo.append(folder.videoCount).append("个视频");
+                    displayName = displayName + " (" + countInfo.toString() + ")";
                 }
-                displayName = displayName + " (" + countInfo.toString() + ")";
+
+                MediaItem item = new MediaItem(
+                    String.valueOf(folder.folderId),
+                    displayName,
+                    "folder",
+                    null,
+                    folder.folderPath  // 保存完整路径，后续可能需要用到
+                );
+                item.setListPosition(items.size());
+                items.add(item);
             }
-            
-            MediaItem item = new MediaItem(
-                String.valueOf(folder.folderId),
-                displayName,
-                "folder",
-                null,
-                folder.folderPath  // 保存完整路径，后续可能需要用到
-            );
-            listRowAdapter.add(item);
-        }
-        
-        mRowsAdapter.add(new ListRow(header, listRowAdapter));
+            return Collections.singletonList(
+                    new RowsUpdater.RowModel(RowsUpdater.ROW_ID_FOLDERS, "文件夹 (" + folders.size() + ")", items));
+        }, rows -> rowsUpdater.apply(mRowsAdapter, rows, mCardPresenter));
     }
 
     public void loadAlbums() {
@@ -400,7 +654,8 @@ public class MainFragment extends BrowseSupportFragment {
 
         String authx = FnAuthUtils.generateAuthX("/api/v1/photos/albums", "GET", null);
 
-        api.getAlbums(token, authx).enqueue(new Callback<FnHttpApi.AlbumResponse>() {
+        requestScope.submit("albums", RequestScheduler.Priority.VISIBLE,
+                new RequestScheduler.CallJob<FnHttpApi.AlbumResponse>(api.getAlbums(token, authx), new Callback<FnHttpApi.AlbumResponse>() {
             @Override
             public void onResponse(Call<FnHttpApi.AlbumResponse> call,
                                    Response<FnHttpApi.AlbumResponse> response) {
@@ -416,47 +671,67 @@ public class MainFragment extends BrowseSupportFragment {
             public void onFailure(Call<FnHttpApi.AlbumResponse> call, Throwable t) {
                 Log.e(TAG, "加载相册失败", t);
             }
-        });
+        }));
     }
 
     private void displayAlbums(List<FnHttpApi.Album> albums) {
+        hideMonthJumper();
+        timelineGeneration++;
         isPhotoListView = false;
+        releasePhotoPager();
+        daySpeculator.cancel();
         timelineItems = null;
-        mRowsAdapter.clear();
-        
-        HeaderItem header = new HeaderItem("相册");
-        ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(mCardPresenter);
-        
-        for (FnHttpApi.Album album : albums) {
-            String coverUrl = album.cover != null ? baseUrl + album.cover : null;
-            MediaItem item = new MediaItem(
-                album.id,
-                album.name,
-                "album",
-                coverUrl,
-                coverUrl
-            );
-            listRowAdapter.add(item);
-        }
-        
-        mRowsAdapter.add(new ListRow(header, listRowAdapter));
+        releaseTimelineRows();
+
+        rowsUpdater.submit(() -> {
+            List<MediaItem> items = new ArrayList<>(albums.size());
+            for (FnHttpApi.Album album : albums) {
+                String coverUrl = album.cover != null ? baseUrl + album.cover : null;
+                MediaItem item = new MediaItem(
+                    album.id,
+                    album.name,
+                    "album",
+                    coverUrl,
+                    coverUrl
+                );
+                item.setListPosition(items.size());
+                items.add(item);
+            }
+            return Collections.singletonList(new RowsUpdater.RowModel(RowsUpdater.ROW_ID_ALBUMS, "相册", items));
+        }, rows -> rowsUpdater.apply(mRowsAdapter, rows, mCardPresenter));
     }
 
-    private void loadDatePreviewThumbnails(final MediaItem mediaItem, 
-                                           final FnHttpApi.TimelineItem timelineItem,
-                                           final Runnable onComplete) {
-        if (api == null || token == null || token.isEmpty()) {
-            if (onComplete != null) onComplete.run();
+    /**
+     * 用一次范围查询获取多个日期的预览缩略图，在客户端按日期拆分
+     * @param indexes 时间线中连续范围内需要预览的日期索引
+     * @param totalCount 范围内照片总数，作为查询的 limit
+     */
+    private void loadBatchPreviewThumbnails(final List<Integer> indexes, int totalCount) {
+        if (api == null || token == null || token.isEmpty() || indexes.isEmpty()) {
             return;
         }
         
-        String dateStr = mediaItem.getDateStr();
-        String dateTime = dateStr.replace("-", ":");
-        String startTime = dateTime + " 00:00:00";
-        String endTime = dateTime + " 23:59:59";
-        int limit = Math.min(timelineItem.itemCount,4);
+        // 本批次涉及的日期，dateStr -> 时间线索引
+        final TimelineIndex batchIndex = timelineIndex;
+        final Map<String, Integer> batchItems = new HashMap<>();
+        String minDate = null;
+        String maxDate = null;
+        for (int index : indexes) {
+            String dateStr = batchIndex.getDateStr(index);
+            batchItems.put(dateStr, index);
+            if (minDate == null || dateStr.compareTo(minDate) < 0) minDate = dateStr;
+            if (maxDate == null || dateStr.compareTo(maxDate) > 0) maxDate = dateStr;
+        }
+        
+        // 单独一天时只需要前几张
+        int limit = indexes.size() == 1
+                ? Math.min(totalCount, PREVIEW_THUMB_COUNT)
+                : Math.min(totalCount, MAX_BATCH_PREVIEW_ITEMS);
         int offset = 0;
         String mode = "index";
+        String startTime = minDate.replace("-", ":") + " 00:00:00";
+        String endTime = maxDate.replace("-", ":") + " 23:59:59";
+        final String range = minDate + " ~ " + maxDate;
         
         StringBuilder paramsBuilder = new StringBuilder();
         paramsBuilder.append("end_time=").append(endTime);
@@ -470,132 +745,191 @@ public class MainFragment extends BrowseSupportFragment {
         
         String authx = FnAuthUtils.generateAuthX(path, "GET", params);
         
-        api.getPhotosByTimeRange(token, authx, startTime, endTime, limit, offset, mode)
-            .enqueue(new Callback<FnHttpApi.GalleryListResponse>() {
+        Log.d(TAG, "Loading previews for " + indexes.size() + " days in one request: " + range + ", limit=" + limit);
+        
+        Call<FnHttpApi.GalleryListResponse> call =
+                api.getPhotosByTimeRange(token, authx, startTime, endTime, limit, offset, mode);
+        // 以批次中间的日期作为位置，焦点远离后请求会被调度器取消
+        int position = indexes.get(indexes.size() / 2);
+        requestScope.submit(previewTaskGroup, "preview:" + range, position,
+            RequestScheduler.Priority.VISIBLE,
+            new RequestScheduler.CallJob<FnHttpApi.GalleryListResponse>(call, new Callback<FnHttpApi.GalleryListResponse>() {
                 @Override
                 public void onResponse(Call<FnHttpApi.GalleryListResponse> call,
                                        Response<FnHttpApi.GalleryListResponse> response) {
+                    if (batchIndex != timelineIndex) return; // 时间线已重新加载
                     if (response.isSuccessful() && response.body() != null) {
                         FnHttpApi.GalleryListResponse result = response.body();
                         if (result.code == 0 && result.data != null && result.data.list != null) {
-                            List<String> thumbUrls = new ArrayList<>();
+                            // 按日期拆分，每天最多取 PREVIEW_THUMB_COUNT 张
+                            Map<String, List<String>> thumbsByDate = new HashMap<>();
+                            NetworkPolicy.ThumbnailTier tier = NetworkPolicy.getInstance().getThumbnailTier();
                             for (FnHttpApi.GalleryPhoto photo : result.data.list) {
-                                if (photo.additional != null && photo.additional.thumbnail != null) {
-                                    String thumbUrl = photo.additional.thumbnail.sUrl;
-                                    if (thumbUrl != null) {
-                                        if (!thumbUrl.startsWith("http") && baseUrl != null) {
-                                            thumbUrl = baseUrl + thumbUrl;
-                                        }
-                                        thumbUrls.add(thumbUrl);
+                                String dateStr = toDateStr(photo);
+                                if (dateStr == null || !batchItems.containsKey(dateStr)) continue;
+                                if (photo.additional == null) continue;
+                                String thumbUrl = tier.select(photo.additional.thumbnail);
+                                if (thumbUrl == null) continue;
+                                
+                                List<String> thumbs = thumbsByDate.get(dateStr);
+                                if (thumbs == null) {
+                                    thumbs = new ArrayList<>();
+                                    thumbsByDate.put(dateStr, thumbs);
+                                }
+                                if (thumbs.size() < PREVIEW_THUMB_COUNT) {
+                                    if (!thumbUrl.startsWith("http") && baseUrl != null) {
+                                        thumbUrl = baseUrl + thumbUrl;
                                     }
+                                    thumbs.add(thumbUrl);
+                                }
+                            }
+                            
+                            for (Map.Entry<String, List<String>> entry : thumbsByDate.entrySet()) {
+                                int index = batchItems.get(entry.getKey());
+                                int row = batchIndex.getRow(index);
+                                // 期间已被释放的行不再创建卡片，回到附近时重新加载
+                                if (materializedRows.get(row)) {
+                                    monthAdapter(row).setPreviews(batchIndex.getColumn(index), entry.getValue());
                                 }
                             }
-                            mediaItem.setPreviewThumbUrls(thumbUrls);
                         }
                     }
-                    if (onComplete != null) onComplete.run();
                 }
 
                 @Override
                 public void onFailure(Call<FnHttpApi.GalleryListResponse> call, Throwable t) {
-                    Log.e(TAG, "加载预览缩略图失败: " + dateStr, t);
-                    if (onComplete != null) onComplete.run();
+                    Log.e(TAG, "加载预览缩略图失败: " + range, t);
+                    // 允许下次聚焦时重试
+                    clearLoaded(indexes);
+                }
+            }) {
+                @Override
+                protected void onCancelled() {
+                    // 被取消的日期在下次聚焦时重新加载
+                    clearLoaded(indexes);
                 }
             });
     }
 
+    private void clearLoaded(List<Integer> indexes) {
+        for (int index : indexes) {
+            loadedIndexes.clear(index);
+        }
+    }
+
+    /**
+     * 从照片的拍摄时间中提取 yyyy-MM-dd 格式的日期
+     */
+    private static String toDateStr(FnHttpApi.GalleryPhoto photo) {
+        String dateTime = photo.photoDateTime != null && !photo.photoDateTime.isEmpty()
+                ? photo.photoDateTime : photo.dateTime;
+        if (dateTime == null || dateTime.length() < 10) {
+            return null;
+        }
+        return dateTime.substring(0, 10).replace(':', '-').replace('/', '-');
+    }
+
     public void loadPhotosByDate(String dateStr, int itemCount) {
         // 保存时间线的滚动位置
         saveTimelinePosition();
-        
+        openDay(dateStr, itemCount);
+    }
+
+    private void openDay(String dateStr, int itemCount) {
         if (api == null || token == null || token.isEmpty()) {
             Log.e(TAG, "API未初始化");
             return;
         }
 
-        Log.d(TAG, "Loading photos for date: " + dateStr);
-
-        String dateTime = dateStr.replace("-", ":");
-        String startTime = dateTime + " 00:00:00";
-        String endTime = dateTime + " 23:59:59";
-        int limit = itemCount;
-        int offset = 0;
-        String mode = "index";
-
-        StringBuilder paramsBuilder = new StringBuilder();
-        paramsBuilder.append("end_time=").append(endTime);
-        paramsBuilder.append("&limit=").append(limit);
-        paramsBuilder.append("&mode=").append(mode);
-        paramsBuilder.append("&offset=").append(offset);
-        paramsBuilder.append("&start_time=").append(startTime);
-        
-        String params = paramsBuilder.toString();
-        String path = "/p/api/v1/gallery/getList";
-        
-        Log.d(TAG, "Path: " + path);
-        Log.d(TAG, "Params: " + params);
-
-        String authx = FnAuthUtils.generateAuthX(path, "GET", params);
+        Log.d(TAG, "Loading photos for date: " + dateStr + ", page size: " + photoPageSize);
 
-        api.getPhotosByTimeRange(token, authx, startTime, endTime, limit, offset, mode)
-            .enqueue(new Callback<FnHttpApi.GalleryListResponse>() {
-                @Override
-                public void onResponse(Call<FnHttpApi.GalleryListResponse> call,
-                                       Response<FnHttpApi.GalleryListResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        FnHttpApi.GalleryListResponse result = response.body();
-                        if (result.code == 0 && result.data != null && result.data.list != null) {
-                            displayPhotosByDate(dateStr, result.data.list);
-                        }
+        releasePhotoPager();
+        // 焦点停留时已开始加载的分页器直接接管
+        DayPhotoPager speculative = daySpeculator.take(dateStr, itemCount);
+        if (speculative != null) {
+            Log.d(TAG, "Adopting speculative pager for " + dateStr);
+            attachPhotoPager(speculative);
+            return;
+        }
+        final int generation = dayLoadGeneration;
+        // 本地已缓存的部分直接显示，分页器从缓存末尾继续加载
+        libraryStore.loadDay(dateStr, itemCount, cached -> {
+            if (generation != dayLoadGeneration || requestScope.isDestroyed()) return;
+            rowsUpdater.submit(() -> {
+                List<MediaItem> initialItems = new ArrayList<>();
+                if (cached != null) {
+                    for (FnHttpApi.GalleryPhoto photo : cached) {
+                        MediaItem item = DayPhotoPager.toMediaItem(photo, baseUrl);
+                        item.setListPosition(initialItems.size());
+                        initialItems.add(item);
                     }
                 }
-
-                @Override
-                public void onFailure(Call<FnHttpApi.GalleryListResponse> call, Throwable t) {
-                    Log.e(TAG, "加载照片列表失败", t);
-                }
+                return initialItems;
+            }, initialItems -> {
+                if (generation != dayLoadGeneration) return;
+                startPhotoPager(dateStr, itemCount, initialItems);
             });
+        });
     }
 
-    private void displayPhotosByDate(String dateStr, List<FnHttpApi.GalleryPhoto> photos) {
-        isPhotoListView = true;
-        mRowsAdapter.clear();
-
-        HeaderItem header = new HeaderItem(dateStr + " (" + photos.size() + "张)");
-        ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(mCardPresenter);
-
-        currentMediaList = new ArrayList<>();
-
-        for (FnHttpApi.GalleryPhoto photo : photos) {
-            String thumbUrl = null;
-            String originalUrl = null;
+    private void startPhotoPager(String dateStr, int itemCount, List<MediaItem> initialItems) {
+        attachPhotoPager(new DayPhotoPager(api, token, baseUrl, dateStr, itemCount,
+                photoPageSize, initialItems));
+    }
 
-            if (photo.additional != null && photo.additional.thumbnail != null) {
-                FnHttpApi.GalleryThumbnail thumbnail = photo.additional.thumbnail;
-                
-                // 对于视频类型，使用中等尺寸缩略图(mUrl)作为预览图，效果更好
-                if ("video".equals(photo.category)) {
-                    thumbUrl = thumbnail.mUrl != null ? baseUrl + thumbnail.mUrl : null;
-                } else {
-                    // 对于照片，使用小尺寸缩略图(sUrl)即可
-                    thumbUrl = thumbnail.sUrl != null ? baseUrl + thumbnail.sUrl : null;
+    /**
+     * 由本页面使用分页器：已加载的部分直接显示，在途的请求提升为可见优先级
+     */
+    private void attachPhotoPager(final DayPhotoPager pager) {
+        photoPager = pager;
+        pager.setStore(libraryStore);
+        pager.setTaskGroup(requestScope.getGroup());
+        pager.setListener(new DayPhotoPager.Listener() {
+            @Override
+            public void onPageLoaded(List<MediaItem> newItems, int offset) {
+                if (pager != photoPager) return;
+                if (offset == 0) {
+                    // 第一页返回即可显示
+                    displayPhotosByDate(pager);
+                } else if (isPhotoListView && photoRowAdapter != null) {
+                    photoRowAdapter.addAll(offset, newItems);
                 }
-                
-                originalUrl = thumbnail.mUrl != null ? baseUrl + thumbnail.mUrl : null;
             }
 
-            MediaItem item = new MediaItem(
-                String.valueOf(photo.id),
-                photo.fileName,
-                photo.category,
-                thumbUrl,
-                originalUrl
-            );
-            currentMediaList.add(item);
-            listRowAdapter.add(item);
+            @Override
+            public void onPageFailed(int offset, Throwable t) {
+                Log.e(TAG, "加载照片列表失败: offset=" + offset, t);
+            }
+        });
+        if (!pager.getItems().isEmpty()) {
+            Log.d(TAG, "Showing " + pager.getItems().size() + " loaded photos of " + pager.getDateStr());
+            displayPhotosByDate(pager);
         }
+        pager.promote();
+        pager.start();
+    }
 
-        mRowsAdapter.add(new ListRow(header, listRowAdapter));
+    private void releasePhotoPager() {
+        dayLoadGeneration++;
+        if (photoPager != null) {
+            photoPager.cancel();
+            photoPager = null;
+        }
+        photoRowAdapter = null;
+    }
+
+    private void displayPhotosByDate(DayPhotoPager pager) {
+        hideMonthJumper();
+        isPhotoListView = true;
+
+        // 与分页器共享列表，后续页追加后详情页也能继续浏览
+        currentMediaList = pager.getItems();
+        // 本地缓存已显示时，网络返回的第一页只更新有变化的卡片
+        List<ListRow> rows = rowsUpdater.apply(mRowsAdapter, Collections.singletonList(
+                new RowsUpdater.RowModel(RowsUpdater.ROW_ID_PHOTOS,
+                        pager.getDateStr() + " (" + pager.getTotalCount() + "张)", currentMediaList)),
+                mCardPresenter);
+        photoRowAdapter = (ArrayObjectAdapter) rows.get(0).getAdapter();
         
         // 恢复照片列表的位置
         if (savedPhotoListPosition >= 0) {
@@ -625,8 +959,14 @@ public class MainFragment extends BrowseSupportFragment {
         }
 
         Intent intent = new Intent(getActivity(), MediaDetailActivity.class);
-        intent.putExtra("MEDIA_LIST", new ArrayList<>(currentMediaList));
-        intent.putExtra("CURRENT_INDEX", index);
+        // 列表与分页器共享，之后还会追加，传给详情页的是副本
+        MediaSessionRepository.getInstance(getActivity()).attach(intent, new ArrayList<>(currentMediaList), index);
+        if (photoPager != null && currentMediaList == photoPager.getItems()) {
+            // 详情页在已加载范围之外继续分页，进程被回收后也按这一天重建列表
+            intent.putExtra(MediaSessionRepository.EXTRA_DATE_STR, photoPager.getDateStr());
+            intent.putExtra(MediaSessionRepository.EXTRA_TOTAL_COUNT, photoPager.getTotalCount());
+            intent.putExtra("PAGE_SIZE", photoPager.getPageSize());
+        }
         startActivity(intent);
     }
 
@@ -649,5 +989,10 @@ public class MainFragment extends BrowseSupportFragment {
         super.onDestroy();
         lazyLoadHandler.removeCallbacksAndMessages(null);
         positionHandler.removeCallbacksAndMessages(null);
+        LibraryChangeMonitor.getInstance(requireContext()).removeListener(libraryChangeListener);
+        rowsUpdater.release();
+        daySpeculator.cancel();
+        // 剩余的网络请求和图片加载由 requestScope 随生命周期取消
+        releasePhotoPager();
     }
 }
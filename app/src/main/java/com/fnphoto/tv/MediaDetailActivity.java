@@ -1,6 +1,7 @@
 package com.fnphoto.tv;
 
 import android.content.Context;
+import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
@@ -11,6 +12,7 @@ import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.View;
@@ -21,26 +23,66 @@ import android.widget.ImageView;
 import android.widget.Toast;
 import androidx.fragment.app.FragmentActivity;
 
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnHttpClient;
 import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.cache.OriginalFileCache;
+import com.fnphoto.tv.data.DayPhotoPager;
+import com.fnphoto.tv.data.MediaSessionRepository;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
+import com.fnphoto.tv.player.AdaptiveLoadControl;
 import com.fnphoto.tv.player.AuthenticatedHttpDataSourceFactory;
+import com.fnphoto.tv.player.PlaybackMetrics;
+import com.fnphoto.tv.player.ScrubThumbnailLoader;
+import com.fnphoto.tv.player.VideoCache;
+import com.fnphoto.tv.player.VideoSourceSelector;
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.source.ProgressiveMediaSource;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.ui.PlayerView;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.util.Util;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
 public class MediaDetailActivity extends FragmentActivity {
     private static final String TAG = "MediaDetailActivity";
     private static final long DEBOUNCE_TIME = 300; // 防抖时间300ms
+    private static final long SCRUB_MIN_STEP_MS = 5000;   // 拖动进度的最小步长
+    private static final int SCRUB_STEPS = 100;           // 长视频每步移动总时长的 1/100
+    private static final long SCRUB_COMMIT_DELAY = 700;   // 停止按键多久后真正跳转
+    private static final float ORIGINAL_UPGRADE_RATIO = 0.9f; // 中等尺寸不足屏幕可显示尺寸的 90% 时才加载原图
+
+    // 照片逐级显示的清晰度
+    private static final int STAGE_NONE = 0;
+    private static final int STAGE_THUMBNAIL = 1;  // 列表中已缓存的缩略图
+    private static final int STAGE_MEDIUM = 2;
+    private static final int STAGE_ORIGINAL = 3;
 
     private FrameLayout container;
     private ImageView imageView;
-    private PlayerView playerView;
+    private PlayerView playerView;   // 整个页面只有一个播放器和一个 Surface，切换项时只替换媒体源
     private SimpleExoPlayer player;
+    private DataSource.Factory videoDataSourceFactory;
+    private String preparedVideoId;  // 播放器当前已准备的视频
+    private boolean preparedAdaptive; // 已准备的是 HLS 源
+    private VideoSourceSelector sourceSelector;
+    private int browseDirection = 1; // 最近一次切换的方向，用于预先准备相邻的视频
+    private PlaybackMetrics playbackMetrics;
+    private ScrubOverlayView scrubOverlay;
+    private ScrubThumbnailLoader scrubLoader;
+    private long scrubPositionMs = -1;   // 拖动中的目标位置，未拖动时为 -1
+    private boolean scrubResumePlaying;  // 拖动前正在播放，跳转后继续
+    private final Runnable scrubCommit = this::commitScrub;
 
     private List<MediaItem> mediaList;
     private int currentIndex;
@@ -48,6 +90,16 @@ public class MediaDetailActivity extends FragmentActivity {
     private boolean canSwitch = true;
     private boolean isVideoPlaying = false;
     private MediaItem currentVideoItem; // 当前视频项，用于遥控器播放控制
+    private DayPhotoPager photoPager; // 按天浏览时继续加载已加载范围之外的项
+    private RequestScope requestScope; // 图片加载和分页请求随页面生命周期暂停和取消
+    private DetailImagePrefetcher imagePrefetcher; // 前后项的大图提前加载和解码
+    private int photoStage = STAGE_NONE;
+    private long photoShownAt;
+    private CachedImageLoader.LoadHandle thumbnailHandle; // 占位缩略图，被替换后释放
+    private CachedImageLoader.LoadHandle originalHandle;  // 原图，切换到其他项后释放
+    private TiledImageView zoomView;   // 原图放大浏览，未进入时为 null
+    private String zoomLoadingId;      // 正在下载原图准备放大的项
+    private boolean resumePlaybackOnStart = false; // 切到后台前正在播放，回到前台时继续
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -58,27 +110,111 @@ public class MediaDetailActivity extends FragmentActivity {
         getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN,
                 WindowManager.LayoutParams.FLAG_FULLSCREEN);
 
+        // 播放器视图在最下层，图片显示在其上的容器中，播放视频时隐藏容器
+        FrameLayout root = new FrameLayout(this);
+        root.setLayoutParams(new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
+        playerView = new PlayerView(this);
+        // 不使用自带的控制栏，方向键由页面处理（切换项或拖动进度）
+        playerView.setUseController(false);
+        root.addView(playerView, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
+
         // 创建容器
         container = new FrameLayout(this);
         container.setLayoutParams(new FrameLayout.LayoutParams(
                 FrameLayout.LayoutParams.MATCH_PARENT,
                 FrameLayout.LayoutParams.MATCH_PARENT));
-        setContentView(container);
+        container.setBackgroundColor(Color.BLACK);
+        root.addView(container);
+
+        // 拖动进度的预览，显示在最上层
+        scrubOverlay = new ScrubOverlayView(this);
+        scrubOverlay.setVisibility(View.GONE);
+        FrameLayout.LayoutParams scrubParams = new FrameLayout.LayoutParams(
+                getResources().getDisplayMetrics().widthPixels / 2,
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                android.view.Gravity.BOTTOM | android.view.Gravity.CENTER_HORIZONTAL);
+        scrubParams.bottomMargin = getResources().getDisplayMetrics().heightPixels / 12;
+        root.addView(scrubOverlay, scrubParams);
+        scrubLoader = new ScrubThumbnailLoader(this);
+        setContentView(root);
+
+        requestScope = RequestScope.bind(this, "detail");
+
+        initPlayer();
+
+        // 列表在进程内传递，进程被回收后需要从本地数据库重建，可能稍后才回调
+        MediaSessionRepository.getInstance(this).restore(getIntent(), items -> {
+            if (requestScope.isDestroyed()) return;
+            if (items == null || items.isEmpty()) {
+                Toast.makeText(this, "没有可显示的媒体", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            onMediaListReady(items);
+        });
+    }
 
-        // 获取传递的数据
-        mediaList = (ArrayList<MediaItem>) getIntent().getSerializableExtra("MEDIA_LIST");
-        currentIndex = getIntent().getIntExtra("CURRENT_INDEX", 0);
+    private void onMediaListReady(List<MediaItem> items) {
+        mediaList = items;
+        currentIndex = MediaSessionRepository.findCurrentIndex(getIntent(), mediaList);
 
-        if (mediaList == null || mediaList.isEmpty()) {
-            Toast.makeText(this, "没有可显示的媒体", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        imagePrefetcher = new DetailImagePrefetcher(this, requestScope, prefs.getString("api_token", ""),
+                getResources().getDisplayMetrics().widthPixels,
+                getResources().getDisplayMetrics().heightPixels, mediaList);
+
+        initPager();
 
         // 显示当前媒体
         showCurrentMedia();
     }
 
+    /**
+     * 如果列表是按天分页加载的，继续从已加载末尾分页
+     */
+    private void initPager() {
+        String dateStr = getIntent().getStringExtra(MediaSessionRepository.EXTRA_DATE_STR);
+        if (dateStr == null) {
+            return;
+        }
+
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        String baseUrl = prefs.getString("nas_url", "");
+        String token = prefs.getString("api_token", "");
+        if (baseUrl.isEmpty() || token.isEmpty()) {
+            return;
+        }
+
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(baseUrl + "/")
+                .client(FnHttpClient.get())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build();
+        FnHttpApi api = retrofit.create(FnHttpApi.class);
+
+        int totalCount = getIntent().getIntExtra(MediaSessionRepository.EXTRA_TOTAL_COUNT, 0);
+        int pageSize = getIntent().getIntExtra("PAGE_SIZE", DayPhotoPager.DEFAULT_PAGE_SIZE);
+        photoPager = new DayPhotoPager(api, token, baseUrl, dateStr, totalCount, pageSize, mediaList);
+        photoPager.setTaskGroup(requestScope.getGroup());
+        photoPager.setListener(new DayPhotoPager.Listener() {
+            @Override
+            public void onPageLoaded(List<MediaItem> newItems, int offset) {
+                // 新项已追加到 mediaList
+                Log.d(TAG, "Loaded " + newItems.size() + " more items, total " + mediaList.size());
+                imagePrefetcher.onItemsAppended();
+            }
+
+            @Override
+            public void onPageFailed(int offset, Throwable t) {
+                Log.e(TAG, "加载更多失败: offset=" + offset, t);
+            }
+        });
+    }
+
     private void showCurrentMedia() {
         if (currentIndex < 0 || currentIndex >= mediaList.size()) {
             return;
@@ -92,12 +228,16 @@ public class MediaDetailActivity extends FragmentActivity {
         currentVideoItem = null; // 重置当前视频项
 
         // 清除之前的视图
+        exitZoom();
+        cancelScrub();
+        scrubLoader.clear();
         container.removeAllViews();
+        container.setVisibility(View.VISIBLE);
+        releasePhotoStages();
         
-        // 停止之前的播放器
+        // 暂停之前的视频，播放器保留
         if (player != null) {
-            player.release();
-            player = null;
+            player.setPlayWhenReady(false);
         }
 
         if ("video".equals(item.getType())) {
@@ -105,9 +245,17 @@ public class MediaDetailActivity extends FragmentActivity {
         } else {
             showPhoto(item);
         }
+        prepareUpcomingVideo(item);
+
+        // 接近已加载末尾时预取后续页
+        if (photoPager != null) {
+            photoPager.onPositionVisible(currentIndex);
+        }
 
         // 显示提示
-        Toast.makeText(this, (currentIndex + 1) + " / " + mediaList.size(), Toast.LENGTH_SHORT).show();
+        int total = photoPager != null && photoPager.getTotalCount() > 0
+                ? Math.max(photoPager.getTotalCount(), mediaList.size()) : mediaList.size();
+        Toast.makeText(this, (currentIndex + 1) + " / " + total, Toast.LENGTH_SHORT).show();
     }
 
     private void showPhoto(MediaItem item) {
@@ -118,34 +266,147 @@ public class MediaDetailActivity extends FragmentActivity {
         imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
         container.addView(imageView);
 
+        photoStage = STAGE_NONE;
+        photoShownAt = SystemClock.elapsedRealtime();
+        final ImageView target = imageView;
         String mediaUrl = item.getMediaUrl();
         if (mediaUrl != null && !mediaUrl.isEmpty()) {
-            // 获取 token
-            SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
-            String token = prefs.getString("api_token", "");
-
-            // 使用带缓存的加载器
-            int screenWidth = getResources().getDisplayMetrics().widthPixels;
-            int screenHeight = getResources().getDisplayMetrics().heightPixels;
-
-            CachedImageLoader.loadImage(this, mediaUrl, token, screenWidth, screenHeight,
-                    new CachedImageLoader.ImageLoadCallback() {
-                        @Override
-                        public void onBitmapLoaded(Bitmap bitmap) {
-                            imageView.setImageBitmap(bitmap);
-                        }
-
-                        @Override
-                        public void onLoadFailed() {
-                            Toast.makeText(MediaDetailActivity.this, "图片加载失败", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+            // 已预取的图片直接显示；切换到下一项时上一项的回调被替换
+            imagePrefetcher.show(currentIndex, new CachedImageLoader.ImageLoadCallback() {
+                @Override
+                public void onBitmapLoaded(Bitmap bitmap) {
+                    if (target != imageView) return;
+                    showPhotoStage(bitmap, STAGE_MEDIUM);
+                    loadOriginalIfUseful(item, bitmap, target);
+                }
+
+                @Override
+                public void onLoadFailed() {
+                    if (target != imageView) return;
+                    if (!loadOriginalIfUseful(item, null, target) && photoStage == STAGE_NONE) {
+                        Toast.makeText(MediaDetailActivity.this, "图片加载失败", Toast.LENGTH_SHORT).show();
+                    }
+                }
+            });
+        } else {
+            loadOriginalIfUseful(item, null, target);
+        }
+
+        // 大图尚未缓冲时，先放大显示列表中已缓存的缩略图
+        if (photoStage == STAGE_NONE) {
+            showCachedThumbnail(item, target);
         }
 
         // 点击退出
         imageView.setOnClickListener(v -> finish());
     }
 
+    /**
+     * 从缓存取列表中加载过的缩略图作为占位，不访问网络
+     */
+    private void showCachedThumbnail(MediaItem item, final ImageView target) {
+        String thumbUrl = item.getThumbnailUrl();
+        if (thumbUrl == null || thumbUrl.isEmpty()) return;
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        thumbnailHandle = CachedImageLoader.loadFromCacheOnly(this, thumbUrl, screenWidth, screenHeight,
+                new CachedImageLoader.ImageLoadCallback() {
+                    @Override
+                    public void onBitmapLoaded(Bitmap bitmap) {
+                        if (target != imageView || photoStage >= STAGE_THUMBNAIL) return;
+                        AppMetrics.increment("detail.placeholder_shown");
+                        showPhotoStage(bitmap, STAGE_THUMBNAIL);
+                    }
+
+                    @Override
+                    public void onLoadFailed() {
+                        AppMetrics.increment("detail.placeholder_missing");
+                    }
+                });
+    }
+
+    /**
+     * 中等尺寸明显小于原图在屏幕上能显示的尺寸时加载原图，替换当前显示
+     *
+     * @param medium 已显示的中等尺寸图片，加载失败时为 null
+     * @return 是否开始加载原图
+     */
+    private boolean loadOriginalIfUseful(MediaItem item, Bitmap medium, final ImageView target) {
+        String originalUrl = item.getOriginalUrl();
+        if (originalUrl == null || originalUrl.isEmpty() || originalUrl.equals(item.getMediaUrl())) {
+            return false;
+        }
+
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        if (medium != null) {
+            // 原图尺寸未知时按屏幕尺寸估计；原图不会被放大显示
+            int fullWidth = item.getWidth() > 0 ? item.getWidth() : screenWidth;
+            int fullHeight = item.getHeight() > 0 ? item.getHeight() : screenHeight;
+            float scale = Math.min(1f, Math.min((float) screenWidth / fullWidth, (float) screenHeight / fullHeight));
+            if (medium.getWidth() >= fullWidth * scale * ORIGINAL_UPGRADE_RATIO
+                    || medium.getHeight() >= fullHeight * scale * ORIGINAL_UPGRADE_RATIO) {
+                AppMetrics.increment("detail.original_skipped");
+                return false;
+            }
+        }
+
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        String token = prefs.getString("api_token", "");
+        final long start = SystemClock.elapsedRealtime();
+        originalHandle = CachedImageLoader.createHandle(this);
+        // 同一个 key，切换到下一项时未完成的原图加载被取消
+        requestScope.submit("original", RequestScheduler.Priority.NEAR_VISIBLE,
+                CachedImageLoader.imageJob(this, originalUrl, token, screenWidth, screenHeight, originalHandle,
+                new CachedImageLoader.ImageLoadCallback() {
+                    @Override
+                    public void onBitmapLoaded(Bitmap bitmap) {
+                        if (target != imageView) return;
+                        AppMetrics.recordTiming("detail.original_load", SystemClock.elapsedRealtime() - start);
+                        showPhotoStage(bitmap, STAGE_ORIGINAL);
+                    }
+
+                    @Override
+                    public void onLoadFailed() {
+                        Log.w(TAG, "Failed to load original: " + originalUrl);
+                    }
+                }));
+        return true;
+    }
+
+    /**
+     * 在同一个 ImageView 中替换为更清晰的一级
+     */
+    private void showPhotoStage(Bitmap bitmap, int stage) {
+        if (stage <= photoStage) return;
+        if (photoStage == STAGE_NONE) {
+            AppMetrics.recordTiming("detail.first_image", SystemClock.elapsedRealtime() - photoShownAt);
+        }
+        photoStage = stage;
+        imageView.setImageBitmap(bitmap);
+        if (stage > STAGE_THUMBNAIL && thumbnailHandle != null) {
+            // 占位图已不再显示
+            thumbnailHandle.cancel();
+            thumbnailHandle = null;
+        }
+    }
+
+    /**
+     * 切换到其他项（视图已移除）后释放占位图和原图，取消未完成的升级
+     */
+    private void releasePhotoStages() {
+        requestScope.cancel("original");
+        if (thumbnailHandle != null) {
+            thumbnailHandle.cancel();
+            thumbnailHandle = null;
+        }
+        if (originalHandle != null) {
+            originalHandle.cancel();
+            originalHandle = null;
+        }
+        photoStage = STAGE_NONE;
+    }
+
     /**
      * 显示视频预览图和播放按钮
      */
@@ -170,29 +431,25 @@ public class MediaDetailActivity extends FragmentActivity {
         imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
         container.addView(imageView);
 
-        // 获取 token
-        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
-        String token = prefs.getString("api_token", "");
-
         // 加载预览图并添加播放按钮
         int screenWidth = getResources().getDisplayMetrics().widthPixels;
         int screenHeight = getResources().getDisplayMetrics().heightPixels;
 
-        CachedImageLoader.loadImage(this, previewUrl, token, screenWidth, screenHeight,
-                new CachedImageLoader.ImageLoadCallback() {
-                    @Override
-                    public void onBitmapLoaded(Bitmap bitmap) {
-                        // 创建带播放按钮的预览图
-                        Bitmap composite = createVideoPreviewWithPlayButton(bitmap, screenWidth, screenHeight);
-                        imageView.setImageBitmap(composite);
-                    }
+        final ImageView target = imageView;
+        imagePrefetcher.show(currentIndex, new CachedImageLoader.ImageLoadCallback() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap) {
+                // 创建带播放按钮的预览图
+                Bitmap composite = createVideoPreviewWithPlayButton(bitmap, screenWidth, screenHeight);
+                target.setImageBitmap(composite);
+            }
 
-                    @Override
-                    public void onLoadFailed() {
-                        // 加载失败，直接播放
-                        startVideoPlayback(item);
-                    }
-                });
+            @Override
+            public void onLoadFailed() {
+                // 加载失败，直接播放
+                startVideoPlayback(item);
+            }
+        });
 
         // 点击开始播放
         imageView.setOnClickListener(v -> {
@@ -262,51 +519,126 @@ public class MediaDetailActivity extends FragmentActivity {
         isVideoPlaying = true;
         currentVideoItem = item; // 保存当前视频项
 
-        // 清除预览图
+        // 清除预览图，露出下层的播放器
         container.removeAllViews();
+        container.setVisibility(View.GONE);
 
-        // 创建播放器视图
-        playerView = new PlayerView(this);
-        playerView.setLayoutParams(new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT));
-        container.addView(playerView);
-
-        // 构建视频流地址：/p/api/v1/stream/v/{id}
-        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
-        String baseUrl = prefs.getString("nas_url", "");
-        String videoId = item.getId();
-        String videoUrl = baseUrl + "/p/api/v1/stream/v/" + videoId;
-
-        Log.d(TAG, "Playing video: " + videoUrl);
+        boolean prepared = item.getId().equals(preparedVideoId);
+        AppMetrics.increment(prepared ? "video.start_prepared" : "video.start_cold");
+        prepareVideo(item);
+        playbackMetrics.onPlayRequested(player.getPlaybackState());
+        playerView.requestFocus();
+        player.setPlayWhenReady(true);
+    }
 
-        // 初始化播放器 (ExoPlayer 2.11.8 适配 API 19)
-        player = new SimpleExoPlayer.Builder(this).build();
+    /**
+     * 播放器在页面创建时初始化一次 (ExoPlayer 2.11.8 适配 API 19)，之后只替换媒体源，
+     * 解码器和 Surface 不会随切换重建
+     */
+    private void initPlayer() {
+        // HLS 按带宽自适应选择码率，缓冲策略按网络质量和设备内存确定
+        player = new SimpleExoPlayer.Builder(this)
+                .setTrackSelector(new DefaultTrackSelector(this, new AdaptiveTrackSelection.Factory()))
+                .setLoadControl(AdaptiveLoadControl.create(this))
+                .build();
         playerView.setPlayer(player);
+        playbackMetrics = new PlaybackMetrics();
+        player.addAnalyticsListener(playbackMetrics);
 
-        // 创建带认证的 DataSource Factory
-        AuthenticatedHttpDataSourceFactory dataSourceFactory =
-                new AuthenticatedHttpDataSourceFactory(this, "ExoPlayer");
+        // 创建带认证的 DataSource Factory，外面包一层磁盘缓存
+        videoDataSourceFactory = VideoCache.getInstance(this)
+                .wrap(new AuthenticatedHttpDataSourceFactory(this, "ExoPlayer"));
+        sourceSelector = new VideoSourceSelector(this, requestScope, videoDataSourceFactory);
 
         // 添加错误监听器，自动处理播放错误
         player.addListener(new Player.EventListener() {
+            @Override
+            public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+                // 开始播放后再提取预览帧，不和起播的缓冲抢带宽
+                if (playbackState == Player.STATE_READY && isVideoPlaying && currentVideoItem != null) {
+                    String id = currentVideoItem.getId();
+                    scrubLoader.load(id, sourceSelector.progressiveUrl(id), player.getDuration(), () -> {
+                        if (scrubPositionMs >= 0) updateScrubOverlay();
+                    });
+                }
+            }
+
             @Override
             public void onPlayerError(com.google.android.exoplayer2.ExoPlaybackException error) {
                 Log.e(TAG, "Player error: " + error.getMessage(), error);
+                // 出错的源需要重新准备
+                String failedId = preparedVideoId;
+                preparedVideoId = null;
+                if (preparedAdaptive && failedId != null) {
+                    // HLS 播放失败，改为播放原文件
+                    sourceSelector.markHlsFailed(failedId);
+                    if (currentVideoItem != null && failedId.equals(currentVideoItem.getId())) {
+                        prepareVideo(currentVideoItem);
+                        player.setPlayWhenReady(isVideoPlaying);
+                    }
+                    return;
+                }
+                if (!isVideoPlaying) return;
                 // 显示错误提示但不崩溃
                 android.widget.Toast.makeText(MediaDetailActivity.this,
                         "视频播放失败，请尝试在其他设备上播放",
                         android.widget.Toast.LENGTH_LONG).show();
             }
         });
+    }
 
-        // 创建 MediaSource 并播放 (ExoPlayer 2.11.8 API)
-        // 使用 Uri 直接创建 MediaSource
-        android.net.Uri uri = android.net.Uri.parse(videoUrl);
-        ProgressiveMediaSource mediaSource = new ProgressiveMediaSource.Factory(dataSourceFactory)
-                .createMediaSource(uri);
-        player.prepare(mediaSource);
-        player.setPlayWhenReady(true);
+    /**
+     * 把视频准备到播放器上（暂停状态），已准备时直接返回。
+     * 播放源（HLS 或原文件）可能需要先探测，选定后再准备；期间调用 setPlayWhenReady(true) 会在准备好后开始播放
+     */
+    private void prepareVideo(MediaItem item) {
+        final String id = item.getId();
+        if (id.equals(preparedVideoId)) {
+            // 上次播放到结尾的视频回到开头，否则播放器停在结束状态，开始播放后一直黑屏
+            if (player.getPlaybackState() == Player.STATE_ENDED) {
+                player.seekTo(0);
+            }
+            return;
+        }
+
+        player.setPlayWhenReady(false);
+        if (preparedVideoId != null) {
+            player.stop(true);
+        }
+        preparedVideoId = id;
+        preparedAdaptive = false;
+        playbackMetrics.beginItem(id);
+        sourceSelector.select(item, (mediaSource, adaptive) -> {
+            if (!id.equals(preparedVideoId)) return;
+            Log.d(TAG, "Preparing video " + id + (adaptive ? " (HLS)" : " (progressive)"));
+            preparedAdaptive = adaptive;
+            playbackMetrics.setAdaptive(adaptive);
+            player.prepare(mediaSource, true, true);
+        });
+    }
+
+    /**
+     * 预先准备接下来最可能播放的视频：当前项是视频时准备它（预览图显示期间完成缓冲和首帧解码），
+     * 否则准备浏览方向上相邻的视频；都不是视频时停止播放器，释放缓冲
+     */
+    private void prepareUpcomingVideo(MediaItem current) {
+        MediaItem target = null;
+        if ("video".equals(current.getType())) {
+            target = current;
+        } else {
+            int next = currentIndex + browseDirection;
+            if (next >= 0 && next < mediaList.size() && "video".equals(mediaList.get(next).getType())) {
+                target = mediaList.get(next);
+            }
+        }
+        if (target != null) {
+            prepareVideo(target);
+        } else if (preparedVideoId != null) {
+            sourceSelector.cancel();
+            player.stop(true);
+            playbackMetrics.endItem();
+            preparedVideoId = null;
+        }
     }
 
     private void switchToPrevious() {
@@ -314,6 +646,7 @@ public class MediaDetailActivity extends FragmentActivity {
 
         if (currentIndex > 0) {
             currentIndex--;
+            browseDirection = -1;
             showCurrentMedia();
             debounceSwitch();
         } else {
@@ -326,8 +659,13 @@ public class MediaDetailActivity extends FragmentActivity {
 
         if (currentIndex < mediaList.size() - 1) {
             currentIndex++;
+            browseDirection = 1;
             showCurrentMedia();
             debounceSwitch();
+        } else if (photoPager != null && photoPager.hasMore()) {
+            // 下一页尚未返回
+            photoPager.onPositionVisible(currentIndex);
+            Toast.makeText(this, "加载中...", Toast.LENGTH_SHORT).show();
         } else {
             Toast.makeText(this, "已经是最后一个", Toast.LENGTH_SHORT).show();
         }
@@ -340,6 +678,16 @@ public class MediaDetailActivity extends FragmentActivity {
 
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
+        if (zoomView != null && handleZoomKey(keyCode)) {
+            return true;
+        }
+        if (isVideoPlaying && handlePlaybackKey(keyCode, event)) {
+            return true;
+        }
+        if (mediaList == null) {
+            // 列表还在重建
+            return super.onKeyDown(keyCode, event);
+        }
         switch (keyCode) {
             case KeyEvent.KEYCODE_DPAD_LEFT:
                 switchToPrevious();
@@ -350,6 +698,11 @@ public class MediaDetailActivity extends FragmentActivity {
             case KeyEvent.KEYCODE_BACK:
                 finish();
                 return true;
+            case KeyEvent.KEYCODE_MENU:
+            case KeyEvent.KEYCODE_MEDIA_PLAY:
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+                startSlideshow();
+                return true;
             case KeyEvent.KEYCODE_DPAD_CENTER:
             case KeyEvent.KEYCODE_ENTER:
             case KeyEvent.KEYCODE_NUMPAD_ENTER:
@@ -359,13 +712,128 @@ public class MediaDetailActivity extends FragmentActivity {
         return super.onKeyDown(keyCode, event);
     }
 
+    /**
+     * 播放中的按键：左右键（和快进快退键）拖动进度，松开一段时间后才真正跳转；
+     * 返回键取消拖动，未拖动时停止播放回到预览
+     */
+    private boolean handlePlaybackKey(int keyCode, KeyEvent event) {
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+            case KeyEvent.KEYCODE_MEDIA_REWIND:
+                // 时长未知（仍在缓冲或出错）时不能拖动，左右键照常切换到上一项/下一项
+                return scrub(-1, event.getRepeatCount());
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+            case KeyEvent.KEYCODE_MEDIA_FAST_FORWARD:
+                return scrub(1, event.getRepeatCount());
+            case KeyEvent.KEYCODE_DPAD_CENTER:
+            case KeyEvent.KEYCODE_ENTER:
+            case KeyEvent.KEYCODE_NUMPAD_ENTER:
+                if (scrubPositionMs < 0) return false;
+                debounceHandler.removeCallbacks(scrubCommit);
+                commitScrub();
+                return true;
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+                handleOkKey();
+                return true;
+            case KeyEvent.KEYCODE_MEDIA_PLAY:
+                player.setPlayWhenReady(true);
+                return true;
+            case KeyEvent.KEYCODE_BACK:
+                if (scrubPositionMs >= 0) {
+                    cancelScrub();
+                } else {
+                    showCurrentMedia();
+                }
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移动拖动的目标位置。按住不放时步长加倍
+     *
+     * @return 时长未知、无法拖动时返回 false
+     */
+    private boolean scrub(int direction, int repeatCount) {
+        long duration = player.getDuration();
+        if (duration == C.TIME_UNSET || duration <= 0) return false;
+        if (scrubPositionMs < 0) {
+            scrubPositionMs = player.getCurrentPosition();
+            scrubResumePlaying = player.getPlayWhenReady();
+            player.setPlayWhenReady(false);
+            scrubOverlay.reset();
+            scrubOverlay.setVisibility(View.VISIBLE);
+        }
+        long step = Math.max(SCRUB_MIN_STEP_MS, duration / SCRUB_STEPS);
+        if (repeatCount > 0) {
+            step *= 2;
+        }
+        scrubPositionMs = Math.max(0, Math.min(duration, scrubPositionMs + direction * step));
+        AppMetrics.increment("video.scrub_steps");
+        updateScrubOverlay();
+        debounceHandler.removeCallbacks(scrubCommit);
+        debounceHandler.postDelayed(scrubCommit, SCRUB_COMMIT_DELAY);
+        return true;
+    }
+
+    private void updateScrubOverlay() {
+        scrubOverlay.update(scrubPositionMs, player.getDuration(), scrubLoader.getFrame(scrubPositionMs));
+    }
+
+    /**
+     * 停止拖动后跳转到目标位置，只发生一次 seek
+     */
+    private void commitScrub() {
+        if (scrubPositionMs < 0) return;
+        AppMetrics.increment("video.scrub_seeks");
+        player.seekTo(scrubPositionMs);
+        player.setPlayWhenReady(scrubResumePlaying);
+        scrubPositionMs = -1;
+        scrubOverlay.setVisibility(View.GONE);
+    }
+
+    /**
+     * 放弃拖动，留在原位置
+     */
+    private void cancelScrub() {
+        debounceHandler.removeCallbacks(scrubCommit);
+        if (scrubPositionMs < 0) return;
+        scrubPositionMs = -1;
+        scrubOverlay.setVisibility(View.GONE);
+        if (player != null) {
+            player.setPlayWhenReady(scrubResumePlaying);
+        }
+    }
+
+    /**
+     * 从当前项开始播放幻灯片
+     */
+    private void startSlideshow() {
+        Intent intent = new Intent(this, SlideshowActivity.class);
+        // 按天的列表会被本页的分页器继续追加，传副本；文件夹的列表是只读视图，直接共享
+        List<MediaItem> items = photoPager != null ? new ArrayList<>(mediaList) : mediaList;
+        MediaSessionRepository.getInstance(this).attach(intent, items, currentIndex);
+        // 沿用本页的列表来源，幻灯片页被重建时同样可以恢复
+        for (String key : new String[]{MediaSessionRepository.EXTRA_DATE_STR, MediaSessionRepository.EXTRA_FOLDER_PATH}) {
+            if (getIntent().hasExtra(key)) {
+                intent.putExtra(key, getIntent().getStringExtra(key));
+            }
+        }
+        intent.putExtra(MediaSessionRepository.EXTRA_TOTAL_COUNT,
+                getIntent().getIntExtra(MediaSessionRepository.EXTRA_TOTAL_COUNT, 0));
+        startActivity(intent);
+    }
+
     /**
      * 处理确定键（OK键）事件
      * - 在预览状态：开始播放视频
      * - 在播放状态：暂停/继续播放
      */
     private void handleOkKey() {
-        if (player != null && isVideoPlaying) {
+        MediaItem current = currentIndex >= 0 && currentIndex < mediaList.size() ? mediaList.get(currentIndex) : null;
+        if (current != null && "photo".equals(current.getType())) {
+            enterZoom(current);
+        } else if (player != null && isVideoPlaying) {
             // 已在播放状态，切换暂停/播放
             boolean isPlaying = player.getPlayWhenReady();
             player.setPlayWhenReady(!isPlaying);
@@ -377,13 +845,169 @@ public class MediaDetailActivity extends FragmentActivity {
         }
     }
 
+    /**
+     * 下载原图后进入放大浏览：方向键平移，确定键放大，返回键缩小，缩小到适应屏幕后再按返回键退出
+     */
+    private void enterZoom(MediaItem item) {
+        if (zoomView != null || item.getId().equals(zoomLoadingId)) return;
+        String originalUrl = item.getOriginalUrl();
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        if (originalUrl == null || originalUrl.isEmpty()
+                || (item.getWidth() > 0 && item.getWidth() <= screenWidth && item.getHeight() <= screenHeight)) {
+            Toast.makeText(this, "没有可放大的原图", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        String token = prefs.getString("api_token", "");
+        final String itemId = item.getId();
+        zoomLoadingId = itemId;
+        Toast.makeText(this, "正在加载原图...", Toast.LENGTH_SHORT).show();
+        requestScope.submit("zoom-original", RequestScheduler.Priority.VISIBLE,
+                OriginalFileCache.getInstance(this).downloadJob(originalUrl, token, new OriginalFileCache.Callback() {
+                    @Override
+                    public void onReady(File file) {
+                        if (!itemId.equals(zoomLoadingId)) return;
+                        zoomLoadingId = null;
+                        showZoomView(file);
+                    }
+
+                    @Override
+                    public void onFailed(Throwable t) {
+                        if (!itemId.equals(zoomLoadingId)) return;
+                        zoomLoadingId = null;
+                        Toast.makeText(MediaDetailActivity.this, "原图加载失败", Toast.LENGTH_SHORT).show();
+                    }
+                }));
+    }
+
+    private void showZoomView(File file) {
+        final TiledImageView view = new TiledImageView(this);
+        view.setLayoutParams(new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
+        view.setListener(new TiledImageView.Listener() {
+            @Override
+            public void onImageReady() {
+                AppMetrics.increment("zoom.opened");
+                // 进入时直接放大一级，之后由确定键继续放大
+                view.zoomIn();
+                Toast.makeText(MediaDetailActivity.this, "方向键移动，确定键放大，返回键缩小", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onImageFailed(Throwable t) {
+                if (view != zoomView) return;
+                exitZoom();
+                Toast.makeText(MediaDetailActivity.this, "该图片格式不支持放大", Toast.LENGTH_SHORT).show();
+            }
+        });
+        zoomView = view;
+        container.addView(view);
+        view.setImageFile(file);
+    }
+
+    /**
+     * 放大浏览中的按键
+     *
+     * @return 是否已处理
+     */
+    private boolean handleZoomKey(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                zoomView.pan(-1, 0);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                zoomView.pan(1, 0);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_UP:
+                zoomView.pan(0, -1);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                zoomView.pan(0, 1);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_CENTER:
+            case KeyEvent.KEYCODE_ENTER:
+            case KeyEvent.KEYCODE_NUMPAD_ENTER:
+                // 已是最大时回到适应屏幕
+                if (zoomView.canZoomIn()) {
+                    zoomView.zoomIn();
+                } else {
+                    zoomView.resetZoom();
+                }
+                return true;
+            case KeyEvent.KEYCODE_ZOOM_IN:
+            case KeyEvent.KEYCODE_CHANNEL_UP:
+                zoomView.zoomIn();
+                return true;
+            case KeyEvent.KEYCODE_ZOOM_OUT:
+            case KeyEvent.KEYCODE_CHANNEL_DOWN:
+                zoomView.zoomOut();
+                return true;
+            case KeyEvent.KEYCODE_BACK:
+                if (zoomView.isZoomed()) {
+                    zoomView.zoomOut();
+                } else {
+                    exitZoom();
+                }
+                return true;
+        }
+        return false;
+    }
+
+    private void exitZoom() {
+        zoomLoadingId = null;
+        requestScope.cancel("zoom-original");
+        if (zoomView != null) {
+            container.removeView(zoomView);
+            zoomView.release();
+            zoomView = null;
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (resumePlaybackOnStart && player != null) {
+            player.setPlayWhenReady(true);
+        }
+        resumePlaybackOnStart = false;
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 页面不可见时暂停播放，停止继续缓冲
+        if (player != null && player.getPlayWhenReady()) {
+            resumePlaybackOnStart = true;
+            player.setPlayWhenReady(false);
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (scrubLoader != null) {
+            scrubLoader.release();
+        }
         if (player != null) {
+            playbackMetrics.endItem();
             player.release();
             player = null;
         }
         debounceHandler.removeCallbacksAndMessages(null);
+        exitZoom();
+        releasePhotoStages();
+        if (imagePrefetcher != null) {
+            imagePrefetcher.release();
+        }
+        if (photoPager != null) {
+            photoPager.cancel();
+            photoPager = null;
+        }
+        if (isFinishing()) {
+            MediaSessionRepository.getInstance(this).release(getIntent());
+        }
     }
 }
@@ -9,9 +9,13 @@ public class MediaItem implements Serializable {
     private String type; // "photo", "video", "date", "folder", "album"
     private String thumbnailUrl;
     private String mediaUrl;
+    private String originalUrl;  // 原图地址，没有时为 null
+    private int width;           // 原始尺寸，未知时为 0
+    private int height;
     private String dateStr;      // 日期字符串，用于时间线日期项
     private int photoCount;      // 照片数量，用于时间线日期项
     private List<String> previewThumbUrls; // 预览缩略图URL列表（用于时间线日期项）
+    private int listPosition = -1; // 在所属列表中的位置，用于按焦点距离调度加载
 
     public MediaItem(String id, String title, String type, String thumbnailUrl, String mediaUrl) {
         this.id = id;
@@ -49,6 +53,13 @@ public class MediaItem implements Serializable {
     public int getPhotoCount() { return photoCount; }
     public List<String> getPreviewThumbUrls() { return previewThumbUrls; }
     public void setPreviewThumbUrls(List<String> previewThumbUrls) { this.previewThumbUrls = previewThumbUrls; }
+    public String getOriginalUrl() { return originalUrl; }
+    public void setOriginalUrl(String originalUrl) { this.originalUrl = originalUrl; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public void setSize(int width, int height) { this.width = width; this.height = height; }
+    public int getListPosition() { return listPosition; }
+    public void setListPosition(int listPosition) { this.listPosition = listPosition; }
     
     @Override
     public boolean equals(Object obj) {
@@ -0,0 +1,174 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.FocusFinder;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.leanback.widget.VerticalGridView;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.fnphoto.tv.data.TimelineIndex;
+
+/**
+ * 时间线的年月跳转面板：左侧为年份，右侧为所选年份的月份，数据来自 {@link TimelineIndex} 的按月/按年聚合。
+ * 选中后由调用方直接把焦点移到对应的月份行，中间的行不会被绑定。
+ */
+public class MonthJumpOverlay extends FrameLayout {
+
+    public interface Listener {
+        void onMonthSelected(int row);
+    }
+
+    private final TimelineIndex index;
+    private final Listener listener;
+    private final VerticalGridView yearGrid;
+    private final VerticalGridView monthGrid;
+    private final MonthAdapter monthAdapter = new MonthAdapter();
+    private int selectedYear;
+
+    public MonthJumpOverlay(Context context, TimelineIndex index, int currentRow, Listener listener) {
+        super(context);
+        this.index = index;
+        this.listener = listener;
+        selectedYear = currentRow >= 0 && currentRow < index.getRowCount() ? index.getYearIndexOfRow(currentRow) : 0;
+
+        setBackgroundColor(Color.parseColor("#E6000000"));
+        setClickable(true);
+
+        LinearLayout panel = new LinearLayout(context);
+        panel.setOrientation(LinearLayout.HORIZONTAL);
+        LayoutParams panelParams = new LayoutParams(dp(640), ViewGroup.LayoutParams.MATCH_PARENT);
+        panelParams.gravity = Gravity.CENTER_HORIZONTAL;
+        addView(panel, panelParams);
+
+        yearGrid = createGrid(context);
+        yearGrid.setAdapter(new YearAdapter());
+        panel.addView(yearGrid, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.MATCH_PARENT, 1));
+
+        monthGrid = createGrid(context);
+        monthGrid.setAdapter(monthAdapter);
+        panel.addView(monthGrid, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.MATCH_PARENT, 1));
+
+        if (index.getYearCount() > 0) {
+            yearGrid.setSelectedPosition(selectedYear);
+            if (currentRow >= 0 && currentRow < index.getRowCount()) {
+                monthGrid.setSelectedPosition(currentRow - index.getYearFirstRow(selectedYear));
+            }
+        }
+    }
+
+    /**
+     * 打开后焦点落在当前月份上
+     */
+    public void focus() {
+        monthGrid.requestFocus();
+    }
+
+    /**
+     * 焦点只在面板内移动，不会落到后面的时间线上
+     */
+    @Override
+    public View focusSearch(View focused, int direction) {
+        View next = FocusFinder.getInstance().findNextFocus(this, focused, direction);
+        return next != null ? next : focused;
+    }
+
+    private VerticalGridView createGrid(Context context) {
+        VerticalGridView grid = new VerticalGridView(context);
+        grid.setPadding(0, dp(48), 0, dp(48));
+        grid.setClipToPadding(false);
+        grid.setWindowAlignment(VerticalGridView.WINDOW_ALIGN_BOTH_EDGE);
+        return grid;
+    }
+
+    private void showYear(int yearIndex) {
+        if (yearIndex == selectedYear) return;
+        selectedYear = yearIndex;
+        monthAdapter.notifyDataSetChanged();
+        monthGrid.setSelectedPosition(0);
+    }
+
+    private int dp(int value) {
+        return (int) (value * getResources().getDisplayMetrics().density + 0.5f);
+    }
+
+    private static class ItemHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        ItemHolder(View itemView) {
+            super(itemView);
+            textView = itemView.findViewById(R.id.menu_text);
+        }
+    }
+
+    private static ItemHolder createHolder(ViewGroup parent) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_menu, parent, false);
+        view.setOnFocusChangeListener((v, hasFocus) ->
+                v.setBackgroundResource(hasFocus ? R.drawable.menu_item_focused : 0));
+        return new ItemHolder(view);
+    }
+
+    private class YearAdapter extends RecyclerView.Adapter<ItemHolder> {
+        @Override
+        public ItemHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            ItemHolder holder = createHolder(parent);
+            View.OnFocusChangeListener highlight = holder.itemView.getOnFocusChangeListener();
+            holder.itemView.setOnFocusChangeListener((v, hasFocus) -> {
+                highlight.onFocusChange(v, hasFocus);
+                int position = holder.getAdapterPosition();
+                if (hasFocus && position != RecyclerView.NO_POSITION) {
+                    showYear(position);
+                }
+            });
+            holder.itemView.setOnClickListener(v -> {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    listener.onMonthSelected(index.getYearFirstRow(position));
+                }
+            });
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(ItemHolder holder, int position) {
+            holder.textView.setText(index.getYearValue(position) + "年 (" + index.getYearPhotoCount(position) + ")");
+        }
+
+        @Override
+        public int getItemCount() {
+            return index.getYearCount();
+        }
+    }
+
+    private class MonthAdapter extends RecyclerView.Adapter<ItemHolder> {
+        @Override
+        public ItemHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            ItemHolder holder = createHolder(parent);
+            holder.itemView.setOnClickListener(v -> {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    listener.onMonthSelected(index.getYearFirstRow(selectedYear) + position);
+                }
+            });
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(ItemHolder holder, int position) {
+            int row = index.getYearFirstRow(selectedYear) + position;
+            holder.textView.setText(index.getRowMonth(row) + "月 (" + index.getRowPhotoCount(row) + ")");
+        }
+
+        @Override
+        public int getItemCount() {
+            return index.getYearCount() > 0 ? index.getYearRowCount(selectedYear) : 0;
+        }
+    }
+}
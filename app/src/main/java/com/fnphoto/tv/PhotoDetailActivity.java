@@ -11,6 +11,8 @@ import android.widget.Toast;
 import androidx.fragment.app.FragmentActivity;
 
 import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
 
 public class PhotoDetailActivity extends FragmentActivity {
 
@@ -42,7 +44,10 @@ public class PhotoDetailActivity extends FragmentActivity {
             int screenWidth = getResources().getDisplayMetrics().widthPixels;
             int screenHeight = getResources().getDisplayMetrics().heightPixels;
             
-            CachedImageLoader.loadImage(this, photoUrl, token, screenWidth, screenHeight,
+            // 页面销毁时取消尚未完成的加载
+            RequestScope requestScope = RequestScope.bind(this, "photo");
+            requestScope.submit("image", RequestScheduler.Priority.VISIBLE,
+                    CachedImageLoader.imageJob(this, photoUrl, token, screenWidth, screenHeight,
                     new CachedImageLoader.ImageLoadCallback() {
                         @Override
                         public void onBitmapLoaded(Bitmap bitmap) {
@@ -53,7 +58,7 @@ public class PhotoDetailActivity extends FragmentActivity {
                         public void onLoadFailed() {
                             Toast.makeText(PhotoDetailActivity.this, "图片加载失败", Toast.LENGTH_SHORT).show();
                         }
-                    });
+                    }));
         }
 
         // 点击退出
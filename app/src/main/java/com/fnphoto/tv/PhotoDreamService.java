@@ -0,0 +1,366 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.service.dreams.DreamService;
+import android.util.Log;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.bumptech.glide.Glide;
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnHttpClient;
+import com.fnphoto.tv.api.FnSession;
+import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.data.DayPhotoPager;
+import com.fnphoto.tv.data.LibraryStore;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScope;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * 屏保：空闲时轮播相册中的照片。每一轮从本地时间线中挑选若干天（优先“那年今日”，不足时随机补充），
+ * 每天只取第一页，播完后重新挑选，可以连续运行很多天。
+ *
+ * 图片通过 CachedImageLoader 的认证和缓存加载，由 DetailImagePrefetcher 只提前解码两张；
+ * 解码尺寸不超过 1080p，缓冲区的内存上限与电视分辨率无关。每一轮结束时释放上一轮的全部图片。
+ *
+ * DreamService 不是 LifecycleOwner，这里自己维护生命周期，使请求分组随屏保启动、停止和销毁。
+ */
+public class PhotoDreamService extends DreamService implements LifecycleOwner {
+    private static final String TAG = "PhotoDreamService";
+    public static final long DEFAULT_INTERVAL_MS = 10000;
+    public static final String MODE_ON_THIS_DAY = "on_this_day";
+    public static final String MODE_RANDOM = "random";
+    private static final int PREFETCH = 2;              // 提前解码的张数
+    private static final int MAX_DECODE_WIDTH = 1920;
+    private static final int MAX_DECODE_HEIGHT = 1080;
+    private static final int DAYS_PER_ROUND = 6;
+    private static final int MAX_ITEMS_PER_ROUND = 120;
+    private static final long RETRY_DELAY_MS = 60000;   // 没有可显示的照片时稍后重试
+    private static final long FADE_DURATION = 1500;
+
+    private final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ImageView[] imageViews = new ImageView[2];
+    private final Runnable nextRunnable = this::showNext;
+    private final Runnable rebuildRunnable = this::buildPlaylist;
+    private final List<DayPhotoPager> pagers = new ArrayList<>();
+
+    private int frontView = 0;
+    private RequestScope requestScope;
+    private LibraryStore store;
+    private FnHttpApi api;
+    private String token;
+    private String baseUrl;
+    private long intervalMs;
+    private String mode;
+
+    private int round = 0;   // 每次重新挑选加一，旧一轮的回调直接忽略
+    private List<MediaItem> playlist = new ArrayList<>();
+    private int currentIndex = -1;
+    private DetailImagePrefetcher prefetcher;
+    private DetailImagePrefetcher retiredPrefetcher;  // 上一轮的缓冲，正在显示的图片淡出后再释放
+
+    @NonNull
+    @Override
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+        requestScope = RequestScope.bind(this, "dream");
+        store = LibraryStore.getInstance(this);
+    }
+
+    @Override
+    public void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        setInteractive(false);
+        setFullscreen(true);
+
+        FrameLayout root = new FrameLayout(this);
+        root.setBackgroundColor(Color.BLACK);
+        for (int i = 0; i < imageViews.length; i++) {
+            ImageView view = new ImageView(this);
+            view.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            view.setAlpha(0f);
+            root.addView(view, new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.MATCH_PARENT,
+                    FrameLayout.LayoutParams.MATCH_PARENT));
+            imageViews[i] = view;
+        }
+        setContentView(root);
+    }
+
+    @Override
+    public void onDreamingStarted() {
+        super.onDreamingStarted();
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        intervalMs = prefs.getLong("dream_interval_ms", DEFAULT_INTERVAL_MS);
+        mode = prefs.getString("dream_mode", MODE_ON_THIS_DAY);
+        token = FnSession.getInstance(this).getToken();
+        baseUrl = FnSession.getInstance(this).getBaseUrl();
+        if (token.isEmpty() || baseUrl.isEmpty()) {
+            Log.w(TAG, "Not logged in, nothing to show");
+            return;
+        }
+        api = new Retrofit.Builder()
+                .baseUrl(baseUrl + "/")
+                .client(FnHttpClient.get())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(FnHttpApi.class);
+        AppMetrics.increment("dream.started");
+        buildPlaylist();
+    }
+
+    @Override
+    public void onDreamingStopped() {
+        super.onDreamingStopped();
+        // 先移除显示中的图片，再把缓冲中的 Bitmap 交还 Glide
+        for (ImageView view : imageViews) {
+            view.animate().cancel();
+            view.setImageDrawable(null);
+        }
+        releaseRound();
+        releaseRetired();
+        // 屏保结束后不占用图片内存
+        Glide.get(this).clearMemory();
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+    }
+
+    @Override
+    public void onDestroy() {
+        releaseRound();
+        releaseRetired();
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        super.onDestroy();
+    }
+
+    /**
+     * 挑选新一轮的日期，读取每天的第一页照片
+     */
+    private void buildPlaylist() {
+        releaseRound();
+        final int submitted = round;
+        store.loadTimeline(timeline -> {
+            if (submitted != round) return;
+            final List<FnHttpApi.TimelineItem> days = pickDays(timeline);
+            if (days.isEmpty()) {
+                handler.postDelayed(rebuildRunnable, RETRY_DELAY_MS);
+                return;
+            }
+            final List<MediaItem> collected = new ArrayList<>();
+            final int[] remaining = {days.size()};
+            for (FnHttpApi.TimelineItem day : days) {
+                collectDay(day, submitted, photos -> {
+                    if (submitted != round) return;
+                    collected.addAll(photos);
+                    if (--remaining[0] == 0) {
+                        startRound(collected);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 那年今日模式先取往年同月同日，再随机补足；随机模式全部随机
+     */
+    private List<FnHttpApi.TimelineItem> pickDays(List<FnHttpApi.TimelineItem> timeline) {
+        List<FnHttpApi.TimelineItem> picked = new ArrayList<>();
+        List<FnHttpApi.TimelineItem> others = new ArrayList<>();
+        Calendar today = Calendar.getInstance();
+        int month = today.get(Calendar.MONTH) + 1;
+        int dayOfMonth = today.get(Calendar.DAY_OF_MONTH);
+        for (FnHttpApi.TimelineItem item : timeline) {
+            if (item.itemCount <= 0) continue;
+            if (MODE_ON_THIS_DAY.equals(mode) && item.month == month && item.day == dayOfMonth
+                    && item.year < today.get(Calendar.YEAR)) {
+                picked.add(item);
+            } else {
+                others.add(item);
+            }
+        }
+        Collections.shuffle(picked);
+        Collections.shuffle(others);
+        for (FnHttpApi.TimelineItem item : others) {
+            if (picked.size() >= DAYS_PER_ROUND) break;
+            picked.add(item);
+        }
+        return picked.size() > DAYS_PER_ROUND ? new ArrayList<>(picked.subList(0, DAYS_PER_ROUND)) : picked;
+    }
+
+    /**
+     * 本地已有这一天时直接读取，否则只请求第一页（同时写入本地库）
+     */
+    private void collectDay(FnHttpApi.TimelineItem day, int submitted, LibraryStore.Callback<List<MediaItem>> callback) {
+        final String dateStr = LibraryStore.toDateStr(day);
+        store.loadDay(dateStr, day.itemCount, cached -> {
+            if (submitted != round) return;
+            if (cached != null && !cached.isEmpty()) {
+                List<MediaItem> items = new ArrayList<>();
+                for (FnHttpApi.GalleryPhoto photo : cached) {
+                    items.add(DayPhotoPager.toMediaItem(photo, baseUrl));
+                }
+                callback.onResult(photosOnly(items));
+                return;
+            }
+            final DayPhotoPager pager = new DayPhotoPager(api, token, baseUrl, dateStr, day.itemCount,
+                    DayPhotoPager.DEFAULT_PAGE_SIZE);
+            pager.setStore(store);
+            pager.setTaskGroup(requestScope.group("days"));
+            pager.setListener(new DayPhotoPager.Listener() {
+                @Override
+                public void onPageLoaded(List<MediaItem> newItems, int offset) {
+                    if (offset != 0) return;
+                    pager.cancel();
+                    pagers.remove(pager);
+                    callback.onResult(photosOnly(newItems));
+                }
+
+                @Override
+                public void onPageFailed(int offset, Throwable t) {
+                    Log.w(TAG, "Failed to load " + dateStr, t);
+                    pager.cancel();
+                    pagers.remove(pager);
+                    callback.onResult(new ArrayList<>());
+                }
+            });
+            pagers.add(pager);
+            pager.start();
+        });
+    }
+
+    private static List<MediaItem> photosOnly(List<MediaItem> items) {
+        List<MediaItem> photos = new ArrayList<>();
+        for (MediaItem item : items) {
+            if (!"video".equals(item.getType())) {
+                photos.add(item);
+            }
+        }
+        return photos;
+    }
+
+    private void startRound(List<MediaItem> collected) {
+        if (collected.isEmpty()) {
+            handler.postDelayed(rebuildRunnable, RETRY_DELAY_MS);
+            return;
+        }
+        Collections.shuffle(collected);
+        playlist = collected.size() > MAX_ITEMS_PER_ROUND
+                ? new ArrayList<>(collected.subList(0, MAX_ITEMS_PER_ROUND)) : collected;
+        currentIndex = -1;
+
+        // 按屏幕比例解码，但不超过 1080p
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        float scale = Math.min(1f, Math.min((float) MAX_DECODE_WIDTH / screenWidth,
+                (float) MAX_DECODE_HEIGHT / screenHeight));
+        prefetcher = new DetailImagePrefetcher(this, requestScope, token,
+                Math.round(screenWidth * scale), Math.round(screenHeight * scale), playlist, PREFETCH);
+        AppMetrics.increment("dream.rounds");
+        showNext();
+    }
+
+    private void showNext() {
+        if (prefetcher == null) return;
+        final int index = currentIndex + 1;
+        if (index >= playlist.size()) {
+            buildPlaylist();
+            return;
+        }
+        currentIndex = index;
+        final int submitted = round;
+        prefetcher.show(index, new CachedImageLoader.ImageLoadCallback() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap) {
+                if (submitted != round || index != currentIndex) return;
+                // 上一轮的缓冲持有正在淡出的图片，淡出结束、图片从视图移除后再释放
+                final DetailImagePrefetcher retired = retiredPrefetcher;
+                crossfadeTo(bitmap, retired == null ? null : () -> {
+                    if (retired == retiredPrefetcher) {
+                        releaseRetired();
+                    }
+                });
+                AppMetrics.increment("dream.frames");
+                handler.postDelayed(nextRunnable, intervalMs);
+            }
+
+            @Override
+            public void onLoadFailed() {
+                if (submitted != round || index != currentIndex) return;
+                handler.post(nextRunnable);
+            }
+        });
+    }
+
+    /**
+     * @param afterFadeOut 旧图片淡出并从视图移除后执行，可以为 null。淡出被下一张打断时不执行
+     */
+    private void crossfadeTo(Bitmap bitmap, Runnable afterFadeOut) {
+        final ImageView outgoing = imageViews[frontView];
+        final ImageView incoming = imageViews[1 - frontView];
+        incoming.animate().cancel();
+        outgoing.animate().cancel();
+        incoming.setImageBitmap(bitmap);
+        incoming.bringToFront();
+        incoming.animate().alpha(1f).setDuration(FADE_DURATION).start();
+        outgoing.animate().alpha(0f).setDuration(FADE_DURATION)
+                .withEndAction(() -> {
+                    outgoing.setImageDrawable(null);
+                    if (afterFadeOut != null) {
+                        afterFadeOut.run();
+                    }
+                })
+                .start();
+        frontView = 1 - frontView;
+    }
+
+    /**
+     * 结束当前一轮：取消加载。正在显示的图片仍由这一轮的缓冲持有，缓冲在下一轮第一张淡入、旧图片移除后才释放
+     * （淡出被打断时在再下一轮或屏保停止时释放）
+     */
+    private void releaseRound() {
+        round++;
+        handler.removeCallbacksAndMessages(null);
+        for (DayPhotoPager pager : pagers) {
+            pager.cancel();
+        }
+        pagers.clear();
+        if (prefetcher != null) {
+            releaseRetired();
+            retiredPrefetcher = prefetcher;
+            prefetcher = null;
+        }
+    }
+
+    private void releaseRetired() {
+        if (retiredPrefetcher != null) {
+            retiredPrefetcher.release();
+            retiredPrefetcher = null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.fnphoto.tv;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.leanback.widget.ArrayObjectAdapter;
+import androidx.leanback.widget.DiffCallback;
+import androidx.leanback.widget.HeaderItem;
+import androidx.leanback.widget.ListRow;
+import androidx.leanback.widget.ObjectAdapter;
+import androidx.leanback.widget.Presenter;
+import androidx.leanback.widget.Row;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 浏览页的行更新：在后台线程构建行模型（MediaItem、标题等），
+ * 再在主线程按差异更新适配器，内容未变化的行和卡片不会重新绑定，焦点也得以保留。
+ *
+ * 只有最后一次提交的构建结果会被应用；除 {@link #submit} 外的方法必须在主线程调用。
+ */
+public class RowsUpdater {
+    private static final String TAG = "RowsUpdater";
+
+    // 非时间线行使用负数 id，时间线的月份行为 year * 100 + month
+    public static final long ROW_ID_PHOTOS = -1;
+    public static final long ROW_ID_FOLDERS = -2;
+    public static final long ROW_ID_ALBUMS = -3;
+
+    /**
+     * 一行的模型
+     */
+    public static class RowModel {
+        public final long id;
+        public final String title;
+        public final List<?> items;
+
+        public RowModel(long id, String title, List<?> items) {
+            this.id = id;
+            this.title = title;
+            this.items = items;
+        }
+    }
+
+    public interface Builder<T> {
+        T build();  // 在后台线程执行
+    }
+
+    public interface Callback<T> {
+        void onBuilt(T result);  // 在主线程执行
+    }
+
+    /**
+     * 卡片的差异比较：同一个 id 视为同一项，显示内容都相同时不重新绑定
+     */
+    public static final DiffCallback<Object> ITEM_DIFF = new DiffCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof MediaItem && newItem instanceof MediaItem) {
+                MediaItem a = (MediaItem) oldItem;
+                MediaItem b = (MediaItem) newItem;
+                return equal(a.getType(), b.getType()) && equal(a.getId(), b.getId());
+            }
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof MediaItem && newItem instanceof MediaItem) {
+                MediaItem a = (MediaItem) oldItem;
+                MediaItem b = (MediaItem) newItem;
+                // 位置参与加载调度，变化后也需要重新绑定
+                return a.getListPosition() == b.getListPosition()
+                        && a.getPhotoCount() == b.getPhotoCount()
+                        && equal(a.getTitle(), b.getTitle())
+                        && equal(a.getThumbnailUrl(), b.getThumbnailUrl())
+                        && equal(a.getPreviewThumbUrls(), b.getPreviewThumbUrls());
+            }
+            return oldItem == newItem;
+        }
+    };
+
+    /**
+     * 行的差异比较：复用的行对象已原地更新卡片，换了对象（标题变化）才重新绑定
+     */
+    private static final DiffCallback<Object> ROW_DIFF = new DiffCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            return oldItem instanceof ListRow && newItem instanceof ListRow
+                    && ((ListRow) oldItem).getId() == ((ListRow) newItem).getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            return oldItem == newItem;
+        }
+    };
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int generation = 0;
+    private boolean released = false;
+
+    /**
+     * 在后台构建模型，完成后在主线程回调；之后的提交或 {@link #apply} 会使尚未完成的结果作废
+     */
+    public <T> void submit(final Builder<T> builder, final Callback<T> callback) {
+        if (released) return;
+        final int submitted = ++generation;
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            final T result;
+            try {
+                result = builder.build();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to build rows", e);
+                return;
+            }
+            AppMetrics.recordTiming("rows.build", SystemClock.elapsedRealtime() - start);
+            mainHandler.post(() -> {
+                if (submitted == generation && !released) {
+                    callback.onBuilt(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * 按差异把行模型应用到行适配器：id 相同的行复用原有的行适配器，只更新变化的卡片
+     *
+     * @return 与模型一一对应的行
+     */
+    public List<ListRow> apply(ArrayObjectAdapter rowsAdapter, List<RowModel> models, Presenter cardPresenter) {
+        long start = SystemClock.elapsedRealtime();
+
+        Map<Long, ListRow> existing = new HashMap<>();
+        for (int i = 0; i < rowsAdapter.size(); i++) {
+            Object row = rowsAdapter.get(i);
+            if (row instanceof ListRow) {
+                existing.put(((ListRow) row).getId(), (ListRow) row);
+            }
+        }
+
+        List<ListRow> rows = new ArrayList<>(models.size());
+        int reused = 0;
+        for (RowModel model : models) {
+            ListRow old = existing.remove(model.id);
+            ObjectAdapter oldAdapter = old != null ? old.getAdapter() : null;
+            if (oldAdapter instanceof ArrayObjectAdapter && oldAdapter.getPresenter(null) == cardPresenter) {
+                ArrayObjectAdapter rowAdapter = (ArrayObjectAdapter) oldAdapter;
+                rowAdapter.setItems(model.items, ITEM_DIFF);
+                reused++;
+                if (equal(old.getHeaderItem().getName(), model.title)) {
+                    rows.add(old);
+                } else {
+                    rows.add(new ListRow(new HeaderItem(model.id, model.title), rowAdapter));
+                }
+            } else {
+                ArrayObjectAdapter rowAdapter = new ArrayObjectAdapter(cardPresenter);
+                rowAdapter.addAll(0, model.items);
+                rows.add(new ListRow(new HeaderItem(model.id, model.title), rowAdapter));
+            }
+        }
+        applyRows(rowsAdapter, rows);
+
+        AppMetrics.recordTiming("rows.apply", SystemClock.elapsedRealtime() - start);
+        Log.d(TAG, "Applied " + rows.size() + " rows (" + reused + " reused)");
+        return rows;
+    }
+
+    /**
+     * 按差异替换行（行对象由调用方复用）
+     */
+    public void applyRows(ArrayObjectAdapter rowsAdapter, List<? extends Row> rows) {
+        generation++;
+        rowsAdapter.setItems(rows, ROW_DIFF);
+    }
+
+    /**
+     * 页面销毁时调用，丢弃尚未完成的构建
+     */
+    public void release() {
+        released = true;
+        generation++;
+        executor.shutdownNow();
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.view.Gravity;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import com.fnphoto.tv.player.ScrubThumbnailLoader;
+
+import java.util.Locale;
+
+/**
+ * 拖动进度时显示在屏幕下方的预览：目标位置的缩略图、时间和进度条
+ */
+public class ScrubOverlayView extends LinearLayout {
+    private final ImageView frameView;
+    private final TextView timeView;
+    private final ProgressBar progressBar;
+
+    public ScrubOverlayView(Context context) {
+        super(context);
+        setOrientation(VERTICAL);
+        setGravity(Gravity.CENTER_HORIZONTAL);
+        int padding = dp(16);
+        setPadding(padding, padding, padding, padding);
+        setBackgroundColor(0x99000000);
+
+        frameView = new ImageView(context);
+        frameView.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        frameView.setBackgroundColor(Color.BLACK);
+        addView(frameView, new LayoutParams(dp(ScrubThumbnailLoader.FRAME_WIDTH), dp(ScrubThumbnailLoader.FRAME_HEIGHT)));
+
+        timeView = new TextView(context);
+        timeView.setTextColor(Color.WHITE);
+        timeView.setTextSize(18);
+        timeView.setGravity(Gravity.CENTER);
+        LayoutParams timeParams = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+        timeParams.topMargin = dp(8);
+        addView(timeView, timeParams);
+
+        progressBar = new ProgressBar(context, null, android.R.attr.progressBarStyleHorizontal);
+        progressBar.setMax(1000);
+        LayoutParams barParams = new LayoutParams(LayoutParams.MATCH_PARENT, dp(6));
+        barParams.topMargin = dp(8);
+        addView(progressBar, barParams);
+    }
+
+    /**
+     * @param frame 目标位置附近的缩略图，尚未提取时为 null（保留上一帧）
+     */
+    public void update(long positionMs, long durationMs, Bitmap frame) {
+        if (frame != null) {
+            frameView.setImageBitmap(frame);
+        }
+        timeView.setText(formatTime(positionMs) + " / " + formatTime(durationMs));
+        progressBar.setProgress(durationMs > 0 ? (int) (positionMs * 1000 / durationMs) : 0);
+    }
+
+    public void reset() {
+        frameView.setImageDrawable(null);
+    }
+
+    private static String formatTime(long ms) {
+        long seconds = Math.max(0, ms) / 1000;
+        if (seconds >= 3600) {
+            return String.format(Locale.US, "%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+        }
+        return String.format(Locale.US, "%02d:%02d", seconds / 60, seconds % 60);
+    }
+
+    private int dp(int value) {
+        return Math.round(value * getResources().getDisplayMetrics().density);
+    }
+}
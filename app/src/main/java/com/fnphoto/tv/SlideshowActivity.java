@@ -0,0 +1,385 @@
+package com.fnphoto.tv;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.KeyEvent;
+import android.view.View;
+import android.view.Window;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.Toast;
+import androidx.fragment.app.FragmentActivity;
+
+import com.fnphoto.tv.api.FnSession;
+import com.fnphoto.tv.cache.CachedImageLoader;
+import com.fnphoto.tv.data.MediaSessionRepository;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScope;
+import com.fnphoto.tv.player.AdaptiveLoadControl;
+import com.fnphoto.tv.player.AuthenticatedHttpDataSourceFactory;
+import com.fnphoto.tv.player.PlaybackMetrics;
+import com.fnphoto.tv.player.VideoCache;
+import com.fnphoto.tv.player.VideoSourceSelector;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.ui.PlayerView;
+
+import java.util.List;
+
+/**
+ * 幻灯片播放：按固定间隔依次显示列表中的照片，视频自动播放完再继续。
+ *
+ * 后面的若干项由 DetailImagePrefetcher 提前下载并解码到有上限的缓冲区；两个 ImageView 交替作为前后台，
+ * 下一张在后台视图中就绪后交叉淡入。到时间时下一张还没解码完成就继续显示当前这张，不出现空白。
+ * 下一项是视频时提前在播放器上准备好。
+ */
+public class SlideshowActivity extends FragmentActivity {
+    private static final String TAG = "SlideshowActivity";
+    public static final long DEFAULT_INTERVAL_MS = 5000;
+    private static final int DEFAULT_PREFETCH = 5;    // 提前解码的张数，受内存限制
+    private static final int MAX_DECODE_WIDTH = 1920;
+    private static final int MAX_DECODE_HEIGHT = 1080;
+    private static final long FADE_DURATION = 800;
+    private static final long STALL_THRESHOLD_MS = 50; // 等待超过这个时间才算卡顿
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ImageView[] imageViews = new ImageView[2];
+    private final Runnable advanceRunnable = this::advance;
+
+    private FrameLayout imageLayer;
+    private int frontView = 0;
+    private PlayerView playerView;
+    private SimpleExoPlayer player;
+    private VideoSourceSelector sourceSelector;
+    private String preparedVideoId;
+    private PlaybackMetrics playbackMetrics;
+    private boolean playingVideo = false;
+
+    private List<MediaItem> mediaList;
+    private int currentIndex = -1;
+    private long intervalMs;
+    private boolean paused = false;
+    private RequestScope requestScope;
+    private DetailImagePrefetcher prefetcher;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        // 设置全屏模式，播放期间保持屏幕常亮
+        requestWindowFeature(Window.FEATURE_NO_TITLE);
+        getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN,
+                WindowManager.LayoutParams.FLAG_FULLSCREEN);
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        // 播放器在最下层，两个图片视图叠放在其上，播放视频时隐藏
+        FrameLayout root = new FrameLayout(this);
+        root.setBackgroundColor(Color.BLACK);
+        playerView = new PlayerView(this);
+        playerView.setUseController(false);
+        root.addView(playerView, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
+        imageLayer = new FrameLayout(this);
+        imageLayer.setBackgroundColor(Color.BLACK);
+        for (int i = 0; i < imageViews.length; i++) {
+            ImageView view = new ImageView(this);
+            view.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            view.setAlpha(0f);
+            imageLayer.addView(view, new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.MATCH_PARENT,
+                    FrameLayout.LayoutParams.MATCH_PARENT));
+            imageViews[i] = view;
+        }
+        root.addView(imageLayer, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
+        setContentView(root);
+
+        SharedPreferences prefs = getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        intervalMs = prefs.getLong("slideshow_interval_ms", DEFAULT_INTERVAL_MS);
+
+        requestScope = RequestScope.bind(this, "slideshow");
+        initPlayer();
+
+        MediaSessionRepository.getInstance(this).restore(getIntent(), items -> {
+            if (requestScope.isDestroyed()) return;
+            if (items == null || items.isEmpty()) {
+                Toast.makeText(this, "没有可显示的媒体", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            start(items);
+        });
+    }
+
+    private void start(List<MediaItem> items) {
+        mediaList = items;
+        // 按屏幕比例解码，但不超过 1080p（与屏保相同），4K 电视上每张不会占用 30 多 MB
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+        float scale = Math.min(1f, Math.min((float) MAX_DECODE_WIDTH / screenWidth,
+                (float) MAX_DECODE_HEIGHT / screenHeight));
+        int width = Math.round(screenWidth * scale);
+        int height = Math.round(screenHeight * scale);
+        int prefetchCount = limitPrefetch(getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE)
+                .getInt("slideshow_prefetch", DEFAULT_PREFETCH), width * height * 4);
+        prefetcher = new DetailImagePrefetcher(this, requestScope, FnSession.getInstance(this).getToken(),
+                width, height, mediaList, prefetchCount);
+
+        AppMetrics.increment("slideshow.started");
+        showItem(MediaSessionRepository.findCurrentIndex(getIntent(), mediaList));
+    }
+
+    /**
+     * 提前解码的张数受内存限制：缓冲区最多占可用堆的 1/4（低内存设备 1/8），至少提前一张。
+     * API 26 以下 Bitmap 在 Java 堆中，设置过大时会直接 OOM
+     */
+    private int limitPrefetch(int requested, int frameBytes) {
+        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMb = activityManager.getMemoryClass();
+        int divisor = activityManager.isLowRamDevice() || memoryClassMb <= 128 ? 8 : 4;
+        long budgetBytes = (long) memoryClassMb / divisor * 1024 * 1024;
+        // 缓冲区还包含当前项和后方保留的项
+        int maxAhead = (int) (budgetBytes / frameBytes) - DetailImagePrefetcher.BEHIND - 1;
+        int prefetch = Math.max(1, Math.min(requested, maxAhead));
+        if (prefetch != requested) {
+            Log.d(TAG, "Prefetch limited to " + prefetch + " (requested " + requested
+                    + ", memory class " + memoryClassMb + "MB, frame " + frameBytes / 1024 + "KB)");
+        }
+        return prefetch;
+    }
+
+    private void initPlayer() {
+        player = new SimpleExoPlayer.Builder(this)
+                .setLoadControl(AdaptiveLoadControl.create(this))
+                .build();
+        playerView.setPlayer(player);
+        playbackMetrics = new PlaybackMetrics();
+        player.addAnalyticsListener(playbackMetrics);
+        sourceSelector = new VideoSourceSelector(this, requestScope, VideoCache.getInstance(this)
+                .wrap(new AuthenticatedHttpDataSourceFactory(this, "ExoPlayer")));
+        player.addListener(new Player.EventListener() {
+            @Override
+            public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+                if (!playingVideo) return;
+                if (playbackState == Player.STATE_READY) {
+                    // 视频开始后隐藏预览图
+                    imageLayer.setVisibility(View.INVISIBLE);
+                } else if (playbackState == Player.STATE_ENDED) {
+                    finishVideo();
+                    advance();
+                }
+            }
+
+            @Override
+            public void onPlayerError(ExoPlaybackException error) {
+                Log.e(TAG, "Player error: " + error.getMessage(), error);
+                preparedVideoId = null;
+                if (!playingVideo) return;
+                // 播放失败的视频直接跳过
+                AppMetrics.increment("slideshow.video_errors");
+                finishVideo();
+                scheduleAdvance(intervalMs);
+            }
+        });
+    }
+
+    /**
+     * 显示某一项：已缓冲时立即淡入，否则保持当前画面直到解码完成
+     */
+    private void showItem(final int index) {
+        handler.removeCallbacks(advanceRunnable);
+        currentIndex = index;
+        final MediaItem item = mediaList.get(index);
+        final long requestedAt = SystemClock.elapsedRealtime();
+        AppMetrics.increment(prefetcher.isBuffered(index) ? "slideshow.frames_ready" : "slideshow.frames_late");
+        prefetcher.show(index, new CachedImageLoader.ImageLoadCallback() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap) {
+                if (index != currentIndex) return;
+                long waited = SystemClock.elapsedRealtime() - requestedAt;
+                if (waited > STALL_THRESHOLD_MS) {
+                    AppMetrics.increment("slideshow.stalls");
+                    AppMetrics.recordTiming("slideshow.stall", waited);
+                }
+                crossfadeTo(bitmap);
+                onItemShown(item);
+            }
+
+            @Override
+            public void onLoadFailed() {
+                if (index != currentIndex) return;
+                Log.w(TAG, "Skipping item without image: " + item.getId());
+                if ("video".equals(item.getType())) {
+                    onItemShown(item);
+                } else {
+                    handler.post(advanceRunnable);
+                }
+            }
+        });
+    }
+
+    /**
+     * 图片已显示：视频开始播放，照片按间隔计时，并提前准备下一项视频
+     */
+    private void onItemShown(MediaItem item) {
+        if ("video".equals(item.getType())) {
+            playingVideo = true;
+            prepareVideo(item);
+            playbackMetrics.onPlayRequested(player.getPlaybackState());
+            player.setPlayWhenReady(!paused);
+            return;
+        }
+        int next = currentIndex + 1;
+        if (next < mediaList.size() && "video".equals(mediaList.get(next).getType())) {
+            prepareVideo(mediaList.get(next));
+        }
+        if (!paused) {
+            scheduleAdvance(intervalMs);
+        }
+    }
+
+    private void scheduleAdvance(long delay) {
+        handler.removeCallbacks(advanceRunnable);
+        handler.postDelayed(advanceRunnable, delay);
+    }
+
+    private void advance() {
+        if (paused) return;
+        if (currentIndex + 1 >= mediaList.size()) {
+            Toast.makeText(this, "幻灯片播放结束", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        showItem(currentIndex + 1);
+    }
+
+    /**
+     * 新图片放入后台视图，淡入的同时淡出前台视图，结束后交换
+     */
+    private void crossfadeTo(Bitmap bitmap) {
+        imageLayer.setVisibility(View.VISIBLE);
+        final ImageView outgoing = imageViews[frontView];
+        final ImageView incoming = imageViews[1 - frontView];
+        incoming.animate().cancel();
+        outgoing.animate().cancel();
+        incoming.setImageBitmap(bitmap);
+        incoming.bringToFront();
+        incoming.animate().alpha(1f).setDuration(FADE_DURATION).start();
+        outgoing.animate().alpha(0f).setDuration(FADE_DURATION)
+                .withEndAction(() -> outgoing.setImageDrawable(null))
+                .start();
+        frontView = 1 - frontView;
+    }
+
+    private void prepareVideo(MediaItem item) {
+        final String id = item.getId();
+        if (id.equals(preparedVideoId)) {
+            // 已经播放到结尾的视频（例如按左键退回）从头开始，否则播放器停在结束状态，不会再触发 ENDED
+            if (player.getPlaybackState() == Player.STATE_ENDED) {
+                player.seekTo(0);
+            }
+            return;
+        }
+        player.setPlayWhenReady(false);
+        preparedVideoId = id;
+        playbackMetrics.beginItem(id);
+        sourceSelector.select(item, (mediaSource, adaptive) -> {
+            if (id.equals(preparedVideoId)) {
+                playbackMetrics.setAdaptive(adaptive);
+                player.prepare(mediaSource, true, true);
+            }
+        });
+    }
+
+    private void finishVideo() {
+        playingVideo = false;
+        player.setPlayWhenReady(false);
+        imageLayer.setVisibility(View.VISIBLE);
+    }
+
+    private void togglePause() {
+        paused = !paused;
+        Toast.makeText(this, paused ? "已暂停" : "继续播放", Toast.LENGTH_SHORT).show();
+        if (paused) {
+            handler.removeCallbacks(advanceRunnable);
+            player.setPlayWhenReady(false);
+        } else if (playingVideo) {
+            player.setPlayWhenReady(true);
+        } else {
+            scheduleAdvance(intervalMs);
+        }
+    }
+
+    /**
+     * 手动切换到前一项或后一项，计时重新开始
+     */
+    private void step(int delta) {
+        int target = currentIndex + delta;
+        if (target < 0 || target >= mediaList.size()) return;
+        if (playingVideo) {
+            finishVideo();
+        }
+        showItem(target);
+    }
+
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        if (mediaList == null) {
+            return super.onKeyDown(keyCode, event);
+        }
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                step(-1);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                step(1);
+                return true;
+            case KeyEvent.KEYCODE_DPAD_CENTER:
+            case KeyEvent.KEYCODE_ENTER:
+            case KeyEvent.KEYCODE_NUMPAD_ENTER:
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+                togglePause();
+                return true;
+        }
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 幻灯片不在后台继续
+        finish();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+        if (prefetcher != null) {
+            prefetcher.release();
+        }
+        if (sourceSelector != null) {
+            sourceSelector.cancel();
+        }
+        if (player != null) {
+            playbackMetrics.endItem();
+            player.release();
+            player = null;
+        }
+        if (isFinishing()) {
+            MediaSessionRepository.getInstance(this).release(getIntent());
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.fnphoto.tv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.View;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 超大图片的放大浏览：用 BitmapRegionDecoder 按区域解码，只解码当前可见的瓦片。
+ * 瓦片按缩放比例选择采样级别（2 的幂），放大时逐级换成更清晰的瓦片；缩小或瓦片未就绪时显示整图的低分辨率底图。
+ * 瓦片在后台线程解码，缓存按字节数限制，内存占用只与屏幕尺寸有关，与原图大小无关。
+ *
+ * 除 {@link #setImageFile} 的解码外，其余方法都在主线程调用。
+ */
+public class TiledImageView extends View {
+    private static final String TAG = "TiledImageView";
+    private static final int TILE_SIZE = 512;        // 解码后每个瓦片的边长
+    private static final float MAX_SCALE = 2f;       // 最大放大到原图 1 像素显示为 2 像素
+    private static final float ZOOM_STEP = 2f;
+    private static final float PAN_STEP = 0.25f;     // 每次平移屏幕尺寸的比例
+
+    public interface Listener {
+        void onImageReady();
+        void onImageFailed(Throwable t);
+    }
+
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final LruCache<String, Bitmap> tiles;
+    private final Set<String> wantedTiles = new HashSet<>();  // 当前需要的瓦片，由解码线程读取
+    private final Set<String> requestedTiles = new HashSet<>();
+    private final Rect srcRect = new Rect();
+    private final RectF dstRect = new RectF();
+
+    private Listener listener;
+    private BitmapRegionDecoder decoder;
+    private int imageWidth;
+    private int imageHeight;
+    private Bitmap baseBitmap;   // 整图的低分辨率底图
+    private float scale;         // 屏幕像素 / 原图像素
+    private float minScale;      // 适应屏幕时的比例
+    private float centerX;       // 屏幕中心对应的原图坐标
+    private float centerY;
+    private boolean released = false;
+
+    public TiledImageView(Context context) {
+        super(context);
+        setBackgroundColor(Color.BLACK);
+        // 瓦片使用 RGB_565，上限约为 3 屏，并且不超过可用堆的 1/8
+        int screenBytes = getResources().getDisplayMetrics().widthPixels
+                * getResources().getDisplayMetrics().heightPixels * 2;
+        int maxBytes = (int) Math.min(screenBytes * 3L, Runtime.getRuntime().maxMemory() / 8);
+        tiles = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 在后台打开图片并解码底图，完成后回调 onImageReady
+     */
+    public void setImageFile(final File file) {
+        final int maxBaseSize = Math.max(getResources().getDisplayMetrics().widthPixels,
+                getResources().getDisplayMetrics().heightPixels);
+        decodeExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                BitmapRegionDecoder regionDecoder = BitmapRegionDecoder.newInstance(file.getAbsolutePath(), false);
+                int width = regionDecoder.getWidth();
+                int height = regionDecoder.getHeight();
+                // 底图不超过屏幕长边
+                int baseSample = 1;
+                while (Math.max(width, height) / baseSample > maxBaseSize) {
+                    baseSample *= 2;
+                }
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inSampleSize = baseSample;
+                options.inPreferredConfig = Bitmap.Config.RGB_565;
+                Bitmap base = regionDecoder.decodeRegion(new Rect(0, 0, width, height), options);
+                AppMetrics.recordTiming("zoom.open", SystemClock.elapsedRealtime() - start);
+                mainHandler.post(() -> {
+                    if (released) {
+                        regionDecoder.recycle();
+                        return;
+                    }
+                    decoder = regionDecoder;
+                    imageWidth = width;
+                    imageHeight = height;
+                    baseBitmap = base;
+                    resetZoom();
+                    if (listener != null) listener.onImageReady();
+                });
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to open image: " + file, e);
+                mainHandler.post(() -> {
+                    if (!released && listener != null) listener.onImageFailed(e);
+                });
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return decoder != null;
+    }
+
+    /**
+     * 是否已放大到超过适应屏幕的比例
+     */
+    public boolean isZoomed() {
+        return scale > minScale * 1.01f;
+    }
+
+    public boolean canZoomIn() {
+        return scale < maxScale() * 0.99f;
+    }
+
+    public void zoomIn() {
+        setScale(scale * ZOOM_STEP);
+    }
+
+    public void zoomOut() {
+        setScale(scale / ZOOM_STEP);
+    }
+
+    public void resetZoom() {
+        if (imageWidth == 0 || getWidth() == 0) {
+            // 尚未布局，布局后再计算
+            scale = 0;
+            invalidate();
+            return;
+        }
+        minScale = Math.min((float) getWidth() / imageWidth, (float) getHeight() / imageHeight);
+        scale = minScale;
+        centerX = imageWidth / 2f;
+        centerY = imageHeight / 2f;
+        invalidate();
+    }
+
+    /**
+     * 按屏幕方向平移，dx/dy 为 -1、0 或 1
+     */
+    public void pan(int dx, int dy) {
+        if (decoder == null || scale == 0) return;
+        centerX += dx * getWidth() * PAN_STEP / scale;
+        centerY += dy * getHeight() * PAN_STEP / scale;
+        clampCenter();
+        invalidate();
+    }
+
+    public void release() {
+        released = true;
+        mainHandler.removeCallbacksAndMessages(null);
+        synchronized (wantedTiles) {
+            wantedTiles.clear();
+        }
+        final BitmapRegionDecoder toRecycle = decoder;
+        decoder = null;
+        // 在解码线程上释放，不会与正在进行的解码冲突
+        decodeExecutor.execute(() -> {
+            if (toRecycle != null) toRecycle.recycle();
+        });
+        decodeExecutor.shutdown();
+        tiles.evictAll();
+        baseBitmap = null;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (decoder != null) {
+            resetZoom();
+        }
+    }
+
+    private float maxScale() {
+        return Math.max(MAX_SCALE, minScale);
+    }
+
+    private void setScale(float newScale) {
+        if (decoder == null) return;
+        scale = Math.max(minScale, Math.min(maxScale(), newScale));
+        clampCenter();
+        invalidate();
+    }
+
+    /**
+     * 图片大于屏幕的方向不能移出边缘，小于屏幕的方向居中
+     */
+    private void clampCenter() {
+        float halfW = getWidth() / 2f / scale;
+        float halfH = getHeight() / 2f / scale;
+        centerX = imageWidth <= halfW * 2 ? imageWidth / 2f : Math.max(halfW, Math.min(imageWidth - halfW, centerX));
+        centerY = imageHeight <= halfH * 2 ? imageHeight / 2f : Math.max(halfH, Math.min(imageHeight - halfH, centerY));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (decoder == null || baseBitmap == null) return;
+        if (scale == 0) {
+            resetZoom();
+        }
+
+        // 可见的原图范围
+        float halfW = getWidth() / 2f / scale;
+        float halfH = getHeight() / 2f / scale;
+        int visibleLeft = (int) Math.max(0, centerX - halfW);
+        int visibleTop = (int) Math.max(0, centerY - halfH);
+        int visibleRight = (int) Math.min(imageWidth, Math.ceil(centerX + halfW));
+        int visibleBottom = (int) Math.min(imageHeight, Math.ceil(centerY + halfH));
+
+        // 底图铺满整幅图片，瓦片未就绪的区域由它填充
+        srcRect.set(0, 0, baseBitmap.getWidth(), baseBitmap.getHeight());
+        mapToScreen(0, 0, imageWidth, imageHeight, dstRect);
+        canvas.drawBitmap(baseBitmap, srcRect, dstRect, paint);
+
+        // 解码分辨率不低于屏幕分辨率的最大采样
+        int sample = 1;
+        while (sample * 2 <= 1 / scale) {
+            sample *= 2;
+        }
+        int baseSample = Math.max(1, Math.round((float) imageWidth / baseBitmap.getWidth()));
+        Set<String> wanted = new HashSet<>();
+        List<Rect> missingRegions = new ArrayList<>();
+        List<String> missingKeys = new ArrayList<>();
+        if (sample < baseSample) {
+            int tileSource = TILE_SIZE * sample;
+            for (int row = visibleTop / tileSource; row * tileSource < visibleBottom; row++) {
+                for (int col = visibleLeft / tileSource; col * tileSource < visibleRight; col++) {
+                    String key = sample + ":" + col + ":" + row;
+                    int left = col * tileSource;
+                    int top = row * tileSource;
+                    int right = Math.min(imageWidth, left + tileSource);
+                    int bottom = Math.min(imageHeight, top + tileSource);
+                    Bitmap tile = tiles.get(key);
+                    if (tile != null) {
+                        srcRect.set(0, 0, tile.getWidth(), tile.getHeight());
+                        mapToScreen(left, top, right, bottom, dstRect);
+                        canvas.drawBitmap(tile, srcRect, dstRect, paint);
+                    } else {
+                        wanted.add(key);
+                        missingKeys.add(key);
+                        missingRegions.add(new Rect(left, top, right, bottom));
+                    }
+                }
+            }
+        }
+        synchronized (wantedTiles) {
+            // 离开屏幕的瓦片如果还没开始解码就不再解码
+            wantedTiles.clear();
+            wantedTiles.addAll(wanted);
+        }
+        requestedTiles.retainAll(wanted);
+        for (int i = 0; i < missingKeys.size(); i++) {
+            requestTile(missingKeys.get(i), sample, missingRegions.get(i));
+        }
+    }
+
+    private void mapToScreen(float left, float top, float right, float bottom, RectF out) {
+        float originX = getWidth() / 2f - centerX * scale;
+        float originY = getHeight() / 2f - centerY * scale;
+        out.set(originX + left * scale, originY + top * scale, originX + right * scale, originY + bottom * scale);
+    }
+
+    private void requestTile(final String key, final int sample, final Rect region) {
+        if (!requestedTiles.add(key)) return;
+        final BitmapRegionDecoder regionDecoder = decoder;
+        decodeExecutor.execute(() -> {
+            synchronized (wantedTiles) {
+                if (!wantedTiles.contains(key)) {
+                    AppMetrics.increment("zoom.tiles_skipped");
+                    return;
+                }
+            }
+            long start = SystemClock.elapsedRealtime();
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sample;
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            Bitmap tile;
+            try {
+                tile = regionDecoder.decodeRegion(region, options);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to decode tile " + key, e);
+                return;
+            }
+            AppMetrics.recordTiming("zoom.tile_decode", SystemClock.elapsedRealtime() - start);
+            mainHandler.post(() -> {
+                requestedTiles.remove(key);
+                if (released || tile == null) return;
+                tiles.put(key, tile);
+                invalidate();
+            });
+        });
+    }
+}
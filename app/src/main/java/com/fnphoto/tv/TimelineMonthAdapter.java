@@ -0,0 +1,169 @@
+package com.fnphoto.tv;
+
+import android.util.SparseArray;
+
+import androidx.leanback.widget.ObjectAdapter;
+import androidx.leanback.widget.Presenter;
+
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.data.TimelineIndex;
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 时间线的一个月份行：行的大小直接来自 {@link TimelineIndex}，日期卡片在这一行第一次被绑定时才创建。
+ * 远离焦点后可以释放卡片，回到附近时重新创建；单独查询到的预览地址只是几个字符串，释放时保留，
+ * 重新创建的卡片直接使用，不会丢失也不必重新查询。
+ *
+ * 必须在主线程使用。
+ */
+public class TimelineMonthAdapter extends ObjectAdapter {
+
+    public interface Listener {
+        void onRowMaterialized(int row);
+    }
+
+    private final String baseUrl;
+    private final Listener listener;
+    private TimelineIndex index;
+    private int row;
+    private List<FnHttpApi.TimelineItem> items; // 与 index 对应的原始时间线，只读取服务端提供的预览
+    private MediaItem[] cards;                  // null 表示尚未创建或已释放
+    private final SparseArray<List<String>> fetchedPreviews = new SparseArray<>(); // 列 -> 单独查询到的预览
+
+    public TimelineMonthAdapter(Presenter presenter, String baseUrl, TimelineIndex index, int row,
+                                List<FnHttpApi.TimelineItem> items, Listener listener) {
+        super(presenter);
+        this.baseUrl = baseUrl;
+        this.listener = listener;
+        this.index = index;
+        this.row = row;
+        this.items = items;
+    }
+
+    @Override
+    public int size() {
+        return index.getRowSize(row);
+    }
+
+    @Override
+    public Object get(int position) {
+        materialize();
+        return cards[position];
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public boolean isMaterialized() {
+        return cards != null;
+    }
+
+    /**
+     * 某一天的卡片是否已有预览
+     */
+    public boolean hasPreviews(int column) {
+        return fetchedPreviews.get(column) != null
+                || hasServerPreviews(items, index.getRowStart(row) + column);
+    }
+
+    /**
+     * 释放卡片（行已远离焦点）。仍绑定着的视图重新绑定到重新创建的卡片上，预览地址保留
+     */
+    public void release() {
+        if (cards == null) return;
+        cards = null;
+        notifyItemRangeChanged(0, size());
+    }
+
+    /**
+     * 批量查询得到的预览
+     */
+    public void setPreviews(int column, List<String> urls) {
+        fetchedPreviews.put(column, urls);
+        if (cards != null) {
+            cards[column].setPreviewThumbUrls(urls);
+            notifyItemRangeChanged(column, 1);
+        }
+    }
+
+    /**
+     * 是否已有服务端在时间线中直接提供的预览
+     */
+    public static boolean hasServerPreviews(List<FnHttpApi.TimelineItem> items, int dayIndex) {
+        List<String> thumbs = items.get(dayIndex).previewThumbs;
+        return thumbs != null && !thumbs.isEmpty();
+    }
+
+    /**
+     * 时间线重新加载后复用本行：天、数量和服务端预览都没变时保留已创建的卡片，
+     * 只有位置变化时按位置重新绑定；否则丢弃卡片，下次绑定时重新创建
+     */
+    public void update(TimelineIndex newIndex, int newRow, List<FnHttpApi.TimelineItem> newItems) {
+        int oldStart = index.getRowStart(row);
+        int newStart = newIndex.getRowStart(newRow);
+        boolean same = newIndex.getRowSize(newRow) == size();
+        for (int i = 0; same && i < size(); i++) {
+            same = newIndex.getDateStr(newStart + i).equals(index.getDateStr(oldStart + i))
+                    && newIndex.getCount(newStart + i) == index.getCount(oldStart + i)
+                    && equal(newItems.get(newStart + i).previewThumbs, items.get(oldStart + i).previewThumbs);
+        }
+        index = newIndex;
+        row = newRow;
+        items = newItems;
+
+        if (!same) {
+            cards = null;
+            fetchedPreviews.clear();
+            notifyChanged();
+        } else if (cards != null && newStart != oldStart) {
+            for (int i = 0; i < cards.length; i++) {
+                cards[i].setListPosition(newStart + i);
+            }
+            notifyItemRangeChanged(0, cards.length);
+        }
+    }
+
+    private void materialize() {
+        if (cards != null) return;
+        int start = index.getRowStart(row);
+        cards = new MediaItem[size()];
+        for (int i = 0; i < cards.length; i++) {
+            int dayIndex = start + i;
+            MediaItem card = new MediaItem(
+                index.getDateStr(dayIndex),
+                index.getDay(dayIndex) + "日 (" + index.getCount(dayIndex) + "张)",
+                index.getCount(dayIndex)
+            );
+            card.setListPosition(dayIndex);
+            // 服务端已提供预览缩略图时直接使用，无需再单独查询
+            if (hasServerPreviews(items, dayIndex)) {
+                card.setPreviewThumbUrls(toAbsoluteUrls(items.get(dayIndex).previewThumbs));
+            } else {
+                card.setPreviewThumbUrls(fetchedPreviews.get(i));
+            }
+            cards[i] = card;
+        }
+        AppMetrics.increment("timeline.rows_materialized");
+        listener.onRowMaterialized(row);
+    }
+
+    private List<String> toAbsoluteUrls(List<String> urls) {
+        List<String> result = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            if (url == null) continue;
+            if (!url.startsWith("http") && baseUrl != null) {
+                url = baseUrl + url;
+            }
+            result.add(url);
+        }
+        return result;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,24 @@
+package com.fnphoto.tv.api;
+
+import com.fnphoto.tv.net.NetworkQualityEventListener;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 全应用共享的 OkHttpClient
+ * Retrofit 和 Glide 使用同一个连接池，所有请求的事件都用于网络质量估计
+ */
+public final class FnHttpClient {
+    private static OkHttpClient client;
+
+    private FnHttpClient() {}
+
+    public static synchronized OkHttpClient get() {
+        if (client == null) {
+            client = new OkHttpClient.Builder()
+                    .eventListenerFactory(NetworkQualityEventListener.FACTORY)
+                    .build();
+        }
+        return client;
+    }
+}
@@ -0,0 +1,53 @@
+package com.fnphoto.tv.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * 当前登录会话（token 和 NAS 地址）的内存副本，供每个请求都要读取认证信息的地方使用（如视频流），
+ * 避免反复读取 SharedPreferences。登录、退出写入偏好设置时自动同步。
+ */
+public final class FnSession {
+    private static final String PREFS_NAME = "fn_photo_prefs";
+    private static final String KEY_TOKEN = "api_token";
+    private static final String KEY_BASE_URL = "nas_url";
+
+    private static FnSession instance;
+
+    private final SharedPreferences prefs;
+    private volatile String token;
+    private volatile String baseUrl;
+
+    // SharedPreferences 只弱引用监听器，必须由字段持有
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = (sharedPreferences, key) -> {
+        if (KEY_TOKEN.equals(key) || KEY_BASE_URL.equals(key)) {
+            reload();
+        }
+    };
+
+    public static synchronized FnSession getInstance(Context context) {
+        if (instance == null) {
+            instance = new FnSession(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private FnSession(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        reload();
+        prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    private void reload() {
+        token = prefs.getString(KEY_TOKEN, "");
+        baseUrl = prefs.getString(KEY_BASE_URL, "");
+    }
+}
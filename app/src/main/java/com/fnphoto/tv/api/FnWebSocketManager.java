@@ -14,16 +14,21 @@ public class FnWebSocketManager {
     private WebSocket timerWs;
     private String baseUrl;
     private String token;
+    private boolean closed = false;
+    private final android.os.Handler heartbeatHandler = new android.os.Handler(android.os.Looper.getMainLooper());
 
     public interface WsCallback {
+        void onOpen(String type);
         void onMessage(String type, JSONObject data);
         void onError(Throwable t);
+        /** 服务端正常关闭连接（主动 disconnect 时不回调） */
+        void onClosed(String type, int code, String reason);
     }
 
     public FnWebSocketManager() {
         // 延迟初始化 OkHttpClient，捕获可能的异常
         try {
-            this.client = new OkHttpClient();
+            this.client = FnHttpClient.get();
             android.util.Log.d("FnWebSocketManager", "OkHttpClient initialized successfully");
         } catch (Exception e) {
             android.util.Log.e("FnWebSocketManager", "Failed to initialize OkHttpClient: " + e.getMessage(), e);
@@ -34,6 +39,7 @@ public class FnWebSocketManager {
     public void connect(String baseUrl, String token, WsCallback callback) {
         this.baseUrl = baseUrl.replace("http", "ws");
         this.token = token;
+        this.closed = false;
 
         // Establish the three specific connections as per fnOS standards
         mainWs = createSocket("main", callback);
@@ -52,6 +58,9 @@ public class FnWebSocketManager {
                 if ("timer".equals(endpoint)) {
                     startHeartbeat(webSocket);
                 }
+                if (!closed) {
+                    callback.onOpen(endpoint);
+                }
             }
 
             @Override
@@ -64,29 +73,61 @@ public class FnWebSocketManager {
                 }
             }
 
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                // 回应服务端的关闭帧，之后才会回调 onClosed
+                webSocket.close(1000, null);
+            }
+
+            @Override
+            public void onClosed(WebSocket webSocket, int code, String reason) {
+                if (!closed) {
+                    callback.onClosed(endpoint, code, reason);
+                }
+            }
+
             @Override
             public void onFailure(WebSocket webSocket, Throwable t, okhttp3.Response response) {
-                callback.onError(t);
+                if (!closed) {
+                    callback.onError(t);
+                }
             }
         });
     }
 
     private void startHeartbeat(WebSocket ws) {
         // Implementation of the specific heartbeat message for the timer socket
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(new Runnable() {
+        heartbeatHandler.postDelayed(new Runnable() {
             @Override
             public void run() {
+                if (closed) return;
                 try {
                     JSONObject hb = new JSONObject();
                     hb.put("type", "heartbeat");
                     hb.put("timestamp", System.currentTimeMillis());
                     ws.send(hb.toString());
-                    new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(this, 30000);
+                    heartbeatHandler.postDelayed(this, 30000);
                 } catch (Exception e) {}
             }
         }, 30000);
     }
 
+    /**
+     * 关闭所有连接并停止心跳，之后不再回调 onOpen、onError 和 onClosed
+     */
+    public void disconnect() {
+        closed = true;
+        heartbeatHandler.removeCallbacksAndMessages(null);
+        for (WebSocket ws : new WebSocket[]{mainWs, fileWs, timerWs}) {
+            if (ws != null) {
+                ws.close(1000, null);
+            }
+        }
+        mainWs = null;
+        fileWs = null;
+        timerWs = null;
+    }
+
     public void sendMessage(String endpoint, JSONObject message) {
         WebSocket ws = null;
         if ("main".equals(endpoint)) ws = mainWs;
@@ -1,5 +1,6 @@
 package com.fnphoto.tv.cache;
 
+import android.app.Activity;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
@@ -12,7 +13,10 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.LazyHeaders;
 import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.target.DrawableImageViewTarget;
+import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.transition.Transition;
+import com.fnphoto.tv.net.RequestScheduler;
 
 import java.io.File;
 
@@ -24,6 +28,44 @@ public class CachedImageLoader {
         void onLoadFailed();
     }
     
+    /**
+     * 一次图片加载的句柄，用于取消尚未完成的加载
+     */
+    public static class LoadHandle {
+        private final Context appContext;
+        private Target<?> target;
+        private boolean cancelled;
+        private Runnable onCleared; // Glide 在生命周期结束时清除请求（不会再回调成功或失败）
+        
+        LoadHandle(Context context) {
+            this.appContext = context.getApplicationContext();
+        }
+        
+        void setTarget(Target<?> target) {
+            this.target = target;
+        }
+        
+        void notifyCleared() {
+            if (!cancelled && onCleared != null) {
+                onCleared.run();
+            }
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            if (target != null) {
+                // 使用 ApplicationContext，避免 Activity 已销毁时 Glide 抛出异常
+                Glide.with(appContext).clear(target);
+                target = null;
+            }
+        }
+    }
+    
     /**
      * 加载图片（带缓存）
      * @param context 上下文
@@ -33,8 +75,15 @@ public class CachedImageLoader {
      * @param height 目标高度
      * @param callback 回调
      */
-    public static void loadImage(Context context, String url, String token, 
+    public static LoadHandle loadImage(Context context, String url, String token, 
                                   int width, int height, ImageLoadCallback callback) {
+        LoadHandle handle = new LoadHandle(context);
+        loadImage(context, url, token, width, height, handle, callback);
+        return handle;
+    }
+    
+    private static void loadImage(Context context, String url, String token,
+                                  int width, int height, LoadHandle handle, ImageLoadCallback callback) {
         ImageCacheManager cacheManager = ImageCacheManager.getInstance(context);
         
         // 1. 先检查内存/磁盘缓存
@@ -50,37 +99,45 @@ public class CachedImageLoader {
         if (cacheFile != null) {
             // 从缓存文件加载
             Log.d(TAG, "Loading from cache file: " + url);
+            CustomTarget<Bitmap> target = new CustomTarget<Bitmap>() {
+                @Override
+                public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                    callback.onBitmapLoaded(resource);
+                }
+                
+                @Override
+                public void onLoadCleared(@Nullable Drawable placeholder) {
+                    handle.notifyCleared();
+                }
+                
+                @Override
+                public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                    // 缓存文件损坏，从网络加载
+                    if (!handle.isCancelled()) {
+                        loadFromNetwork(context, url, token, width, height, handle, callback);
+                    }
+                }
+            };
+            handle.setTarget(target);
             Glide.with(context)
                     .asBitmap()
                     .load(cacheFile)
+                    .signature(cacheManager.getSignature(url))
                     .override(width, height)
-                    .into(new CustomTarget<Bitmap>() {
-                        @Override
-                        public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                            callback.onBitmapLoaded(resource);
-                        }
-                        
-                        @Override
-                        public void onLoadCleared(@Nullable Drawable placeholder) {}
-                        
-                        @Override
-                        public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                            // 缓存文件损坏，从网络加载
-                            loadFromNetwork(context, url, token, width, height, callback);
-                        }
-                    });
+                    .into(target);
             return;
         }
         
         // 3. 从网络加载
-        loadFromNetwork(context, url, token, width, height, callback);
+        loadFromNetwork(context, url, token, width, height, handle, callback);
     }
     
     /**
      * 从网络加载并缓存
      */
     private static void loadFromNetwork(Context context, String url, String token,
-                                        int width, int height, ImageLoadCallback callback) {
+                                        int width, int height, LoadHandle handle,
+                                        ImageLoadCallback callback) {
         Log.d(TAG, "Loading from network: " + url);
         
         ImageCacheManager cacheManager = ImageCacheManager.getInstance(context);
@@ -89,44 +146,202 @@ public class CachedImageLoader {
                 .addHeader("accesstoken", token)
                 .build());
         
+        CustomTarget<Bitmap> target = new CustomTarget<Bitmap>() {
+            @Override
+            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                // 保存到缓存
+                cacheManager.saveBitmapToCache(url, resource);
+                callback.onBitmapLoaded(resource);
+            }
+            
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                handle.notifyCleared();
+            }
+            
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                Log.e(TAG, "Failed to load image: " + url);
+                callback.onLoadFailed();
+            }
+        };
+        handle.setTarget(target);
         Glide.with(context)
                 .asBitmap()
                 .load(glideUrl)
+                .signature(cacheManager.getSignature(url))
                 .override(width, height)
-                .into(new CustomTarget<Bitmap>() {
-                    @Override
-                    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                        // 保存到缓存
-                        cacheManager.saveBitmapToCache(url, resource);
-                        callback.onBitmapLoaded(resource);
-                    }
-                    
-                    @Override
-                    public void onLoadCleared(@Nullable Drawable placeholder) {}
-                    
-                    @Override
-                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                        Log.e(TAG, "Failed to load image: " + url);
+                .into(target);
+    }
+    
+    /**
+     * 只从缓存加载，不访问网络：本地缓存文件或 Glide 磁盘缓存（列表中加载过的缩略图）。
+     * 未缓存时回调 onLoadFailed
+     */
+    public static LoadHandle loadFromCacheOnly(Context context, String url, int width, int height,
+                                               ImageLoadCallback callback) {
+        LoadHandle handle = new LoadHandle(context);
+        ImageCacheManager cacheManager = ImageCacheManager.getInstance(context);
+    
+        Bitmap cachedBitmap = cacheManager.getCachedBitmap(url);
+        if (cachedBitmap != null && !cachedBitmap.isRecycled()) {
+            callback.onBitmapLoaded(cachedBitmap);
+            return handle;
+        }
+    
+        // Glide 缓存的 key 只取决于 URL，不需要认证头
+        File cacheFile = cacheManager.getCacheFile(url);
+        Object model = cacheFile != null ? cacheFile : new GlideUrl(url);
+        CustomTarget<Bitmap> target = new CustomTarget<Bitmap>() {
+            @Override
+            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                callback.onBitmapLoaded(resource);
+            }
+    
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                handle.notifyCleared();
+            }
+    
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                callback.onLoadFailed();
+            }
+        };
+        handle.setTarget(target);
+        Glide.with(context)
+                .asBitmap()
+                .load(model)
+                .signature(cacheManager.getSignature(url))
+                .onlyRetrieveFromCache(true)
+                .override(width, height)
+                .into(target);
+        return handle;
+    }
+    
+    /**
+     * 把图片加载包装为调度任务。任务被取消后不再回调
+     */
+    public static RequestScheduler.Job imageJob(Context context, String url, String token,
+                                                int width, int height, ImageLoadCallback callback) {
+        return imageJob(context, url, token, width, height, new LoadHandle(context), callback);
+    }
+    
+    /**
+     * 同上，但加载句柄由调用方持有：回调的图片由 Glide 管理，在调用方取消句柄（不再显示）之前一直有效，
+     * 取消后 Glide 才能复用这块内存
+     */
+    public static RequestScheduler.Job imageJob(Context context, String url, String token,
+                                                int width, int height, LoadHandle handle,
+                                                ImageLoadCallback callback) {
+        RequestScheduler.Job job = new RequestScheduler.Job() {
+            @Override
+            public void start(RequestScheduler.Task task) {
+                handle.onCleared = task::finish;
+                try {
+                    loadImage(context, url, token, width, height, handle, new ImageLoadCallback() {
+                        @Override
+                        public void onBitmapLoaded(Bitmap bitmap) {
+                            task.finish();
+                            if (!task.isCancelled()) {
+                                callback.onBitmapLoaded(bitmap);
+                            }
+                        }
+                        
+                        @Override
+                        public void onLoadFailed() {
+                            task.finish();
+                            if (!task.isCancelled()) {
+                                callback.onLoadFailed();
+                            }
+                        }
+                    });
+                } catch (Exception e) {
+                    // 调度器只会结束抛出异常的任务，调用方也需要知道加载失败
+                    Log.e(TAG, "Failed to start image load: " + url, e);
+                    task.finish();
+                    if (!task.isCancelled()) {
                         callback.onLoadFailed();
                     }
-                });
+                }
+            }
+            
+            @Override
+            public void cancel() {
+                handle.cancel();
+            }
+        };
+        // Glide.with(Activity) 的加载随页面停止而暂停；应用 Context 的加载不会暂停
+        return context instanceof Activity ? RequestScheduler.pausable(job) : job;
+    }
+    
+    public static LoadHandle createHandle(Context context) {
+        return new LoadHandle(context);
+    }
+    
+    /**
+     * 把加载到 ImageView 包装为调度任务
+     */
+    public static RequestScheduler.Job imageViewJob(android.widget.ImageView imageView, String url, String token) {
+        RequestScheduler.Job job = new RequestScheduler.Job() {
+            @Override
+            public void start(RequestScheduler.Task task) {
+                loadIntoImageView(imageView, url, token, task);
+            }
+            
+            @Override
+            public void cancel() {
+                Glide.with(imageView.getContext().getApplicationContext()).clear(imageView);
+            }
+        };
+        return imageView.getContext() instanceof Activity ? RequestScheduler.pausable(job) : job;
     }
     
     /**
      * 加载单张图片到ImageView（使用Glide的标准方式，但会先检查缓存）
      */
     public static void loadIntoImageView(android.widget.ImageView imageView, String url, String token) {
+        loadIntoImageView(imageView, url, token, null);
+    }
+    
+    /**
+     * @param task 所属调度任务，加载结束（成功、失败或被清除）时标记完成，可为 null
+     */
+    private static void loadIntoImageView(android.widget.ImageView imageView, String url, String token,
+                                          RequestScheduler.Task task) {
         Context context = imageView.getContext();
         ImageCacheManager cacheManager = ImageCacheManager.getInstance(context);
         
+        DrawableImageViewTarget target = new DrawableImageViewTarget(imageView) {
+            @Override
+            public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+                super.onResourceReady(resource, transition);
+                // 下载完成后保存到缓存（Glide会自动处理）
+                if (task != null) task.finish();
+            }
+            
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                super.onLoadFailed(errorDrawable);
+                if (task != null) task.finish();
+            }
+            
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                super.onLoadCleared(placeholder);
+                if (task != null) task.finish();
+            }
+        };
+        
         // 检查缓存文件
         File cacheFile = cacheManager.getCacheFile(url);
         if (cacheFile != null) {
             // 从缓存加载
             Glide.with(context)
                     .load(cacheFile)
+                    .signature(cacheManager.getSignature(url))
                     .centerCrop()
-                    .into(imageView);
+                    .into(target);
         } else {
             // 从网络加载
             GlideUrl glideUrl = new GlideUrl(url, new LazyHeaders.Builder()
@@ -135,14 +350,9 @@ public class CachedImageLoader {
             
             Glide.with(context)
                     .load(glideUrl)
+                    .signature(cacheManager.getSignature(url))
                     .centerCrop()
-                    .into(new com.bumptech.glide.request.target.DrawableImageViewTarget(imageView) {
-                        @Override
-                        public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
-                            super.onResourceReady(resource, transition);
-                            // 下载完成后保存到缓存（Glide会自动处理）
-                        }
-                    });
+                    .into(target);
         }
     }
     
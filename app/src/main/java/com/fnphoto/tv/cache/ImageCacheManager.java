@@ -5,24 +5,32 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.util.Log;
 
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class ImageCacheManager {
     private static final String TAG = "ImageCacheManager";
     private static final String CACHE_DIR = "image_cache";
-    private static final long DEFAULT_CACHE_EXPIRY = 10 * 24 * 60 * 60 * 1000; // 10 * 24小时
+    // 文件变化由 LibraryChangeMonitor 按通知精确失效，过期时间只作为兜底
+    private static final long DEFAULT_CACHE_EXPIRY = 60L * 24 * 60 * 60 * 1000; // 60 天
     private static final long MAX_CACHE_SIZE = 200 * 1024 * 1024; // 200MB
     
     private static ImageCacheManager instance;
     private File cacheDir;
     private ExecutorService executorService;
+    // 被通知失效的 URL -> 失效时间，作为 Glide 的签名，使其内存和磁盘缓存中的旧图不再命中
+    private final Map<String, Long> invalidatedUrls = new ConcurrentHashMap<>();
     
     public static synchronized ImageCacheManager getInstance(Context context) {
         if (instance == null) {
@@ -129,6 +137,27 @@ public class ImageCacheManager {
         });
     }
     
+    /**
+     * 使某个图片的缓存失效（文件已在服务端修改或删除）
+     */
+    public void invalidate(String url) {
+        invalidatedUrls.put(url, System.currentTimeMillis());
+        File cacheFile = new File(cacheDir, hashUrl(url));
+        executorService.execute(() -> {
+            if (cacheFile.exists() && cacheFile.delete()) {
+                Log.d(TAG, "Invalidated cache: " + url);
+            }
+        });
+    }
+
+    /**
+     * Glide 请求使用的签名，URL 失效后签名变化
+     */
+    public Key getSignature(String url) {
+        Long invalidatedAt = invalidatedUrls.get(url);
+        return new ObjectKey(invalidatedAt != null ? invalidatedAt : 0L);
+    }
+
     /**
      * 获取缓存文件
      */
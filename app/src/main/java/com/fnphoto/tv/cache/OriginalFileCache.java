@@ -0,0 +1,211 @@
+package com.fnphoto.tv.cache;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnHttpClient;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 原图文件的磁盘缓存：大图按区域解码（BitmapRegionDecoder）需要完整的文件，不能经过 Glide 缩放。
+ * 按总大小限制，超出时删除最久未使用的文件。
+ */
+public class OriginalFileCache {
+    private static final String TAG = "OriginalFileCache";
+    private static final String CACHE_DIR = "originals";
+    private static final long MAX_CACHE_SIZE = 512L * 1024 * 1024; // 512MB
+
+    public interface Callback {
+        void onReady(File file);   // 在主线程回调
+        void onFailed(Throwable t);
+    }
+
+    private static OriginalFileCache instance;
+
+    private final File cacheDir;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized OriginalFileCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new OriginalFileCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OriginalFileCache(Context context) {
+        cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+    }
+
+    /**
+     * 已缓存的原图文件，没有时返回 null
+     */
+    public File getFile(String url) {
+        File file = new File(cacheDir, hashUrl(url));
+        if (file.exists()) {
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * 原图已在服务端修改或删除
+     */
+    public void invalidate(String url) {
+        File file = new File(cacheDir, hashUrl(url));
+        if (file.exists() && file.delete()) {
+            Log.d(TAG, "Invalidated original: " + url);
+        }
+    }
+
+    /**
+     * 把原图下载包装为调度任务，已缓存时直接回调
+     */
+    public RequestScheduler.Job downloadJob(String url, String token, Callback callback) {
+        return new RequestScheduler.Job() {
+            private Call call;
+
+            @Override
+            public void start(RequestScheduler.Task task) {
+                File cached = getFile(url);
+                if (cached != null) {
+                    AppMetrics.increment("originals.cache_hits");
+                    task.finish();
+                    callback.onReady(cached);
+                    return;
+                }
+
+                final long start = SystemClock.elapsedRealtime();
+                Request request = new Request.Builder()
+                        .url(url)
+                        .header("accesstoken", token)
+                        .build();
+                call = FnHttpClient.get().newCall(request);
+                call.enqueue(new okhttp3.Callback() {
+                    @Override
+                    public void onFailure(Call c, IOException e) {
+                        deliver(task, null, e);
+                    }
+
+                    @Override
+                    public void onResponse(Call c, Response response) {
+                        try (ResponseBody body = response.body()) {
+                            if (!response.isSuccessful() || body == null) {
+                                throw new IOException("HTTP " + response.code());
+                            }
+                            File file = save(url, body.byteStream());
+                            AppMetrics.increment("originals.downloads");
+                            AppMetrics.add("originals.download_bytes", file.length());
+                            AppMetrics.recordTiming("originals.download", SystemClock.elapsedRealtime() - start);
+                            deliver(task, file, null);
+                        } catch (IOException e) {
+                            deliver(task, null, e);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void cancel() {
+                if (call != null) {
+                    call.cancel();
+                }
+            }
+
+            private void deliver(RequestScheduler.Task task, File file, Throwable t) {
+                mainHandler.post(() -> {
+                    task.finish();
+                    if (task.isCancelled()) return;
+                    if (file != null) {
+                        callback.onReady(file);
+                    } else {
+                        Log.e(TAG, "Failed to download original: " + url, t);
+                        callback.onFailed(t);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * 先写入临时文件，完整下载后再改名，中途取消不会留下不完整的缓存
+     */
+    private File save(String url, InputStream in) throws IOException {
+        File file = new File(cacheDir, hashUrl(url));
+        File temp = new File(cacheDir, file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to move " + temp);
+        }
+        ensureCacheSize(file);
+        return file;
+    }
+
+    /**
+     * 超出上限时从最久未使用的文件开始删除（保留刚下载的文件）
+     */
+    private void ensureCacheSize(File keep) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) {
+            total += f.length();
+        }
+        if (total <= MAX_CACHE_SIZE) return;
+
+        Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+        for (File f : files) {
+            if (total <= MAX_CACHE_SIZE) break;
+            if (f.equals(keep) || f.getName().endsWith(".tmp")) continue;
+            long length = f.length();
+            if (f.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static String hashUrl(String url) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] hash = md.digest(url.getBytes());
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(url.hashCode());
+        }
+    }
+}
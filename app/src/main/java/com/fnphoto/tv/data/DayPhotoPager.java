@@ -0,0 +1,315 @@
+package com.fnphoto.tv.data;
+
+import android.util.Log;
+
+import com.fnphoto.tv.MediaItem;
+import com.fnphoto.tv.api.FnAuthUtils;
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.net.NetworkPolicy;
+import com.fnphoto.tv.net.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 按天分页加载照片列表
+ * 通过 /p/api/v1/gallery/getList 的 limit/offset 逐页拉取，首屏只等待第一页，
+ * 焦点接近已加载末尾时预取后续页。预取距离和同时在途的页数由 NetworkPolicy 按网络质量决定
+ */
+public class DayPhotoPager {
+    private static final String TAG = "DayPhotoPager";
+    public static final int DEFAULT_PAGE_SIZE = 60;       // 默认每页数量
+
+    public interface Listener {
+        /**
+         * 新的一页已按顺序追加到列表末尾
+         * @param newItems 本次追加的项
+         * @param offset 本次追加项在列表中的起始位置
+         */
+        void onPageLoaded(List<MediaItem> newItems, int offset);
+        void onPageFailed(int offset, Throwable t);
+    }
+
+    private final FnHttpApi api;
+    private final String token;
+    private final String baseUrl;
+    private final String dateStr;
+    private final int totalCount;
+    private final int pageSize;
+    private final List<MediaItem> items;
+
+    private Listener listener;
+    private String taskGroup;       // 页请求所属的调度分组，随页面生命周期暂停和取消
+    private LibraryStore store;     // 加载到的页同时写入本地库，可为 null
+    private RequestScheduler.Priority firstPagePriority = RequestScheduler.Priority.VISIBLE;
+    private int nextRequestOffset;  // 下一次请求的 offset
+    private boolean hasMore = true;
+    private int endOffset = -1;     // 服务端返回不足一页时确定的列表末尾，-1 表示未知
+    private boolean cancelled = false;
+    private final Map<Integer, RequestScheduler.Task> inFlight = new HashMap<>(); // offset -> 请求
+    // 乱序返回的页先暂存，按 offset 顺序追加
+    private final Map<Integer, List<MediaItem>> pendingPages = new TreeMap<>();
+
+    public DayPhotoPager(FnHttpApi api, String token, String baseUrl, String dateStr,
+                         int totalCount, int pageSize) {
+        this(api, token, baseUrl, dateStr, totalCount, pageSize, new ArrayList<>());
+    }
+
+    /**
+     * @param initialItems 已加载的项（例如从其他页面传入），后续页从其末尾继续
+     */
+    public DayPhotoPager(FnHttpApi api, String token, String baseUrl, String dateStr,
+                         int totalCount, int pageSize, List<MediaItem> initialItems) {
+        this.api = api;
+        this.token = token;
+        this.baseUrl = baseUrl;
+        this.dateStr = dateStr;
+        this.totalCount = totalCount;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.items = initialItems;
+        this.nextRequestOffset = initialItems.size();
+        this.hasMore = totalCount <= 0 || initialItems.size() < totalCount;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setStore(LibraryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 设置页请求的调度分组（通常是所属页面 RequestScope 的分组）
+     */
+    public void setTaskGroup(String taskGroup) {
+        this.taskGroup = taskGroup;
+    }
+
+    /**
+     * 第一页的优先级，投机预取时使用 PREFETCH，不与可见内容争抢
+     */
+    public void setFirstPagePriority(RequestScheduler.Priority priority) {
+        this.firstPagePriority = priority;
+    }
+
+    /**
+     * 分页器被页面正式使用：在途的请求提升为可见优先级
+     */
+    public void promote() {
+        firstPagePriority = RequestScheduler.Priority.VISIBLE;
+        for (RequestScheduler.Task task : inFlight.values()) {
+            RequestScheduler.getInstance().reprioritize(task.getKey(), RequestScheduler.Priority.VISIBLE);
+        }
+    }
+
+    /**
+     * 当前已加载的列表，新页会直接追加到这个列表中
+     */
+    public List<MediaItem> getItems() {
+        return items;
+    }
+
+    public String getDateStr() { return dateStr; }
+    public int getTotalCount() { return totalCount; }
+    public int getPageSize() { return pageSize; }
+    public boolean hasMore() { return hasMore; }
+
+    /**
+     * 加载第一页（如果尚未加载或正在加载）
+     */
+    public void start() {
+        if (items.isEmpty() && inFlight.isEmpty()) {
+            requestNextPage();
+        }
+    }
+
+    /**
+     * 通知当前可见（或选中）位置，接近末尾时预取后续页
+     */
+    public void onPositionVisible(int position) {
+        if (cancelled || !hasMore) return;
+
+        NetworkPolicy policy = NetworkPolicy.getInstance();
+        int loadedEnd = items.size();
+        if (position >= loadedEnd - policy.getPrefetchDistance()) {
+            // 网络越好，同时预取的页越多
+            while (inFlight.size() < policy.getPrefetchPages() && canRequestMore()) {
+                requestNextPage();
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (RequestScheduler.Task task : new ArrayList<>(inFlight.values())) {
+            task.cancel();
+        }
+        inFlight.clear();
+        pendingPages.clear();
+    }
+
+    private boolean canRequestMore() {
+        return hasMore && (totalCount <= 0 || nextRequestOffset < totalCount)
+                && (endOffset < 0 || nextRequestOffset < endOffset);
+    }
+
+    private void requestNextPage() {
+        if (api == null || token == null || token.isEmpty() || !canRequestMore()) {
+            return;
+        }
+
+        final int offset = nextRequestOffset;
+        int limit = pageSize;
+        if (totalCount > 0) {
+            limit = Math.min(pageSize, totalCount - offset);
+        }
+        nextRequestOffset += limit;
+        final int requestedLimit = limit;
+
+        String dateTime = dateStr.replace("-", ":");
+        String startTime = dateTime + " 00:00:00";
+        String endTime = dateTime + " 23:59:59";
+        String mode = "index";
+
+        StringBuilder paramsBuilder = new StringBuilder();
+        paramsBuilder.append("end_time=").append(endTime);
+        paramsBuilder.append("&limit=").append(limit);
+        paramsBuilder.append("&mode=").append(mode);
+        paramsBuilder.append("&offset=").append(offset);
+        paramsBuilder.append("&start_time=").append(startTime);
+
+        String params = paramsBuilder.toString();
+        String authx = FnAuthUtils.generateAuthX("/p/api/v1/gallery/getList", "GET", params);
+
+        Log.d(TAG, "Requesting page for " + dateStr + ": offset=" + offset + ", limit=" + limit);
+
+        Call<FnHttpApi.GalleryListResponse> call =
+                api.getPhotosByTimeRange(token, authx, startTime, endTime, limit, offset, mode);
+        // 第一页决定首屏，其余为预取
+        RequestScheduler.Priority priority = offset == 0
+                ? firstPagePriority : RequestScheduler.Priority.NEAR_VISIBLE;
+        String key = "day-page:" + dateStr + ":" + offset + "@" + System.identityHashCode(this);
+        RequestScheduler.Task task = RequestScheduler.getInstance().submit(key, taskGroup, -1, priority,
+                new RequestScheduler.CallJob<FnHttpApi.GalleryListResponse>(call, new Callback<FnHttpApi.GalleryListResponse>() {
+            @Override
+            public void onResponse(Call<FnHttpApi.GalleryListResponse> call,
+                                   Response<FnHttpApi.GalleryListResponse> response) {
+                inFlight.remove(offset);
+                if (cancelled) return;
+
+                if (response.isSuccessful() && response.body() != null) {
+                    FnHttpApi.GalleryListResponse result = response.body();
+                    if (result.code == 0 && result.data != null && result.data.list != null) {
+                        List<MediaItem> page = new ArrayList<>();
+                        for (FnHttpApi.GalleryPhoto photo : result.data.list) {
+                            page.add(toMediaItem(photo, baseUrl));
+                        }
+                        boolean lastPage = result.data.hasNext != null && !result.data.hasNext;
+                        if (lastPage || page.size() < requestedLimit) {
+                            // 服务端实际数量可能少于时间线统计，以返回结果为准
+                            int end = offset + page.size();
+                            endOffset = endOffset < 0 ? end : Math.min(endOffset, end);
+                        }
+                        if (store != null && totalCount > 0) {
+                            store.saveDayPage(dateStr, totalCount, offset, result.data.list);
+                        }
+                        pendingPages.put(offset, page);
+                        flushPendingPages();
+                        return;
+                    }
+                }
+                Log.e(TAG, "加载照片分页失败: offset=" + offset + ", HTTP " + response.code());
+                onFailed(offset, null);
+            }
+
+            @Override
+            public void onFailure(Call<FnHttpApi.GalleryListResponse> call, Throwable t) {
+                inFlight.remove(offset);
+                if (cancelled) return;
+                Log.e(TAG, "加载照片分页失败: offset=" + offset, t);
+                onFailed(offset, t);
+            }
+        }));
+        inFlight.put(offset, task);
+    }
+
+    private void onFailed(int offset, Throwable t) {
+        // 从失败的页重新请求，已暂存的后续页保留（重复返回时直接覆盖）
+        if (offset < nextRequestOffset) {
+            nextRequestOffset = offset;
+        }
+        if (listener != null) {
+            listener.onPageFailed(offset, t);
+        }
+    }
+
+    /**
+     * 按 offset 顺序把已返回的页追加到列表
+     */
+    private void flushPendingPages() {
+        while (!pendingPages.isEmpty()) {
+            int expected = items.size();
+            List<MediaItem> page = pendingPages.remove(expected);
+            if (page == null) {
+                break;
+            }
+            for (int i = 0; i < page.size(); i++) {
+                page.get(i).setListPosition(expected + i);
+            }
+            items.addAll(page);
+            if ((totalCount > 0 && items.size() >= totalCount)
+                    || (endOffset >= 0 && items.size() >= endOffset)) {
+                hasMore = false;
+            }
+            if (listener != null) {
+                listener.onPageLoaded(page, expected);
+            }
+        }
+        if (!hasMore) {
+            pendingPages.clear();
+        }
+    }
+
+    /**
+     * 把接口返回的照片转换为 MediaItem
+     */
+    public static MediaItem toMediaItem(FnHttpApi.GalleryPhoto photo, String baseUrl) {
+        String thumbUrl = null;
+        String mediumUrl = null;
+        String originalUrl = null;
+
+        if (photo.additional != null && photo.additional.thumbnail != null) {
+            FnHttpApi.GalleryThumbnail thumbnail = photo.additional.thumbnail;
+            NetworkPolicy.ThumbnailTier tier = NetworkPolicy.getInstance().getThumbnailTier();
+
+            // 对于视频类型，使用大一级的缩略图作为预览图，效果更好
+            if ("video".equals(photo.category)) {
+                tier = tier.larger();
+            }
+            String url = tier.select(thumbnail);
+            thumbUrl = url != null ? baseUrl + url : null;
+
+            mediumUrl = thumbnail.mUrl != null ? baseUrl + thumbnail.mUrl : null;
+            originalUrl = thumbnail.originalUrl != null ? baseUrl + thumbnail.originalUrl : null;
+        }
+
+        MediaItem item = new MediaItem(
+            String.valueOf(photo.id),
+            photo.fileName,
+            photo.category,
+            thumbUrl,
+            mediumUrl
+        );
+        item.setOriginalUrl(originalUrl);
+        item.setSize(photo.width, photo.height);
+        return item;
+    }
+}
@@ -0,0 +1,341 @@
+package com.fnphoto.tv.data;
+
+import android.util.LruCache;
+
+import com.fnphoto.tv.MediaItem;
+import com.fnphoto.tv.api.FnHttpApi;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 文件夹内容的紧凑存储：按列保存在基本类型数组中，不为每个文件保留一个 FolderMediaItem。
+ * 上万个文件的文件夹，每项只占几十字节，而不是一个二十多个字段的对象和几条完整地址。
+ *
+ * - id、文件大小、日期时间是 int/long 数组；日期时间按数字压缩（2023:05:01 12:00:00 → 20230501120000），只用于比较
+ * - 类型（photo/video）在全局表中登记，每项只存一个字节的编号
+ * - photoUUID 是 32 位十六进制（可带连字符）时存为两个 long，其他格式原样保存
+ * - 缩略图和流地址不保存，需要时按 id 和 UUID 拼接
+ *
+ * 只在追加的一端写入，{@link #snapshot()} 得到的副本与原存储共享数组，之后原存储的追加和清空不影响副本。
+ * 不是线程安全的，在一个线程中填充后再交给主线程使用。
+ */
+public final class FolderMediaStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MATERIALIZED_CACHE_SIZE = 32; // 列表视图缓存最近生成的 MediaItem
+
+    private static final byte UUID_NONE = 0;
+    private static final byte UUID_HEX = 1;     // 32 位小写十六进制
+    private static final byte UUID_DASHED = 2;  // 8-4-4-4-12 格式
+    private static final byte UUID_OTHER = 3;   // 其他格式，保存在 otherUuids 中
+
+    private static final String THUMBNAIL_SIZE = "s";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // 类型只有少数几种，全局登记，编号在进程内不变
+    private static final List<String> categoryNames = new ArrayList<>();
+    private static final Map<String, Byte> categoryCodes = new HashMap<>();
+
+    private final boolean frozen;
+    private int size;
+    private int[] ids;
+    private long[] fileSizes;
+    private long[] dateTimes;
+    private byte[] categories;
+    private String[] fileNames;
+    private long[] uuidHigh;
+    private long[] uuidLow;
+    private byte[] uuidFormats;
+    private Map<Integer, String> otherUuids;
+
+    public FolderMediaStore() {
+        frozen = false;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private FolderMediaStore(FolderMediaStore source) {
+        frozen = true;
+        size = source.size;
+        ids = source.ids;
+        fileSizes = source.fileSizes;
+        dateTimes = source.dateTimes;
+        categories = source.categories;
+        fileNames = source.fileNames;
+        uuidHigh = source.uuidHigh;
+        uuidLow = source.uuidLow;
+        uuidFormats = source.uuidFormats;
+        otherUuids = source.otherUuids;
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        fileSizes = new long[capacity];
+        dateTimes = new long[capacity];
+        categories = new byte[capacity];
+        fileNames = new String[capacity];
+        uuidHigh = new long[capacity];
+        uuidLow = new long[capacity];
+        uuidFormats = new byte[capacity];
+        otherUuids = new HashMap<>();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        fileSizes = Arrays.copyOf(fileSizes, newCapacity);
+        dateTimes = Arrays.copyOf(dateTimes, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        fileNames = Arrays.copyOf(fileNames, newCapacity);
+        uuidHigh = Arrays.copyOf(uuidHigh, newCapacity);
+        uuidLow = Arrays.copyOf(uuidLow, newCapacity);
+        uuidFormats = Arrays.copyOf(uuidFormats, newCapacity);
+    }
+
+    // ==================== 写入 ====================
+
+    public void add(FnHttpApi.FolderMediaItem item) {
+        checkWritable();
+        ensureCapacity(size + 1);
+        int i = size;
+        ids[i] = item.id;
+        fileSizes[i] = item.fileSize;
+        dateTimes[i] = packDateTime(item.dateTime);
+        categories[i] = categoryCode(item.category);
+        fileNames[i] = item.fileName;
+        encodeUuid(i, item.photoUUID);
+        size++;
+    }
+
+    public void addAll(List<FnHttpApi.FolderMediaItem> items) {
+        checkWritable();
+        ensureCapacity(size + items.size());
+        for (FnHttpApi.FolderMediaItem item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * 清空。重新分配数组，已取得的快照不受影响
+     */
+    public void clear() {
+        checkWritable();
+        size = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 当前内容的只读副本，不复制数据
+     */
+    public FolderMediaStore snapshot() {
+        return frozen ? this : new FolderMediaStore(this);
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new IllegalStateException("FolderMediaStore snapshot is read-only");
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int getId(int index) { return ids[index]; }
+    public long getFileSize(int index) { return fileSizes[index]; }
+    public String getFileName(int index) { return fileNames[index]; }
+
+    public String getCategory(int index) {
+        synchronized (categoryNames) {
+            return categoryNames.get(categories[index]);
+        }
+    }
+
+    public boolean isVideo(int index) {
+        return "video".equals(getCategory(index));
+    }
+
+    public String getPhotoUuid(int index) {
+        switch (uuidFormats[index]) {
+            case UUID_HEX:
+                return formatUuid(uuidHigh[index], uuidLow[index], false);
+            case UUID_DASHED:
+                return formatUuid(uuidHigh[index], uuidLow[index], true);
+            case UUID_OTHER:
+                return otherUuids.get(index);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 比较网络返回的第一页与当前内容的开头，判断文件夹内容是否未变化
+     */
+    public boolean matchesPrefix(List<FnHttpApi.FolderMediaItem> page) {
+        if (size < page.size()) return false;
+        for (int i = 0; i < page.size(); i++) {
+            FnHttpApi.FolderMediaItem item = page.get(i);
+            if (ids[i] != item.id || dateTimes[i] != packDateTime(item.dateTime)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== 地址 ====================
+
+    /**
+     * 缩略图地址。文件夹接口不返回缩略图地址，只能按规则拼接，服务器确认支持的只有 s 尺寸，
+     * 所以不按网络质量选择尺寸（按天的列表使用接口返回的各尺寸地址，不受影响）
+     */
+    public String getThumbnailUrl(int index, String baseUrl) {
+        return baseUrl + "/p/api/v1/stream/p/t/" + ids[index] + "/" + THUMBNAIL_SIZE + "/" + getPhotoUuid(index);
+    }
+
+    public String getMediaUrl(int index, String baseUrl) {
+        if (isVideo(index)) {
+            return baseUrl + "/p/api/v1/stream/v/" + ids[index];
+        }
+        return baseUrl + "/p/api/v1/stream/p/t/" + ids[index] + "/o/" + getPhotoUuid(index);
+    }
+
+    public MediaItem getMediaItem(int index, String baseUrl) {
+        return new MediaItem(
+                String.valueOf(ids[index]),
+                fileNames[index],
+                getCategory(index),
+                getThumbnailUrl(index, baseUrl),
+                getMediaUrl(index, baseUrl)
+        );
+    }
+
+    /**
+     * 当前内容的只读 MediaItem 列表，按位置访问时才生成 MediaItem，供详情页等按列表使用的页面读取
+     */
+    public List<MediaItem> asMediaList(String baseUrl) {
+        return new MediaListView(snapshot(), baseUrl);
+    }
+
+    private static final class MediaListView extends AbstractList<MediaItem> implements RandomAccess {
+        private final FolderMediaStore store;
+        private final String baseUrl;
+        // 同一位置反复读取时返回同一个对象
+        private final LruCache<Integer, MediaItem> materialized = new LruCache<>(MATERIALIZED_CACHE_SIZE);
+
+        MediaListView(FolderMediaStore store, String baseUrl) {
+            this.store = store;
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public MediaItem get(int index) {
+            if (index < 0 || index >= store.size) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + store.size);
+            }
+            MediaItem item = materialized.get(index);
+            if (item == null) {
+                item = store.getMediaItem(index, baseUrl);
+                materialized.put(index, item);
+            }
+            return item;
+        }
+
+        @Override
+        public int size() {
+            return store.size;
+        }
+    }
+
+    // ==================== 编码 ====================
+
+    private static byte categoryCode(String category) {
+        String key = category != null ? category : "";
+        synchronized (categoryNames) {
+            Byte code = categoryCodes.get(key);
+            if (code == null) {
+                if (categoryNames.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Too many media categories");
+                }
+                code = (byte) categoryNames.size();
+                categoryNames.add(category);
+                categoryCodes.put(key, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * 日期时间中的数字依次拼成一个 long，格式一致时大小顺序与时间顺序相同；超过 18 位时退化为哈希
+     */
+    private static long packDateTime(String dateTime) {
+        if (dateTime == null) return -1;
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < dateTime.length(); i++) {
+            char c = dateTime.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return Long.MIN_VALUE | dateTime.hashCode();
+                }
+                value = value * 10 + (c - '0');
+            }
+        }
+        return value;
+    }
+
+    private void encodeUuid(int index, String uuid) {
+        uuidHigh[index] = 0;
+        uuidLow[index] = 0;
+        if (uuid == null) {
+            uuidFormats[index] = UUID_NONE;
+            return;
+        }
+        boolean dashed = uuid.length() == 36 && uuid.charAt(8) == '-' && uuid.charAt(13) == '-'
+                && uuid.charAt(18) == '-' && uuid.charAt(23) == '-';
+        if (dashed || uuid.length() == 32) {
+            long high = 0;
+            long low = 0;
+            int nibbles = 0;
+            for (int i = 0; i < uuid.length() && nibbles >= 0; i++) {
+                char c = uuid.charAt(i);
+                if (dashed && (i == 8 || i == 13 || i == 18 || i == 23)) continue;
+                int v = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+                if (v < 0) {
+                    nibbles = -1; // 大写或非十六进制，无法原样还原
+                } else if (nibbles++ < 16) {
+                    high = high << 4 | v;
+                } else {
+                    low = low << 4 | v;
+                }
+            }
+            if (nibbles == 32) {
+                uuidHigh[index] = high;
+                uuidLow[index] = low;
+                uuidFormats[index] = dashed ? UUID_DASHED : UUID_HEX;
+                return;
+            }
+        }
+        uuidFormats[index] = UUID_OTHER;
+        otherUuids.put(index, uuid);
+    }
+
+    private static String formatUuid(long high, long low, boolean dashed) {
+        char[] out = new char[dashed ? 36 : 32];
+        int pos = 0;
+        for (int n = 0; n < 32; n++) {
+            if (dashed && (n == 8 || n == 12 || n == 16 || n == 20)) {
+                out[pos++] = '-';
+            }
+            long word = n < 16 ? high : low;
+            int shift = (15 - (n & 15)) * 4;
+            out[pos++] = HEX[(int) (word >>> shift) & 0xF];
+        }
+        return new String(out);
+    }
+}
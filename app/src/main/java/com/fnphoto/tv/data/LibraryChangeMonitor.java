@@ -0,0 +1,364 @@
+package com.fnphoto.tv.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnWebSocketManager;
+import com.fnphoto.tv.cache.ImageCacheManager;
+import com.fnphoto.tv.cache.OriginalFileCache;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.NetworkPolicy;
+import com.fnphoto.tv.player.VideoCache;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 订阅 NAS 的 WebSocket 通知，把文件和图库的变化转换为精确的本地失效：
+ * 受影响的日期、文件夹列表和图片缓存，界面只刷新相关的部分，不需要定期全量拉取。
+ *
+ * 通知格式没有文档，这里按通用 JSON 处理：在消息中查找文件路径、媒体 id 和日期字段，
+ * 找不到具体对象但看起来是文件/图库变化的消息只标记时间线需要核对。
+ * 短时间内的多条通知（例如批量上传）合并后处理一次。
+ *
+ * 必须在主线程调用。
+ */
+public class LibraryChangeMonitor {
+    private static final String TAG = "LibraryChangeMonitor";
+    private static final long COALESCE_DELAY_MS = 1500;     // 合并通知的等待时间
+    private static final long MIN_RECONNECT_DELAY_MS = 2000;
+    private static final long MAX_RECONNECT_DELAY_MS = 60000;
+
+    private static final Set<String> PATH_KEYS = keys("path", "filePath", "file_path", "fullPath",
+            "folderPath", "dir", "src", "dst", "oldPath", "newPath", "from", "to");
+    private static final Set<String> ID_KEYS = keys("photoId", "mediaId", "fileId", "photo_id", "media_id");
+    private static final Set<String> ID_LIST_KEYS = keys("ids", "photoIds", "mediaIds", "fileIds");
+    private static final Set<String> DATE_KEYS = keys("dateTime", "photoDateTime", "date", "day");
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{4})[-:/](\\d{2})[-:/](\\d{2})");
+    private static final Pattern CHANGE_WORDS = Pattern.compile(
+            "file|photo|gallery|album|library|upload|delete|remove|create|add|modify|update|move|rename|change|scan|index",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 合并后的一批变化
+     */
+    public static class Changes {
+        public final Set<String> days;       // 需要重新加载的日期（yyyy-MM-dd）
+        public final Set<String> folders;    // 需要重新加载的文件夹路径
+        public final boolean timelineStale;  // 时间线需要与服务端核对
+
+        Changes(Set<String> days, Set<String> folders, boolean timelineStale) {
+            this.days = Collections.unmodifiableSet(days);
+            this.folders = Collections.unmodifiableSet(folders);
+            this.timelineStale = timelineStale;
+        }
+    }
+
+    public interface Listener {
+        void onLibraryChanged(Changes changes);
+    }
+
+    private static LibraryChangeMonitor instance;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private FnWebSocketManager socketManager;
+    private String baseUrl;
+    private String token;
+    private long reconnectDelay = MIN_RECONNECT_DELAY_MS;
+
+    // 等待合并处理的变化
+    private final Set<Integer> pendingIds = new HashSet<>();
+    private final Set<String> pendingPaths = new HashSet<>();
+    private final Set<String> pendingDays = new HashSet<>();
+    private boolean pendingTimeline = false;
+    private final Runnable flushRunnable = this::flush;
+
+    public static synchronized LibraryChangeMonitor getInstance(Context context) {
+        if (instance == null) {
+            instance = new LibraryChangeMonitor(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LibraryChangeMonitor(Context context) {
+        this.appContext = context;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 登录后开始订阅（重复调用时使用新的凭据重连）
+     */
+    public void start(String baseUrl, String token) {
+        stop();
+        this.baseUrl = baseUrl;
+        this.token = token;
+        reconnectDelay = MIN_RECONNECT_DELAY_MS;
+        connect();
+    }
+
+    public void stop() {
+        mainHandler.removeCallbacksAndMessages(null);
+        if (socketManager != null) {
+            socketManager.disconnect();
+            socketManager = null;
+        }
+        clearPending();
+    }
+
+    private void connect() {
+        if (baseUrl == null || baseUrl.isEmpty() || token == null || token.isEmpty()) {
+            return;
+        }
+        try {
+            final FnWebSocketManager manager = new FnWebSocketManager();
+            socketManager = manager;
+            manager.connect(baseUrl, token, new FnWebSocketManager.WsCallback() {
+                @Override
+                public void onOpen(String type) {
+                    mainHandler.post(() -> {
+                        if (manager == socketManager) {
+                            onConnected(type);
+                        }
+                    });
+                }
+
+                @Override
+                public void onMessage(String type, JSONObject data) {
+                    // 回调在 OkHttp 线程
+                    mainHandler.post(() -> {
+                        if (manager == socketManager) {
+                            reconnectDelay = MIN_RECONNECT_DELAY_MS;
+                            handleMessage(type, data);
+                        }
+                    });
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    mainHandler.post(() -> {
+                        if (manager == socketManager) {
+                            scheduleReconnect(t);
+                        }
+                    });
+                }
+
+                @Override
+                public void onClosed(String type, int code, String reason) {
+                    mainHandler.post(() -> {
+                        if (manager == socketManager) {
+                            scheduleReconnect(new IOException("Socket " + type + " closed by server: "
+                                    + code + " " + reason));
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to connect change notifications", e);
+            scheduleReconnect(e);
+        }
+    }
+
+    /**
+     * 连接建立：重置退避时间，断开期间标记的时间线核对现在执行
+     */
+    private void onConnected(String endpoint) {
+        Log.d(TAG, "Change notifications connected: " + endpoint);
+        reconnectDelay = MIN_RECONNECT_DELAY_MS;
+        if (pendingTimeline) {
+            mainHandler.removeCallbacks(flushRunnable);
+            mainHandler.post(flushRunnable);
+        }
+    }
+
+    private void scheduleReconnect(Throwable t) {
+        Log.w(TAG, "Change notifications disconnected, retry in " + reconnectDelay + "ms: " + t.getMessage());
+        if (socketManager != null) {
+            socketManager.disconnect();
+            socketManager = null;
+        }
+        // 断开期间可能错过通知，重连后核对一次时间线
+        pendingTimeline = true;
+        mainHandler.postDelayed(this::connect, reconnectDelay);
+        reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+    }
+
+    private void handleMessage(String endpoint, JSONObject message) {
+        String text = message.toString();
+        if (text.contains("heartbeat") || text.contains("\"pong\"")) {
+            return;
+        }
+
+        int before = pendingIds.size() + pendingPaths.size() + pendingDays.size();
+        collect(message, null);
+        boolean found = pendingIds.size() + pendingPaths.size() + pendingDays.size() > before;
+        boolean looksLikeChange = CHANGE_WORDS.matcher(describe(message)).find();
+        if (!found && !looksLikeChange) {
+            return;
+        }
+
+        AppMetrics.increment("library.change_events");
+        Log.d(TAG, "Change notification on " + endpoint + ": " + text);
+        // 文件增删都可能改变按天的数量，时间线核对只需要一次请求
+        pendingTimeline = true;
+        mainHandler.removeCallbacks(flushRunnable);
+        mainHandler.postDelayed(flushRunnable, COALESCE_DELAY_MS);
+    }
+
+    /**
+     * 递归查找消息中的路径、id 和日期
+     */
+    private void collect(Object value, String key) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String k = keys.next();
+                collect(object.opt(k), k);
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                Object item = array.opt(i);
+                if (key != null && ID_LIST_KEYS.contains(key) && item instanceof Number) {
+                    pendingIds.add(((Number) item).intValue());
+                } else {
+                    collect(item, key);
+                }
+            }
+        } else if (key != null && value instanceof String) {
+            String s = (String) value;
+            if (PATH_KEYS.contains(key) && s.startsWith("/")) {
+                pendingPaths.add(s);
+            } else if (DATE_KEYS.contains(key)) {
+                Matcher m = DATE_PATTERN.matcher(s);
+                if (m.find()) {
+                    pendingDays.add(m.group(1) + "-" + m.group(2) + "-" + m.group(3));
+                }
+            } else if (ID_KEYS.contains(key)) {
+                try {
+                    pendingIds.add(Integer.parseInt(s));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } else if (key != null && value instanceof Number && ID_KEYS.contains(key)) {
+            pendingIds.add(((Number) value).intValue());
+        }
+    }
+
+    /**
+     * 消息中表示类型的字段，用于判断是否是文件/图库变化
+     */
+    private static String describe(JSONObject message) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : new String[]{"type", "event", "action", "req", "notify", "cmd", "op"}) {
+            sb.append(message.optString(key)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private void flush() {
+        final Set<Integer> ids = new HashSet<>(pendingIds);
+        final Set<String> paths = new HashSet<>(pendingPaths);
+        final Set<String> days = new HashSet<>(pendingDays);
+        final boolean timelineStale = pendingTimeline;
+        clearPending();
+
+        final Set<String> folders = new HashSet<>();
+        for (String path : paths) {
+            // 路径可能是文件也可能是文件夹：两者以及上级文件夹的列表都失效
+            folders.add(path);
+            folders.add(parentOf(path));
+        }
+
+        LibraryStore store = LibraryStore.getInstance(appContext);
+        for (String day : days) {
+            store.invalidateDay(day);
+        }
+        for (String folder : folders) {
+            store.invalidateFolder(folder);
+        }
+        store.invalidateMedia(ids, paths, invalidation -> {
+            if (invalidation != null) {
+                days.addAll(invalidation.days);
+                folders.addAll(invalidation.folders);
+                invalidateImages(invalidation);
+            }
+            Log.d(TAG, "Invalidated " + days.size() + " days, " + folders.size() + " folders");
+            AppMetrics.add("library.invalidated_days", days.size());
+            AppMetrics.add("library.invalidated_folders", folders.size());
+
+            Changes changes = new Changes(days, folders, timelineStale);
+            for (Listener listener : listeners) {
+                listener.onLibraryChanged(changes);
+            }
+        });
+    }
+
+    /**
+     * 删除变化的媒体的图片缓存：接口返回的各尺寸缩略图和原图，以及文件夹浏览使用的流地址
+     */
+    private void invalidateImages(LibraryStore.Invalidation invalidation) {
+        ImageCacheManager cache = ImageCacheManager.getInstance(appContext);
+        OriginalFileCache originals = OriginalFileCache.getInstance(appContext);
+        for (String url : invalidation.thumbnailUrls) {
+            String absolute = url.startsWith("http") ? url : baseUrl + url;
+            cache.invalidate(absolute);
+            originals.invalidate(absolute);
+        }
+        for (Map.Entry<Integer, String> entry : invalidation.photoUuids.entrySet()) {
+            if (entry.getValue() == null) continue;
+            for (NetworkPolicy.ThumbnailTier tier : NetworkPolicy.ThumbnailTier.values()) {
+                cache.invalidate(baseUrl + "/p/api/v1/stream/p/t/" + entry.getKey() + "/"
+                        + tier.getPath() + "/" + entry.getValue());
+            }
+            cache.invalidate(baseUrl + "/p/api/v1/stream/p/t/" + entry.getKey() + "/o/" + entry.getValue());
+        }
+        // 视频流缓存按 id 删除（照片没有缓存，删除是空操作）
+        VideoCache videos = VideoCache.getInstance(appContext);
+        for (Integer id : invalidation.photoUuids.keySet()) {
+            videos.invalidate(String.valueOf(id));
+        }
+        AppMetrics.add("library.invalidated_media", invalidation.photoUuids.size());
+    }
+
+    private void clearPending() {
+        pendingIds.clear();
+        pendingPaths.clear();
+        pendingDays.clear();
+        pendingTimeline = false;
+    }
+
+    private static String parentOf(String path) {
+        String trimmed = path.endsWith("/") && path.length() > 1 ? path.substring(0, path.length() - 1) : path;
+        int slash = trimmed.lastIndexOf('/');
+        return slash > 0 ? trimmed.substring(0, slash) : "/";
+    }
+
+    private static Set<String> keys(String... keys) {
+        Set<String> set = new HashSet<>();
+        Collections.addAll(set, keys);
+        return set;
+    }
+}
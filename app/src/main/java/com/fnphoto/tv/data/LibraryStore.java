@@ -0,0 +1,627 @@
+package com.fnphoto.tv.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地媒体库元数据存储（SQLite）
+ * 保存时间线、按天的照片列表和文件夹内容，页面打开时先从本地读取，网络只用于核对和补齐。
+ *
+ * 同步是增量的：时间线返回后逐天比较 itemCount，数量变化的日期才丢弃本地列表重新拉取；
+ * 文件夹比较总数和第一页的 id/dateTime。
+ *
+ * 读写都在单独的线程执行，回调在主线程。
+ */
+public class LibraryStore extends SQLiteOpenHelper {
+    private static final String TAG = "LibraryStore";
+    private static final String DB_NAME = "library.db";
+    private static final int DB_VERSION = 2;
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * 本地缓存的文件夹内容
+     */
+    public static class FolderSnapshot {
+        public final List<FnHttpApi.SubFolderItem> subFolders;
+        public final FolderMediaStore files;
+        public final int total;  // 上次同步时服务端返回的文件总数，-1 表示未知
+
+        FolderSnapshot(List<FnHttpApi.SubFolderItem> subFolders, FolderMediaStore files, int total) {
+            this.subFolders = subFolders;
+            this.files = files;
+            this.total = total;
+        }
+
+        public boolean isEmpty() {
+            return subFolders.isEmpty() && files.isEmpty();
+        }
+    }
+
+    /**
+     * 一次失效操作影响的范围
+     */
+    public static class Invalidation {
+        public final Set<String> days = new HashSet<>();
+        public final Set<String> folders = new HashSet<>();
+        public final Set<String> thumbnailUrls = new HashSet<>(); // 相对地址，与接口返回的一致
+        public final Map<Integer, String> photoUuids = new HashMap<>(); // 媒体 id -> photoUUID，用于拼接流地址
+
+        public boolean isEmpty() {
+            return days.isEmpty() && folders.isEmpty() && photoUuids.isEmpty();
+        }
+    }
+
+    private static LibraryStore instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized LibraryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LibraryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LibraryStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE media ("
+                + "id INTEGER PRIMARY KEY, photo_uuid TEXT, file_hash TEXT, file_name TEXT, file_type TEXT, "
+                + "category TEXT, date_time TEXT, photo_date_time TEXT, width INTEGER, height INTEGER, "
+                + "file_size INTEGER, duration INTEGER, file_path TEXT, "
+                + "thumb_xxs TEXT, thumb_xs TEXT, thumb_s TEXT, thumb_m TEXT, thumb_original TEXT)");
+        // cached_count: 本地列表对应的 itemCount，与 item_count 不一致时列表作废
+        db.execSQL("CREATE TABLE days ("
+                + "day TEXT PRIMARY KEY, sort_order INTEGER, year INTEGER, month INTEGER, dom INTEGER, "
+                + "item_count INTEGER, preview_thumbs TEXT, cached_count INTEGER DEFAULT -1)");
+        db.execSQL("CREATE TABLE day_entries ("
+                + "day TEXT, position INTEGER, media_id INTEGER, PRIMARY KEY (day, position))");
+        db.execSQL("CREATE TABLE folders (path TEXT PRIMARY KEY, total INTEGER, synced_at INTEGER)");
+        db.execSQL("CREATE TABLE folder_entries ("
+                + "folder_path TEXT, position INTEGER, media_id INTEGER, PRIMARY KEY (folder_path, position))");
+        db.execSQL("CREATE TABLE sub_folders ("
+                + "parent_path TEXT, position INTEGER, name TEXT, path TEXT, PRIMARY KEY (parent_path, position))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 只是缓存，升级时直接重建
+        for (String table : new String[]{"media", "days", "day_entries", "folders", "folder_entries", "sub_folders"}) {
+            db.execSQL("DROP TABLE IF EXISTS " + table);
+        }
+        onCreate(db);
+    }
+
+    // ==================== 时间线 ====================
+
+    /**
+     * 读取本地时间线，没有时返回空列表
+     */
+    public void loadTimeline(Callback<List<FnHttpApi.TimelineItem>> callback) {
+        runAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            List<FnHttpApi.TimelineItem> items = new ArrayList<>();
+            try (Cursor c = getReadableDatabase().rawQuery(
+                    "SELECT year, month, dom, item_count, preview_thumbs FROM days ORDER BY sort_order", null)) {
+                while (c.moveToNext()) {
+                    FnHttpApi.TimelineItem item = new FnHttpApi.TimelineItem();
+                    item.year = c.getInt(0);
+                    item.month = c.getInt(1);
+                    item.day = c.getInt(2);
+                    item.itemCount = c.getInt(3);
+                    item.previewThumbs = splitLines(c.getString(4));
+                    items.add(item);
+                }
+            }
+            AppMetrics.recordTiming("library.load_timeline", SystemClock.elapsedRealtime() - start);
+            return items;
+        }, callback);
+    }
+
+    /**
+     * 保存服务端返回的时间线，并作废数量发生变化的日期
+     * @param callback 返回需要重新加载的日期（新增、数量变化或已删除），可为 null
+     */
+    public void saveTimeline(List<FnHttpApi.TimelineItem> items, Callback<List<String>> callback) {
+        final List<FnHttpApi.TimelineItem> snapshot = new ArrayList<>(items);
+        runAsync(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            List<String> changed = new ArrayList<>();
+            db.beginTransaction();
+            try {
+                Map<String, Integer> existing = new HashMap<>();
+                try (Cursor c = db.rawQuery("SELECT day, item_count FROM days", null)) {
+                    while (c.moveToNext()) {
+                        existing.put(c.getString(0), c.getInt(1));
+                    }
+                }
+
+                for (int i = 0; i < snapshot.size(); i++) {
+                    FnHttpApi.TimelineItem item = snapshot.get(i);
+                    String day = toDateStr(item);
+                    Integer oldCount = existing.remove(day);
+
+                    ContentValues values = new ContentValues();
+                    values.put("sort_order", i);
+                    values.put("year", item.year);
+                    values.put("month", item.month);
+                    values.put("dom", item.day);
+                    values.put("item_count", item.itemCount);
+                    values.put("preview_thumbs", joinLines(item.previewThumbs));
+
+                    if (oldCount == null) {
+                        values.put("day", day);
+                        db.insert("days", null, values);
+                        changed.add(day);
+                    } else {
+                        db.update("days", values, "day = ?", new String[]{day});
+                        if (oldCount != item.itemCount) {
+                            invalidateDay(db, day);
+                            changed.add(day);
+                        }
+                    }
+                }
+
+                // 服务端已不存在的日期
+                for (String day : existing.keySet()) {
+                    invalidateDay(db, day);
+                    db.delete("days", "day = ?", new String[]{day});
+                    changed.add(day);
+                }
+                pruneMedia(db);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (!changed.isEmpty()) {
+                Log.d(TAG, "Timeline synced, " + changed.size() + " days changed");
+            }
+            return changed;
+        }, callback);
+    }
+
+    // ==================== 按天的照片列表 ====================
+
+    /**
+     * 读取某天本地已缓存的照片（从头开始连续的部分）
+     * @param itemCount 时间线中该天的数量，与缓存时不一致则视为没有缓存
+     */
+    public void loadDay(String dateStr, int itemCount, Callback<List<FnHttpApi.GalleryPhoto>> callback) {
+        runAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            List<FnHttpApi.GalleryPhoto> photos = new ArrayList<>();
+            SQLiteDatabase db = getReadableDatabase();
+            if (getCachedCount(db, dateStr) != itemCount) {
+                return photos;
+            }
+            try (Cursor c = db.rawQuery("SELECT e.position, " + MEDIA_COLUMNS
+                    + " FROM day_entries e JOIN media m ON m.id = e.media_id"
+                    + " WHERE e.day = ? ORDER BY e.position", new String[]{dateStr})) {
+                while (c.moveToNext()) {
+                    if (c.getInt(0) != photos.size()) break; // 中间有缺页，只取连续部分
+                    photos.add(readGalleryPhoto(c, 1));
+                }
+            }
+            AppMetrics.recordTiming("library.load_day", SystemClock.elapsedRealtime() - start);
+            return photos;
+        }, callback);
+    }
+
+    /**
+     * 保存某天的一页照片
+     * @param itemCount 请求时该天的数量，与已缓存的数量不一致时先清空旧列表
+     */
+    public void saveDayPage(String dateStr, int itemCount, int offset, List<FnHttpApi.GalleryPhoto> page) {
+        final List<FnHttpApi.GalleryPhoto> snapshot = new ArrayList<>(page);
+        executor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                if (getCachedCount(db, dateStr) != itemCount) {
+                    db.delete("day_entries", "day = ?", new String[]{dateStr});
+                    ContentValues dayValues = new ContentValues();
+                    dayValues.put("cached_count", itemCount);
+                    if (db.update("days", dayValues, "day = ?", new String[]{dateStr}) == 0) {
+                        // 时间线中没有该天，不缓存
+                        return;
+                    }
+                }
+                for (int i = 0; i < snapshot.size(); i++) {
+                    FnHttpApi.GalleryPhoto photo = snapshot.get(i);
+                    upsertMedia(db, toValues(photo), photo.id);
+                    ContentValues entry = new ContentValues();
+                    entry.put("day", dateStr);
+                    entry.put("position", offset + i);
+                    entry.put("media_id", photo.id);
+                    db.insertWithOnConflict("day_entries", null, entry, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving day page " + dateStr + "@" + offset, e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * 作废某天的本地列表，下次打开时重新从网络加载
+     */
+    public void invalidateDay(String dateStr) {
+        executor.execute(() -> invalidateDay(getWritableDatabase(), dateStr));
+    }
+
+    // ==================== 文件夹 ====================
+
+    public void loadFolder(String folderPath, Callback<FolderSnapshot> callback) {
+        runAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            SQLiteDatabase db = getReadableDatabase();
+            List<FnHttpApi.SubFolderItem> subFolders = new ArrayList<>();
+            try (Cursor c = db.rawQuery("SELECT name, path FROM sub_folders WHERE parent_path = ? ORDER BY position",
+                    new String[]{folderPath})) {
+                while (c.moveToNext()) {
+                    FnHttpApi.SubFolderItem item = new FnHttpApi.SubFolderItem();
+                    item.name = c.getString(0);
+                    item.path = c.getString(1);
+                    subFolders.add(item);
+                }
+            }
+
+            FolderMediaStore files = new FolderMediaStore();
+            try (Cursor c = db.rawQuery("SELECT e.position, " + MEDIA_COLUMNS
+                    + " FROM folder_entries e JOIN media m ON m.id = e.media_id"
+                    + " WHERE e.folder_path = ? ORDER BY e.position", new String[]{folderPath})) {
+                while (c.moveToNext()) {
+                    if (c.getInt(0) != files.size()) break;
+                    files.add(readFolderMediaItem(c, 1));
+                }
+            }
+
+            int total = -1;
+            try (Cursor c = db.rawQuery("SELECT total FROM folders WHERE path = ?", new String[]{folderPath})) {
+                if (c.moveToFirst()) {
+                    total = c.getInt(0);
+                }
+            }
+            AppMetrics.recordTiming("library.load_folder", SystemClock.elapsedRealtime() - start);
+            return new FolderSnapshot(subFolders, files, total);
+        }, callback);
+    }
+
+    public void saveSubFolders(String folderPath, List<FnHttpApi.SubFolderItem> subFolders) {
+        final List<FnHttpApi.SubFolderItem> snapshot = new ArrayList<>(subFolders);
+        executor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete("sub_folders", "parent_path = ?", new String[]{folderPath});
+                for (int i = 0; i < snapshot.size(); i++) {
+                    ContentValues values = new ContentValues();
+                    values.put("parent_path", folderPath);
+                    values.put("position", i);
+                    values.put("name", snapshot.get(i).name);
+                    values.put("path", snapshot.get(i).path);
+                    db.insert("sub_folders", null, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * 保存文件夹的一页文件
+     * @param replace 为 true 时先清空该文件夹的旧列表（内容已变化）
+     */
+    public void saveFolderPage(String folderPath, int offset, List<FnHttpApi.FolderMediaItem> page,
+                               int total, boolean replace) {
+        final List<FnHttpApi.FolderMediaItem> snapshot = new ArrayList<>(page);
+        executor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                if (replace) {
+                    db.delete("folder_entries", "folder_path = ?", new String[]{folderPath});
+                }
+                ContentValues folder = new ContentValues();
+                folder.put("path", folderPath);
+                folder.put("total", total);
+                folder.put("synced_at", System.currentTimeMillis());
+                db.insertWithOnConflict("folders", null, folder, SQLiteDatabase.CONFLICT_REPLACE);
+
+                for (int i = 0; i < snapshot.size(); i++) {
+                    FnHttpApi.FolderMediaItem item = snapshot.get(i);
+                    upsertMedia(db, toValues(item), item.id);
+                    ContentValues entry = new ContentValues();
+                    entry.put("folder_path", folderPath);
+                    entry.put("position", offset + i);
+                    entry.put("media_id", item.id);
+                    db.insertWithOnConflict("folder_entries", null, entry, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving folder page " + folderPath + "@" + offset, e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * 作废文件夹的本地内容（子文件夹和文件列表）
+     */
+    public void invalidateFolder(String folderPath) {
+        executor.execute(() -> invalidateFolder(getWritableDatabase(), folderPath));
+    }
+
+    /**
+     * 按媒体 id 或文件路径作废本地数据：包含这些媒体的日期和文件夹列表，以及媒体本身
+     * @param callback 返回受影响的范围，用于继续清理图片缓存和刷新界面
+     */
+    public void invalidateMedia(Collection<Integer> ids, Collection<String> filePaths,
+                                Callback<Invalidation> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        final List<String> pathList = new ArrayList<>(filePaths);
+        runAsync(() -> {
+            Invalidation result = new Invalidation();
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                List<String[]> queries = new ArrayList<>();
+                for (Integer id : idList) {
+                    queries.add(new String[]{"m.id = ?", String.valueOf(id)});
+                }
+                for (String path : pathList) {
+                    queries.add(new String[]{"m.file_path = ?", path});
+                }
+                for (String[] query : queries) {
+                    try (Cursor c = db.rawQuery("SELECT m.id, m.photo_uuid, m.thumb_xxs, m.thumb_xs, m.thumb_s, m.thumb_m, m.thumb_original"
+                            + " FROM media m WHERE " + query[0], new String[]{query[1]})) {
+                        while (c.moveToNext()) {
+                            result.photoUuids.put(c.getInt(0), c.getString(1));
+                            for (int i = 2; i <= 6; i++) {
+                                if (!c.isNull(i)) result.thumbnailUrls.add(c.getString(i));
+                            }
+                        }
+                    }
+                }
+
+                for (Integer id : result.photoUuids.keySet()) {
+                    String[] args = {String.valueOf(id)};
+                    try (Cursor c = db.rawQuery("SELECT DISTINCT day FROM day_entries WHERE media_id = ?", args)) {
+                        while (c.moveToNext()) result.days.add(c.getString(0));
+                    }
+                    try (Cursor c = db.rawQuery("SELECT DISTINCT folder_path FROM folder_entries WHERE media_id = ?", args)) {
+                        while (c.moveToNext()) result.folders.add(c.getString(0));
+                    }
+                }
+                for (String day : result.days) {
+                    invalidateDay(db, day);
+                }
+                for (String folder : result.folders) {
+                    invalidateFolder(db, folder);
+                }
+                for (Integer id : result.photoUuids.keySet()) {
+                    db.delete("media", "id = ?", new String[]{String.valueOf(id)});
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return result;
+        }, callback);
+    }
+
+    /**
+     * 清空所有本地数据（退出登录时）
+     */
+    public void clear() {
+        executor.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            for (String table : new String[]{"media", "days", "day_entries", "folders", "folder_entries", "sub_folders"}) {
+                db.delete(table, null, null);
+            }
+        });
+    }
+
+    // ==================== 内部实现 ====================
+
+    private static final String MEDIA_COLUMNS = "m.id, m.photo_uuid, m.file_hash, m.file_name, m.file_type, "
+            + "m.category, m.date_time, m.photo_date_time, m.width, m.height, m.file_size, m.duration, m.file_path, "
+            + "m.thumb_xxs, m.thumb_xs, m.thumb_s, m.thumb_m, m.thumb_original";
+
+    private interface Query<T> {
+        T run();
+    }
+
+    private <T> void runAsync(Query<T> query, Callback<T> callback) {
+        executor.execute(() -> {
+            T result;
+            try {
+                result = query.run();
+            } catch (Exception e) {
+                Log.e(TAG, "Library query failed", e);
+                result = null;
+            }
+            if (callback != null) {
+                final T finalResult = result;
+                mainHandler.post(() -> callback.onResult(finalResult));
+            }
+        });
+    }
+
+    private static int getCachedCount(SQLiteDatabase db, String dateStr) {
+        try (Cursor c = db.rawQuery("SELECT cached_count FROM days WHERE day = ?", new String[]{dateStr})) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+
+    private static void invalidateDay(SQLiteDatabase db, String dateStr) {
+        db.delete("day_entries", "day = ?", new String[]{dateStr});
+        ContentValues values = new ContentValues();
+        values.put("cached_count", -1);
+        db.update("days", values, "day = ?", new String[]{dateStr});
+    }
+
+    private static void invalidateFolder(SQLiteDatabase db, String folderPath) {
+        String[] args = {folderPath};
+        db.delete("folder_entries", "folder_path = ?", args);
+        db.delete("sub_folders", "parent_path = ?", args);
+        db.delete("folders", "path = ?", args);
+    }
+
+    /**
+     * 删除不再被任何日期或文件夹引用的媒体
+     */
+    private static void pruneMedia(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM media WHERE id NOT IN (SELECT media_id FROM day_entries)"
+                + " AND id NOT IN (SELECT media_id FROM folder_entries)");
+    }
+
+    /**
+     * 更新已有的媒体（只覆盖非空字段，保留其他接口提供的字段），不存在时插入
+     */
+    private static void upsertMedia(SQLiteDatabase db, ContentValues values, int id) {
+        if (db.update("media", values, "id = ?", new String[]{String.valueOf(id)}) == 0) {
+            values.put("id", id);
+            db.insert("media", null, values);
+        }
+    }
+
+    private static ContentValues toValues(FnHttpApi.GalleryPhoto photo) {
+        ContentValues values = new ContentValues();
+        putIfNotNull(values, "photo_uuid", photo.photoUUID);
+        putIfNotNull(values, "file_name", photo.fileName);
+        putIfNotNull(values, "file_type", photo.fileType);
+        putIfNotNull(values, "category", photo.category);
+        putIfNotNull(values, "date_time", photo.dateTime);
+        putIfNotNull(values, "photo_date_time", photo.photoDateTime);
+        putIfNotNull(values, "file_path", photo.filePath);
+        values.put("width", photo.width);
+        values.put("height", photo.height);
+        values.put("file_size", photo.fileSize);
+        if (photo.additional != null && photo.additional.thumbnail != null) {
+            FnHttpApi.GalleryThumbnail thumbnail = photo.additional.thumbnail;
+            putIfNotNull(values, "thumb_xxs", thumbnail.xxsUrl);
+            putIfNotNull(values, "thumb_xs", thumbnail.xsUrl);
+            putIfNotNull(values, "thumb_s", thumbnail.sUrl);
+            putIfNotNull(values, "thumb_m", thumbnail.mUrl);
+            putIfNotNull(values, "thumb_original", thumbnail.originalUrl);
+        }
+        return values;
+    }
+
+    private static ContentValues toValues(FnHttpApi.FolderMediaItem item) {
+        ContentValues values = new ContentValues();
+        putIfNotNull(values, "photo_uuid", item.photoUUID);
+        putIfNotNull(values, "file_hash", item.fileHash);
+        putIfNotNull(values, "file_name", item.fileName);
+        putIfNotNull(values, "file_type", item.fileType);
+        putIfNotNull(values, "category", item.category);
+        putIfNotNull(values, "date_time", item.dateTime);
+        putIfNotNull(values, "photo_date_time", item.photoDateTime);
+        putIfNotNull(values, "file_path", item.filePath);
+        values.put("width", item.width);
+        values.put("height", item.height);
+        values.put("file_size", item.fileSize);
+        values.put("duration", item.mediaDuration);
+        return values;
+    }
+
+    private static void putIfNotNull(ContentValues values, String key, String value) {
+        if (value != null) {
+            values.put(key, value);
+        }
+    }
+
+    private static FnHttpApi.GalleryPhoto readGalleryPhoto(Cursor c, int i) {
+        FnHttpApi.GalleryPhoto photo = new FnHttpApi.GalleryPhoto();
+        photo.id = c.getInt(i);
+        photo.photoUUID = c.getString(i + 1);
+        photo.fileName = c.getString(i + 3);
+        photo.fileType = c.getString(i + 4);
+        photo.category = c.getString(i + 5);
+        photo.dateTime = c.getString(i + 6);
+        photo.photoDateTime = c.getString(i + 7);
+        photo.width = c.getInt(i + 8);
+        photo.height = c.getInt(i + 9);
+        photo.fileSize = c.getLong(i + 10);
+        photo.filePath = c.getString(i + 12);
+
+        FnHttpApi.GalleryThumbnail thumbnail = new FnHttpApi.GalleryThumbnail();
+        thumbnail.xxsUrl = c.getString(i + 13);
+        thumbnail.xsUrl = c.getString(i + 14);
+        thumbnail.sUrl = c.getString(i + 15);
+        thumbnail.mUrl = c.getString(i + 16);
+        thumbnail.originalUrl = c.getString(i + 17);
+        photo.additional = new FnHttpApi.GalleryPhotoAdditional();
+        photo.additional.thumbnail = thumbnail;
+        return photo;
+    }
+
+    private static FnHttpApi.FolderMediaItem readFolderMediaItem(Cursor c, int i) {
+        FnHttpApi.FolderMediaItem item = new FnHttpApi.FolderMediaItem();
+        item.id = c.getInt(i);
+        item.photoUUID = c.getString(i + 1);
+        item.fileHash = c.getString(i + 2);
+        item.fileName = c.getString(i + 3);
+        item.fileType = c.getString(i + 4);
+        item.category = c.getString(i + 5);
+        item.dateTime = c.getString(i + 6);
+        item.photoDateTime = c.getString(i + 7);
+        item.width = c.getInt(i + 8);
+        item.height = c.getInt(i + 9);
+        item.fileSize = c.getLong(i + 10);
+        item.mediaDuration = c.getInt(i + 11);
+        item.filePath = c.getString(i + 12);
+        return item;
+    }
+
+    public static String toDateStr(FnHttpApi.TimelineItem item) {
+        // 时间线可能有上千天，不使用 String.format
+        StringBuilder sb = new StringBuilder(10).append(item.year).append('-');
+        if (item.month < 10) sb.append('0');
+        sb.append(item.month).append('-');
+        if (item.day < 10) sb.append('0');
+        return sb.append(item.day).toString();
+    }
+
+    private static String joinLines(List<String> values) {
+        return values == null || values.isEmpty() ? null : TextUtils.join("\n", values);
+    }
+
+    private static List<String> splitLines(String value) {
+        return value == null || value.isEmpty() ? null : new ArrayList<>(Arrays.asList(value.split("\n")));
+    }
+}
@@ -0,0 +1,163 @@
+package com.fnphoto.tv.data;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.fnphoto.tv.MediaItem;
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.api.FnSession;
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 在页面之间传递媒体列表：列表保存在进程内，Intent 只携带会话 id、当前项和列表的来源。
+ * 上千项的列表序列化到 Intent 既慢，又可能超过 Binder 的 1MB 限制。
+ *
+ * 进程被回收后会话丢失，打开的页面按来源（某天或某个文件夹）从本地元数据库重建列表，
+ * 并按当前项的 id 重新定位。没有来源的列表无法重建。
+ *
+ * 只保留最近的几个会话，页面自己持有列表，会话只在页面重建时使用。必须在主线程调用。
+ */
+public final class MediaSessionRepository {
+    private static final String TAG = "MediaSessionRepository";
+    private static final int MAX_SESSIONS = 4;
+
+    public static final String EXTRA_SESSION_ID = "SESSION_ID";
+    public static final String EXTRA_CURRENT_INDEX = "CURRENT_INDEX";
+    public static final String EXTRA_CURRENT_ID = "CURRENT_ID";
+    // 列表来源，用于重建；按天的来源同时用于详情页继续分页
+    public static final String EXTRA_DATE_STR = "DATE_STR";
+    public static final String EXTRA_TOTAL_COUNT = "TOTAL_COUNT";
+    public static final String EXTRA_FOLDER_PATH = "FOLDER_PATH";
+
+    private static MediaSessionRepository instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, List<MediaItem>> sessions =
+            new LinkedHashMap<String, List<MediaItem>>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<MediaItem>> eldest) {
+                    return size() > MAX_SESSIONS;
+                }
+            };
+
+    public static synchronized MediaSessionRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new MediaSessionRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private MediaSessionRepository(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * 保存列表并把会话 id 和当前项写入 Intent。列表不复制，调用方之后还会修改的列表需要自己复制。
+     * 列表来源由调用方另外写入（{@link #EXTRA_DATE_STR}、{@link #EXTRA_FOLDER_PATH}）。
+     */
+    public void attach(Intent intent, List<MediaItem> items, int index) {
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, items);
+        intent.putExtra(EXTRA_SESSION_ID, id);
+        intent.putExtra(EXTRA_CURRENT_INDEX, index);
+        if (index >= 0 && index < items.size()) {
+            intent.putExtra(EXTRA_CURRENT_ID, items.get(index).getId());
+        }
+    }
+
+    /**
+     * 取回 Intent 对应的列表。会话不在内存中时从本地元数据库重建，无法重建时回调 null。
+     * 回调总在主线程，会话存在时立即回调。
+     */
+    public void restore(Intent intent, LibraryStore.Callback<List<MediaItem>> callback) {
+        String id = intent.getStringExtra(EXTRA_SESSION_ID);
+        List<MediaItem> items = id != null ? sessions.get(id) : null;
+        if (items != null) {
+            AppMetrics.increment("session.hit");
+            callback.onResult(items);
+            return;
+        }
+
+        String baseUrl = FnSession.getInstance(context).getBaseUrl();
+        String dateStr = intent.getStringExtra(EXTRA_DATE_STR);
+        String folderPath = intent.getStringExtra(EXTRA_FOLDER_PATH);
+        LibraryStore store = LibraryStore.getInstance(context);
+        if (dateStr != null) {
+            int totalCount = intent.getIntExtra(EXTRA_TOTAL_COUNT, 0);
+            store.loadDay(dateStr, totalCount, photos -> {
+                List<MediaItem> rebuilt = new ArrayList<>();
+                if (photos != null) {
+                    for (FnHttpApi.GalleryPhoto photo : photos) {
+                        rebuilt.add(DayPhotoPager.toMediaItem(photo, baseUrl));
+                    }
+                }
+                onRebuilt(id, "day " + dateStr, rebuilt, callback);
+            });
+        } else if (folderPath != null) {
+            store.loadFolder(folderPath, snapshot -> {
+                List<MediaItem> rebuilt = snapshot != null
+                        ? snapshot.files.asMediaList(baseUrl) : new ArrayList<>();
+                onRebuilt(id, "folder " + folderPath, rebuilt, callback);
+            });
+        } else {
+            Log.w(TAG, "Session " + id + " lost and has no source to rebuild from");
+            AppMetrics.increment("session.lost");
+            mainHandler.post(() -> callback.onResult(null));
+        }
+    }
+
+    private void onRebuilt(String id, String source, List<MediaItem> items,
+                           LibraryStore.Callback<List<MediaItem>> callback) {
+        if (items.isEmpty()) {
+            Log.w(TAG, "Nothing cached for " + source + ", session " + id + " lost");
+            AppMetrics.increment("session.lost");
+            callback.onResult(null);
+            return;
+        }
+        Log.d(TAG, "Rebuilt session " + id + " from " + source + ": " + items.size() + " items");
+        AppMetrics.increment("session.rebuilt");
+        if (id != null) {
+            sessions.put(id, items);
+        }
+        callback.onResult(items);
+    }
+
+    /**
+     * 页面结束时释放会话
+     */
+    public void release(Intent intent) {
+        String id = intent.getStringExtra(EXTRA_SESSION_ID);
+        if (id != null) {
+            sessions.remove(id);
+        }
+    }
+
+    /**
+     * 当前项在列表中的位置：优先按 id 查找（重建的列表可能与原列表不同），找不到时使用原位置
+     */
+    public static int findCurrentIndex(Intent intent, List<MediaItem> items) {
+        String currentId = intent.getStringExtra(EXTRA_CURRENT_ID);
+        int index = intent.getIntExtra(EXTRA_CURRENT_INDEX, 0);
+        if (currentId != null) {
+            if (index >= 0 && index < items.size() && currentId.equals(items.get(index).getId())) {
+                return index;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (currentId.equals(items.get(i).getId())) {
+                    return i;
+                }
+            }
+        }
+        return Math.max(0, Math.min(index, items.size() - 1));
+    }
+}
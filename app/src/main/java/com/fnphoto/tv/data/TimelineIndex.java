@@ -0,0 +1,184 @@
+package com.fnphoto.tv.data;
+
+import com.fnphoto.tv.api.FnHttpApi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间线的索引模型：每天的年、月、日、数量以及所在的行（按月分行）和列保存在基本类型数组中，
+ * 日期到索引使用哈希表，焦点处理、预览回填和位置恢复都是常数时间。
+ *
+ * 创建后不可修改，可以在后台线程构建后交给主线程使用。
+ */
+public final class TimelineIndex {
+    private final int[] years;
+    private final int[] months;
+    private final int[] days;
+    private final int[] counts;
+    private final int[] rows;       // 所在行（月份）
+    private final int[] columns;    // 在行内的位置
+    private final int[] rowStarts;  // 每一行第一天的索引
+    private final int[] countSums;  // 数量的前缀和，countSums[i] 为前 i 天的总数
+    private final int[] yearRowStarts; // 按年聚合：每一年第一个月份行
+    private final int[] rowYears;      // 每一行所属的年份序号
+    private final String[] dateStrs;
+    private final Map<String, Integer> indexByDate;
+
+    public static final TimelineIndex EMPTY = new TimelineIndex(Collections.<FnHttpApi.TimelineItem>emptyList());
+
+    public TimelineIndex(List<FnHttpApi.TimelineItem> items) {
+        int size = items.size();
+        years = new int[size];
+        months = new int[size];
+        days = new int[size];
+        counts = new int[size];
+        rows = new int[size];
+        columns = new int[size];
+        dateStrs = new String[size];
+        countSums = new int[size + 1];
+        indexByDate = new HashMap<>(size * 2);
+
+        int[] starts = new int[size];
+        int rowCount = 0;
+        int row = -1;
+        int column = 0;
+        int currentYearMonth = -1;
+        for (int i = 0; i < size; i++) {
+            FnHttpApi.TimelineItem item = items.get(i);
+            int yearMonth = item.year * 100 + item.month;
+            if (yearMonth != currentYearMonth) {
+                currentYearMonth = yearMonth;
+                row++;
+                column = 0;
+                starts[rowCount++] = i;
+            }
+            years[i] = item.year;
+            months[i] = item.month;
+            days[i] = item.day;
+            counts[i] = item.itemCount;
+            countSums[i + 1] = countSums[i] + item.itemCount;
+            rows[i] = row;
+            columns[i] = column++;
+            dateStrs[i] = LibraryStore.toDateStr(item);
+            indexByDate.put(dateStrs[i], i);
+        }
+        rowStarts = new int[rowCount];
+        System.arraycopy(starts, 0, rowStarts, 0, rowCount);
+
+        // 月份行再按年聚合，用于按年月跳转
+        rowYears = new int[rowCount];
+        int[] yearStarts = new int[rowCount];
+        int yearCount = 0;
+        int currentYear = Integer.MIN_VALUE;
+        for (int r = 0; r < rowCount; r++) {
+            int year = years[rowStarts[r]];
+            if (year != currentYear) {
+                currentYear = year;
+                yearStarts[yearCount++] = r;
+            }
+            rowYears[r] = yearCount - 1;
+        }
+        yearRowStarts = new int[yearCount];
+        System.arraycopy(yearStarts, 0, yearRowStarts, 0, yearCount);
+    }
+
+    public int size() {
+        return years.length;
+    }
+
+    public int getRowCount() {
+        return rowStarts.length;
+    }
+
+    /**
+     * @return 日期（yyyy-MM-dd）的索引，不存在时返回 -1
+     */
+    public int indexOf(String dateStr) {
+        Integer index = dateStr != null ? indexByDate.get(dateStr) : null;
+        return index != null ? index : -1;
+    }
+
+    public int getYear(int index) { return years[index]; }
+    public int getMonth(int index) { return months[index]; }
+    public int getDay(int index) { return days[index]; }
+    public int getCount(int index) { return counts[index]; }
+    public int getRow(int index) { return rows[index]; }
+    public int getColumn(int index) { return columns[index]; }
+    public String getDateStr(int index) { return dateStrs[index]; }
+
+    /**
+     * 行的 id，与界面上月份行的 HeaderItem id 一致
+     */
+    public long getRowId(int row) {
+        int index = rowStarts[row];
+        return years[index] * 100L + months[index];
+    }
+
+    public int getRowYear(int row) {
+        return years[rowStarts[row]];
+    }
+
+    public int getRowMonth(int row) {
+        return months[rowStarts[row]];
+    }
+
+    /**
+     * 一个月份行内的照片总数
+     */
+    public int getRowPhotoCount(int row) {
+        int start = rowStarts[row];
+        return sumCounts(start, start + getRowSize(row) - 1);
+    }
+
+    public int getYearCount() {
+        return yearRowStarts.length;
+    }
+
+    /**
+     * @param yearIndex 年份序号（按时间线顺序）
+     */
+    public int getYearValue(int yearIndex) {
+        return getRowYear(yearRowStarts[yearIndex]);
+    }
+
+    public int getYearFirstRow(int yearIndex) {
+        return yearRowStarts[yearIndex];
+    }
+
+    public int getYearRowCount(int yearIndex) {
+        int end = yearIndex + 1 < yearRowStarts.length ? yearRowStarts[yearIndex + 1] : rowStarts.length;
+        return end - yearRowStarts[yearIndex];
+    }
+
+    public int getYearPhotoCount(int yearIndex) {
+        int firstRow = yearRowStarts[yearIndex];
+        int lastRow = firstRow + getYearRowCount(yearIndex) - 1;
+        return sumCounts(rowStarts[firstRow], rowStarts[lastRow] + getRowSize(lastRow) - 1);
+    }
+
+    /**
+     * 行所属的年份序号
+     */
+    public int getYearIndexOfRow(int row) {
+        return rowYears[row];
+    }
+
+    public int getRowStart(int row) {
+        return rowStarts[row];
+    }
+
+    public int getRowSize(int row) {
+        int end = row + 1 < rowStarts.length ? rowStarts[row + 1] : years.length;
+        return end - rowStarts[row];
+    }
+
+    /**
+     * 范围内的照片总数
+     */
+    public int sumCounts(int from, int toInclusive) {
+        return countSums[toInclusive + 1] - countSums[from];
+    }
+}
@@ -0,0 +1,137 @@
+package com.fnphoto.tv.metrics;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 应用内指标收集
+ * 计数器、耗时统计和瞬时值，全部在进程内存中，通过 dump()/logSnapshot() 输出
+ */
+public final class AppMetrics {
+    private static final String TAG = "AppMetrics";
+    private static final int TIMER_SAMPLES = 128; // 每个耗时统计保留的最近样本数，用于计算分位数
+
+    private static final Map<String, Long> counters = new TreeMap<>();
+    private static final Map<String, Long> gauges = new TreeMap<>();
+    private static final Map<String, Timer> timers = new TreeMap<>();
+
+    private AppMetrics() {}
+
+    /**
+     * 耗时统计：次数、总和、最大值以及最近样本的分位数
+     */
+    public static final class Timer {
+        private long count;
+        private long totalMs;
+        private long maxMs;
+        private final long[] samples = new long[TIMER_SAMPLES];
+        private int sampleIndex;
+
+        synchronized void record(long ms) {
+            count++;
+            totalMs += ms;
+            if (ms > maxMs) maxMs = ms;
+            samples[sampleIndex] = ms;
+            sampleIndex = (sampleIndex + 1) % TIMER_SAMPLES;
+        }
+
+        public synchronized long getCount() { return count; }
+        public synchronized long getMaxMs() { return maxMs; }
+        public synchronized long getMeanMs() { return count == 0 ? 0 : totalMs / count; }
+
+        /**
+         * 最近样本的分位数
+         * @param p 0~100
+         */
+        public synchronized long getPercentileMs(int p) {
+            int n = (int) Math.min(count, TIMER_SAMPLES);
+            if (n == 0) return 0;
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            int index = Math.min(n - 1, Math.max(0, (int) Math.ceil(p / 100.0 * n) - 1));
+            return sorted[index];
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count=" + count + ", mean=" + getMeanMs() + "ms, p50=" + getPercentileMs(50)
+                    + "ms, p95=" + getPercentileMs(95) + "ms, max=" + maxMs + "ms";
+        }
+    }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        synchronized (counters) {
+            Long current = counters.get(name);
+            counters.put(name, (current != null ? current : 0) + delta);
+        }
+    }
+
+    public static long getCounter(String name) {
+        synchronized (counters) {
+            Long value = counters.get(name);
+            return value != null ? value : 0;
+        }
+    }
+
+    public static void setGauge(String name, long value) {
+        synchronized (gauges) {
+            gauges.put(name, value);
+        }
+    }
+
+    public static long getGauge(String name) {
+        synchronized (gauges) {
+            Long value = gauges.get(name);
+            return value != null ? value : 0;
+        }
+    }
+
+    public static void recordTiming(String name, long millis) {
+        getTimer(name).record(millis);
+    }
+
+    public static Timer getTimer(String name) {
+        synchronized (timers) {
+            Timer timer = timers.get(name);
+            if (timer == null) {
+                timer = new Timer();
+                timers.put(name, timer);
+            }
+            return timer;
+        }
+    }
+
+    /**
+     * 输出所有指标的文本快照
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (counters) {
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                sb.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+            }
+        }
+        synchronized (gauges) {
+            for (Map.Entry<String, Long> entry : gauges.entrySet()) {
+                sb.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+            }
+        }
+        synchronized (timers) {
+            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+                sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void logSnapshot() {
+        Log.i(TAG, "========== Metrics ==========\n" + dump());
+    }
+}
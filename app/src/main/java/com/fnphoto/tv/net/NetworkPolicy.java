@@ -0,0 +1,149 @@
+package com.fnphoto.tv.net;
+
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnHttpApi;
+import com.fnphoto.tv.metrics.AppMetrics;
+
+/**
+ * 根据网络质量选择加载策略：缩略图尺寸、预取深度和并发请求数
+ * 局域网下使用大缩略图并多预取，远程中转或弱 Wi-Fi 下使用小缩略图并减少并发。
+ * 策略变化时立即调整 RequestScheduler 的并发数；缩略图尺寸对之后绑定的项生效。
+ *
+ * 必须在主线程使用。
+ */
+public final class NetworkPolicy implements NetworkQualityEstimator.Listener {
+    private static final String TAG = "NetworkPolicy";
+
+    /**
+     * 缩略图尺寸，按声明顺序从小到大。path 是流接口 URL 中的尺寸段
+     */
+    public enum ThumbnailTier {
+        XXS("xxs"),
+        XS("xs"),
+        S("s"),
+        M("m");
+
+        private final String path;
+
+        ThumbnailTier(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public ThumbnailTier larger() {
+            ThumbnailTier[] tiers = values();
+            return tiers[Math.min(ordinal() + 1, tiers.length - 1)];
+        }
+
+        public ThumbnailTier smaller() {
+            return values()[Math.max(ordinal() - 1, 0)];
+        }
+
+        /**
+         * 取该尺寸的缩略图地址，没有时依次退到更小、更大的尺寸
+         */
+        public String select(FnHttpApi.GalleryThumbnail thumbnail) {
+            if (thumbnail == null) return null;
+            for (int i = ordinal(); i >= 0; i--) {
+                String url = urlOf(thumbnail, values()[i]);
+                if (url != null) return url;
+            }
+            for (int i = ordinal() + 1; i < values().length; i++) {
+                String url = urlOf(thumbnail, values()[i]);
+                if (url != null) return url;
+            }
+            return null;
+        }
+
+        private static String urlOf(FnHttpApi.GalleryThumbnail thumbnail, ThumbnailTier tier) {
+            switch (tier) {
+                case XXS: return thumbnail.xxsUrl;
+                case XS: return thumbnail.xsUrl;
+                case S: return thumbnail.sUrl;
+                default: return thumbnail.mUrl;
+            }
+        }
+    }
+
+    private static NetworkPolicy instance;
+
+    private ThumbnailTier thumbnailTier;
+    private int prefetchDistance;   // 距离已加载末尾多少项时开始预取下一页
+    private int prefetchPages;      // 同时在途的预取页数
+    private int maxConcurrent;      // 同时执行的请求数
+
+    public static synchronized NetworkPolicy getInstance() {
+        if (instance == null) {
+            instance = new NetworkPolicy();
+            NetworkQualityEstimator estimator = NetworkQualityEstimator.getInstance();
+            estimator.addListener(instance);
+            instance.apply(estimator.getQuality());
+        }
+        return instance;
+    }
+
+    private NetworkPolicy() {}
+
+    public ThumbnailTier getThumbnailTier() {
+        return thumbnailTier;
+    }
+
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public void onQualityChanged(NetworkQualityEstimator.Quality quality) {
+        apply(quality);
+    }
+
+    private void apply(NetworkQualityEstimator.Quality quality) {
+        switch (quality) {
+            case EXCELLENT:
+                thumbnailTier = ThumbnailTier.M;
+                prefetchDistance = 40;
+                prefetchPages = 3;
+                maxConcurrent = 8;
+                break;
+            case MODERATE:
+                thumbnailTier = ThumbnailTier.XS;
+                prefetchDistance = 12;
+                prefetchPages = 1;
+                maxConcurrent = 4;
+                break;
+            case POOR:
+                thumbnailTier = ThumbnailTier.XXS;
+                prefetchDistance = 6;
+                prefetchPages = 1;
+                maxConcurrent = 2;
+                break;
+            case GOOD:
+            case UNKNOWN:
+            default:
+                // 尚无估计时保持原来的默认值
+                thumbnailTier = ThumbnailTier.S;
+                prefetchDistance = 20;
+                prefetchPages = 2;
+                maxConcurrent = 6;
+                break;
+        }
+
+        Log.d(TAG, "Network " + quality + ": tier=" + thumbnailTier.getPath() + ", prefetch="
+                + prefetchDistance + "/" + prefetchPages + " pages, concurrent=" + maxConcurrent);
+        AppMetrics.setGauge("policy.max_concurrent", maxConcurrent);
+        AppMetrics.setGauge("policy.thumbnail_tier", thumbnailTier.ordinal());
+        RequestScheduler.getInstance().setMaxConcurrent(maxConcurrent);
+    }
+}
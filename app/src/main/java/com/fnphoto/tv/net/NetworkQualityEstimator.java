@@ -0,0 +1,144 @@
+package com.fnphoto.tv.net;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 网络质量估计
+ * 由 OkHttp 事件（NetworkQualityEventListener）提供样本，对首字节时间和下载吞吐量做指数加权平均，
+ * 得出当前的网络质量等级。等级需要连续多个样本一致才会切换，避免来回抖动。
+ *
+ * 样本可能来自任意线程；质量变化的回调在主线程执行。
+ */
+public final class NetworkQualityEstimator {
+    private static final String TAG = "NetworkQuality";
+    private static final double ALPHA = 0.25;                 // 加权平均中新样本的权重
+    private static final long MIN_THROUGHPUT_BYTES = 16 * 1024; // 太小的响应无法反映带宽，不计入吞吐量
+    private static final long MIN_THROUGHPUT_NANOS = 1000000;   // 同上，传输时间不足 1ms 的样本忽略
+    private static final int STABLE_SAMPLES = 3;              // 新等级需要连续出现的样本数
+
+    /**
+     * 网络质量等级，按声明顺序从差到好
+     */
+    public enum Quality {
+        UNKNOWN,
+        POOR,       // 远程中转或很弱的 Wi-Fi
+        MODERATE,
+        GOOD,
+        EXCELLENT   // 局域网
+    }
+
+    public interface Listener {
+        void onQualityChanged(Quality quality);
+    }
+
+    private static NetworkQualityEstimator instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private double rttMs = -1;           // 首字节时间（请求发出到响应头开始），包含服务端处理时间
+    private double throughputKbps = -1;
+    private Quality quality = Quality.UNKNOWN;
+    private Quality candidate = Quality.UNKNOWN;
+    private int candidateCount = 0;
+
+    public static synchronized NetworkQualityEstimator getInstance() {
+        if (instance == null) {
+            instance = new NetworkQualityEstimator();
+        }
+        return instance;
+    }
+
+    private NetworkQualityEstimator() {}
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized Quality getQuality() {
+        return quality;
+    }
+
+    public synchronized long getRttMs() {
+        return Math.round(rttMs);
+    }
+
+    public synchronized long getThroughputKbps() {
+        return Math.round(throughputKbps);
+    }
+
+    synchronized void addRttSample(long nanos) {
+        double ms = nanos / 1e6;
+        rttMs = rttMs < 0 ? ms : rttMs + ALPHA * (ms - rttMs);
+        AppMetrics.setGauge("network.rtt_ms", Math.round(rttMs));
+        update();
+    }
+
+    synchronized void addThroughputSample(long bytes, long nanos) {
+        if (bytes < MIN_THROUGHPUT_BYTES || nanos < MIN_THROUGHPUT_NANOS) {
+            return;
+        }
+        double kbps = bytes * 8 / 1000.0 / (nanos / 1e9);
+        throughputKbps = throughputKbps < 0 ? kbps : throughputKbps + ALPHA * (kbps - throughputKbps);
+        AppMetrics.setGauge("network.throughput_kbps", Math.round(throughputKbps));
+        update();
+    }
+
+    synchronized void onCallFailed() {
+        AppMetrics.increment("network.failed_calls");
+    }
+
+    private Quality classify() {
+        if (rttMs < 0 && throughputKbps < 0) {
+            return Quality.UNKNOWN;
+        }
+        // 只有一项样本时按已有的一项判断
+        boolean fast = throughputKbps < 0 || throughputKbps >= 20000;
+        boolean good = throughputKbps < 0 || throughputKbps >= 5000;
+        boolean moderate = throughputKbps < 0 || throughputKbps >= 1000;
+        if (fast && (rttMs < 0 || rttMs <= 60)) return Quality.EXCELLENT;
+        if (good && (rttMs < 0 || rttMs <= 150)) return Quality.GOOD;
+        if (moderate && (rttMs < 0 || rttMs <= 400)) return Quality.MODERATE;
+        return Quality.POOR;
+    }
+
+    private void update() {
+        Quality next = classify();
+        if (next == quality) {
+            candidateCount = 0;
+            return;
+        }
+        if (next != candidate) {
+            candidate = next;
+            candidateCount = 0;
+        }
+        // 第一次得到估计时直接生效
+        if (++candidateCount < STABLE_SAMPLES && quality != Quality.UNKNOWN) {
+            return;
+        }
+
+        Log.d(TAG, "Quality " + quality + " -> " + next + " (rtt=" + Math.round(rttMs)
+                + "ms, throughput=" + Math.round(throughputKbps) + "kbps)");
+        quality = next;
+        candidateCount = 0;
+        AppMetrics.increment("network.quality_changes");
+        AppMetrics.setGauge("network.quality", next.ordinal());
+
+        final Quality changed = next;
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onQualityChanged(changed);
+            }
+        });
+    }
+}
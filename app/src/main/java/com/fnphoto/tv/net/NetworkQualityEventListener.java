@@ -0,0 +1,57 @@
+package com.fnphoto.tv.net;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Request;
+
+/**
+ * 从 OkHttp 的调用事件中采集首字节时间和响应体吞吐量，交给 NetworkQualityEstimator
+ * 每个调用一个实例，事件在同一个调用内按顺序到达
+ */
+public class NetworkQualityEventListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call -> new NetworkQualityEventListener();
+
+    private long requestSentAt = -1;
+    private long bodyStartAt = -1;
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSentAt = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSentAt = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestSentAt >= 0) {
+            NetworkQualityEstimator.getInstance().addRttSample(System.nanoTime() - requestSentAt);
+            requestSentAt = -1;
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStartAt = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        if (bodyStartAt >= 0) {
+            NetworkQualityEstimator.getInstance().addThroughputSample(byteCount, System.nanoTime() - bodyStartAt);
+            bodyStartAt = -1;
+        }
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        if (!call.isCanceled()) {
+            NetworkQualityEstimator.getInstance().onCallFailed();
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.fnphoto.tv.net;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 全局请求调度器
+ * 网络请求和图片加载按优先级排队，限制同时执行的数量。
+ * 任务可以带一个分组和列表位置，焦点变化时通过 setFocus() 按距离重新分配优先级，
+ * 离开窗口的任务直接取消。分组可以暂停（页面不可见时），暂停期间不再启动新任务，
+ * 已在执行的任务也不占用并发名额。
+ *
+ * 所有方法都必须在主线程调用（Retrofit 和 Glide 的回调也在主线程）。
+ */
+public class RequestScheduler {
+    private static final String TAG = "RequestScheduler";
+    private static final int DEFAULT_MAX_CONCURRENT = 6;
+
+    /**
+     * 优先级，按声明顺序从高到低
+     */
+    public enum Priority {
+        VISIBLE,        // 当前屏幕上可见
+        NEAR_VISIBLE,   // 焦点附近，马上会可见
+        PREFETCH,       // 预取
+        BACKGROUND      // 后台任务
+    }
+
+    /**
+     * 被调度的工作。start() 中发起异步操作，完成后必须调用 task.finish()
+     */
+    public interface Job {
+        void start(Task task);
+        void cancel();
+    }
+
+    /**
+     * 随所属页面一起暂停的任务（绑定页面生命周期的 Glide 加载）。所在分组暂停时不占用并发名额；
+     * 其他任务（如 Retrofit 请求）暂停后仍在下载，继续占用名额
+     */
+    public interface PausableJob extends Job {}
+
+    /**
+     * 把任务标记为随页面暂停
+     */
+    public static Job pausable(Job job) {
+        if (job instanceof PausableJob) return job;
+        return new PausableJob() {
+            @Override
+            public void start(Task task) {
+                job.start(task);
+            }
+
+            @Override
+            public void cancel() {
+                job.cancel();
+            }
+        };
+    }
+
+    public static final class Task {
+        private final RequestScheduler scheduler;
+        private final String key;
+        private final String group;
+        private final int position;
+        private final Job job;
+        private Priority priority;
+        private final long sequence;
+        private long enqueueTime;
+        private boolean running;
+        private boolean finished;
+        private boolean cancelled;
+
+        private Task(RequestScheduler scheduler, String key, String group, int position,
+                     Priority priority, Job job, long sequence) {
+            this.scheduler = scheduler;
+            this.key = key;
+            this.group = group;
+            this.position = position;
+            this.priority = priority;
+            this.job = job;
+            this.sequence = sequence;
+        }
+
+        public String getKey() { return key; }
+        public String getGroup() { return group; }
+        public Priority getPriority() { return priority; }
+        public boolean isCancelled() { return cancelled; }
+
+        /**
+         * 标记任务完成，释放执行槽位。可重复调用
+         */
+        public void finish() {
+            scheduler.onFinished(this);
+        }
+
+        public void cancel() {
+            scheduler.cancelTask(this);
+        }
+    }
+
+    /**
+     * 分组的焦点窗口：距离焦点的位置数决定优先级
+     */
+    private static final class Window {
+        final int visibleRadius;
+        final int nearRadius;
+        final int keepRadius;   // 超出此距离的任务被取消
+        int focus = -1;
+
+        Window(int visibleRadius, int nearRadius, int keepRadius) {
+            this.visibleRadius = visibleRadius;
+            this.nearRadius = nearRadius;
+            this.keepRadius = keepRadius;
+        }
+    }
+
+    private static RequestScheduler instance;
+
+    private final List<Task> pending = new ArrayList<>();
+    private final List<Task> running = new ArrayList<>();
+    private final Map<String, Task> tasksByKey = new HashMap<>();
+    private final Map<String, Window> windows = new HashMap<>();
+    private final Set<String> pausedGroups = new HashSet<>();
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private long nextSequence = 0;
+    private boolean dispatching = false; // 任务在 start() 中同步完成时避免递归派发
+
+    public static synchronized RequestScheduler getInstance() {
+        if (instance == null) {
+            instance = new RequestScheduler();
+        }
+        return instance;
+    }
+
+    private RequestScheduler() {}
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        dispatch();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 为分组配置焦点窗口
+     * @param visibleRadius 距焦点不超过此距离的任务为 VISIBLE
+     * @param nearRadius 不超过此距离为 NEAR_VISIBLE，其余为 PREFETCH
+     * @param keepRadius 焦点变化后距离超过此值的任务被取消
+     */
+    public void configureWindow(String group, int visibleRadius, int nearRadius, int keepRadius) {
+        Window window = new Window(visibleRadius, nearRadius, keepRadius);
+        Window old = windows.get(group);
+        if (old != null) {
+            window.focus = old.focus;
+        }
+        windows.put(group, window);
+    }
+
+    /**
+     * 提交任务。相同 key 的旧任务会被取消并替换
+     * @param group 分组，可为 null
+     * @param position 在分组列表中的位置，-1 表示不参与焦点窗口
+     */
+    public Task submit(String key, String group, int position, Priority priority, Job job) {
+        Task old = tasksByKey.get(key);
+        if (old != null) {
+            cancelTask(old);
+        }
+
+        Task task = new Task(this, key, group, position, priority, job, nextSequence++);
+        task.enqueueTime = SystemClock.elapsedRealtime();
+        Priority windowPriority = windowPriority(task);
+        if (windowPriority != null) {
+            task.priority = windowPriority;
+        }
+        tasksByKey.put(key, task);
+        pending.add(task);
+        AppMetrics.increment("scheduler.submitted");
+        dispatch();
+        return task;
+    }
+
+    public Task submit(String key, Priority priority, Job job) {
+        return submit(key, null, -1, priority, job);
+    }
+
+    /**
+     * 调整任务优先级（只影响尚未开始的任务的执行顺序）
+     */
+    public void reprioritize(String key, Priority priority) {
+        Task task = tasksByKey.get(key);
+        if (task != null && !task.running) {
+            task.priority = priority;
+            dispatch();
+        }
+    }
+
+    public void cancel(String key) {
+        Task task = tasksByKey.get(key);
+        if (task != null) {
+            cancelTask(task);
+        }
+    }
+
+    /**
+     * 取消分组内的所有任务
+     */
+    public void cancelGroup(String group) {
+        for (Task task : snapshot()) {
+            if (group.equals(task.group)) {
+                cancelTask(task);
+            }
+        }
+    }
+
+    /**
+     * 暂停分组：尚未开始的任务保留在队列中，直到 resumeGroup()
+     */
+    public void pauseGroup(String group) {
+        if (pausedGroups.add(group)) {
+            dispatch();
+        }
+    }
+
+    public void resumeGroup(String group) {
+        if (pausedGroups.remove(group)) {
+            dispatch();
+        }
+    }
+
+    public boolean isGroupPaused(String group) {
+        return pausedGroups.contains(group);
+    }
+
+    /**
+     * 分组不再使用（所属页面已销毁）：取消所有任务并丢弃窗口配置
+     */
+    public void releaseGroup(String group) {
+        cancelGroup(group);
+        windows.remove(group);
+        pausedGroups.remove(group);
+    }
+
+    /**
+     * 焦点移动到分组内的某个位置：按距离重新分配优先级，超出窗口的任务被取消
+     */
+    public void setFocus(String group, int position) {
+        Window window = windows.get(group);
+        if (window == null) {
+            return;
+        }
+        window.focus = position;
+
+        int cancelled = 0;
+        for (Task task : snapshot()) {
+            if (!group.equals(task.group) || task.position < 0) continue;
+
+            int distance = Math.abs(task.position - position);
+            if (distance > window.keepRadius) {
+                cancelTask(task);
+                cancelled++;
+            } else if (!task.running) {
+                task.priority = windowPriority(task);
+            }
+        }
+        if (cancelled > 0) {
+            Log.d(TAG, "Focus " + group + "@" + position + ", cancelled " + cancelled + " off-screen tasks");
+        }
+        dispatch();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    private Priority windowPriority(Task task) {
+        if (task.group == null || task.position < 0) return null;
+        Window window = windows.get(task.group);
+        if (window == null || window.focus < 0) return null;
+
+        int distance = Math.abs(task.position - window.focus);
+        if (distance <= window.visibleRadius) return Priority.VISIBLE;
+        if (distance <= window.nearRadius) return Priority.NEAR_VISIBLE;
+        if (distance <= window.keepRadius) return Priority.PREFETCH;
+        return Priority.BACKGROUND;
+    }
+
+    private boolean isPaused(Task task) {
+        return task.group != null && pausedGroups.contains(task.group);
+    }
+
+    /**
+     * 占用并发名额的任务数。暂停分组中随页面暂停的任务（Glide 图片加载）不计入，
+     * 仍在进行的网络请求照常计入
+     */
+    private int activeCount() {
+        if (pausedGroups.isEmpty()) return running.size();
+        int count = 0;
+        for (Task task : running) {
+            if (!(isPaused(task) && task.job instanceof PausableJob)) count++;
+        }
+        return count;
+    }
+
+    private List<Task> snapshot() {
+        List<Task> all = new ArrayList<>(pending.size() + running.size());
+        all.addAll(running);
+        all.addAll(pending);
+        return all;
+    }
+
+    private void cancelTask(Task task) {
+        if (task.finished || task.cancelled) return;
+        task.cancelled = true;
+        boolean wasRunning = task.running;
+        remove(task);
+        AppMetrics.increment("scheduler.cancelled");
+        try {
+            task.job.cancel();
+        } catch (Exception e) {
+            Log.e(TAG, "Error cancelling task " + task.key, e);
+        }
+        if (wasRunning) {
+            dispatch();
+        }
+    }
+
+    private void onFinished(Task task) {
+        if (task.finished) return;
+        task.finished = true;
+        if (!task.cancelled) {
+            remove(task);
+            AppMetrics.increment("scheduler.completed");
+        }
+        dispatch();
+    }
+
+    private void remove(Task task) {
+        pending.remove(task);
+        running.remove(task);
+        if (tasksByKey.get(task.key) == task) {
+            tasksByKey.remove(task.key);
+        }
+    }
+
+    /**
+     * 按优先级（同级按提交顺序）启动任务，直到达到并发上限
+     */
+    private void dispatch() {
+        if (dispatching) return;
+        dispatching = true;
+        try {
+            dispatchLocked();
+        } finally {
+            dispatching = false;
+        }
+        AppMetrics.setGauge("scheduler.pending", pending.size());
+        AppMetrics.setGauge("scheduler.running", running.size());
+    }
+
+    private void dispatchLocked() {
+        while (activeCount() < maxConcurrent && !pending.isEmpty()) {
+            Task next = null;
+            for (Task task : pending) {
+                if (isPaused(task)) continue;
+                if (next == null
+                        || task.priority.ordinal() < next.priority.ordinal()
+                        || (task.priority == next.priority && task.sequence < next.sequence)) {
+                    next = task;
+                }
+            }
+            if (next == null) {
+                break; // 剩余任务都属于暂停的分组
+            }
+            pending.remove(next);
+            running.add(next);
+            next.running = true;
+
+            long waited = SystemClock.elapsedRealtime() - next.enqueueTime;
+            AppMetrics.recordTiming("scheduler.queue_wait", waited);
+            AppMetrics.recordTiming("scheduler.queue_wait." + next.priority.name().toLowerCase(), waited);
+
+            try {
+                next.job.start(next);
+            } catch (Exception e) {
+                Log.e(TAG, "Error starting task " + next.key, e);
+                next.finish();
+            }
+        }
+    }
+
+    /**
+     * 把 Retrofit 请求包装为调度任务。任务被取消后不再回调
+     */
+    public static class CallJob<T> implements Job {
+        private final Call<T> call;
+        private final Callback<T> callback;
+
+        public CallJob(Call<T> call, Callback<T> callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+
+        @Override
+        public void start(Task task) {
+            call.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(Call<T> c, Response<T> response) {
+                    task.finish();
+                    if (!task.isCancelled()) {
+                        callback.onResponse(c, response);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<T> c, Throwable t) {
+                    task.finish();
+                    if (!task.isCancelled()) {
+                        callback.onFailure(c, t);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            call.cancel();
+            onCancelled();
+        }
+
+        /**
+         * 任务被取消时调用，子类可用于回滚状态
+         */
+        protected void onCancelled() {}
+    }
+}
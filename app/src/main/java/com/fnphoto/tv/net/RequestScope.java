@@ -0,0 +1,123 @@
+package com.fnphoto.tv.net;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 绑定到 Activity/Fragment 生命周期的请求分组
+ * 页面 onStop 时暂停尚未开始的任务，onStart 时恢复，onDestroy 时取消全部任务。
+ * 任务的 key 会自动加上分组后缀，不同页面实例之间不会互相替换。
+ */
+public final class RequestScope implements LifecycleObserver {
+    private final LifecycleOwner owner;
+    private final String name;
+    private final String defaultGroup;
+    private final List<String> groups = new ArrayList<>();
+    private boolean stopped = false;
+    private boolean destroyed = false;
+
+    private RequestScope(LifecycleOwner owner, String name) {
+        this.owner = owner;
+        this.name = name + "@" + Integer.toHexString(System.identityHashCode(owner));
+        this.defaultGroup = this.name;
+        groups.add(defaultGroup);
+    }
+
+    /**
+     * 创建分组并绑定到 owner 的生命周期
+     * @param name 分组名，用于日志和指标
+     */
+    public static RequestScope bind(LifecycleOwner owner, String name) {
+        RequestScope scope = new RequestScope(owner, name);
+        owner.getLifecycle().addObserver(scope);
+        return scope;
+    }
+
+    /**
+     * 默认分组
+     */
+    public String getGroup() {
+        return defaultGroup;
+    }
+
+    /**
+     * 创建（或获取）一个子分组，用于需要单独配置焦点窗口的列表
+     */
+    public String group(String child) {
+        String group = name + "/" + child;
+        if (!groups.contains(group)) {
+            groups.add(group);
+            if (stopped) {
+                RequestScheduler.getInstance().pauseGroup(group);
+            }
+        }
+        return group;
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    public RequestScheduler.Task submit(String key, RequestScheduler.Priority priority, RequestScheduler.Job job) {
+        return submit(defaultGroup, key, -1, priority, job);
+    }
+
+    public RequestScheduler.Task submit(String key, int position, RequestScheduler.Priority priority,
+                                        RequestScheduler.Job job) {
+        return submit(defaultGroup, key, position, priority, job);
+    }
+
+    /**
+     * 在指定分组中提交任务。页面已销毁时任务会被立即取消
+     * @param group 由 getGroup() 或 group() 返回的分组
+     */
+    public RequestScheduler.Task submit(String group, String key, int position,
+                                        RequestScheduler.Priority priority, RequestScheduler.Job job) {
+        RequestScheduler.Task task = RequestScheduler.getInstance()
+                .submit(key + "@" + group, group, position, priority, job);
+        if (destroyed) {
+            task.cancel();
+        }
+        return task;
+    }
+
+    /**
+     * 取消某个 key 的任务
+     */
+    public void cancel(String key) {
+        RequestScheduler.getInstance().cancel(key + "@" + defaultGroup);
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_START)
+    public void onStart() {
+        stopped = false;
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        for (String group : groups) {
+            scheduler.resumeGroup(group);
+        }
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    public void onStop() {
+        stopped = true;
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        for (String group : groups) {
+            scheduler.pauseGroup(group);
+        }
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    public void onDestroy() {
+        destroyed = true;
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        for (String group : groups) {
+            scheduler.releaseGroup(group);
+        }
+        owner.getLifecycle().removeObserver(this);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fnphoto.tv.player;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.NetworkQualityEstimator;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+
+/**
+ * 按网络质量和设备内存设置播放器的缓冲策略：
+ * 局域网下起播只需少量缓冲，缓冲上限也不必很大；远程或弱网下起播前多缓冲一些，并尽量缓冲得更远以度过波动。
+ * 缓冲区的字节数上限按应用可用内存（memory class）计算，低内存的电视盒子不会因为大码率视频被撑爆。
+ *
+ * 播放器创建时确定策略，之后不再变化。
+ */
+public final class AdaptiveLoadControl {
+    private static final String TAG = "AdaptiveLoadControl";
+    private static final int MAX_TARGET_BUFFER_MB = 64;
+
+    private AdaptiveLoadControl() {}
+
+    public static LoadControl create(Context context) {
+        NetworkQualityEstimator.Quality quality = NetworkQualityEstimator.getInstance().getQuality();
+        int minBufferMs;
+        int maxBufferMs;
+        int bufferForPlaybackMs;
+        int bufferAfterRebufferMs;
+        switch (quality) {
+            case EXCELLENT:
+                minBufferMs = 10000;
+                maxBufferMs = 30000;
+                bufferForPlaybackMs = 1000;
+                bufferAfterRebufferMs = 2000;
+                break;
+            case MODERATE:
+                minBufferMs = 25000;
+                maxBufferMs = 60000;
+                bufferForPlaybackMs = 3000;
+                bufferAfterRebufferMs = 6000;
+                break;
+            case POOR:
+                minBufferMs = 30000;
+                maxBufferMs = 90000;
+                bufferForPlaybackMs = 5000;
+                bufferAfterRebufferMs = 10000;
+                break;
+            case GOOD:
+            case UNKNOWN:
+            default:
+                // 尚无估计时使用 ExoPlayer 的默认值
+                minBufferMs = DefaultLoadControl.DEFAULT_MIN_BUFFER_MS;
+                maxBufferMs = DefaultLoadControl.DEFAULT_MAX_BUFFER_MS;
+                bufferForPlaybackMs = DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS;
+                bufferAfterRebufferMs = DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS;
+                break;
+        }
+
+        // 缓冲最多占可用堆的 1/4（低内存设备 1/8），并且不超过 64MB
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMb = activityManager.getMemoryClass();
+        int divisor = activityManager.isLowRamDevice() || memoryClassMb <= 128 ? 8 : 4;
+        int targetBufferBytes = Math.min(MAX_TARGET_BUFFER_MB, memoryClassMb / divisor) * 1024 * 1024;
+
+        Log.d(TAG, "Network " + quality + " (" + NetworkQualityEstimator.getInstance().getThroughputKbps()
+                + "kbps), memory class " + memoryClassMb + "MB: buffer " + minBufferMs + "-" + maxBufferMs
+                + "ms, start " + bufferForPlaybackMs + "ms, target " + targetBufferBytes / 1024 + "KB");
+        AppMetrics.setGauge("video.buffer_min_ms", minBufferMs);
+        AppMetrics.setGauge("video.buffer_max_ms", maxBufferMs);
+        AppMetrics.setGauge("video.buffer_start_ms", bufferForPlaybackMs);
+        AppMetrics.setGauge("video.buffer_target_kb", targetBufferBytes / 1024);
+
+        return new DefaultLoadControl.Builder()
+                .setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE))
+                .setBufferDurationsMs(minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferAfterRebufferMs)
+                .setTargetBufferBytes(targetBufferBytes)
+                // 字节上限优先于时长，内存不足时宁可缓冲得短一些
+                .setPrioritizeTimeOverSizeThresholds(false)
+                .createDefaultLoadControl();
+    }
+}
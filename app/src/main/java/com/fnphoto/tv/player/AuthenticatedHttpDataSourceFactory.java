@@ -1,142 +1,60 @@
 package com.fnphoto.tv.player;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
 import com.fnphoto.tv.api.FnAuthUtils;
+import com.fnphoto.tv.api.FnHttpClient;
+import com.fnphoto.tv.api.FnSession;
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
-import com.google.android.exoplayer2.upstream.HttpDataSource;
-import com.google.android.exoplayer2.upstream.TransferListener;
 
-import java.util.List;
-import java.util.Map;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
 
 /**
- * 自定义 HttpDataSource 工厂，用于添加飞牛相册的认证头
+ * 带飞牛相册认证头的 DataSource 工厂
+ * 基于全应用共享的 OkHttpClient（共用连接池），拖动进度和重新打开区间时复用已有连接；
+ * token 从内存中的会话读取，每个请求按路径重新签名 authx
  * 适配 ExoPlayer API 2.11.8 (支持 API 19)
  */
 public class AuthenticatedHttpDataSourceFactory implements DataSource.Factory {
 
-    private final Context context;
-    private final String userAgent;
+    private static OkHttpClient streamClient;
+
+    private final DataSource.Factory delegate;
 
     public AuthenticatedHttpDataSourceFactory(Context context, String userAgent) {
-        this.context = context;
-        this.userAgent = userAgent;
+        OkHttpDataSourceFactory httpFactory = new OkHttpDataSourceFactory(getStreamClient(context), userAgent);
+        // 使用 DefaultDataSourceFactory 包装，同时支持本地文件等非 HTTP 地址
+        this.delegate = new DefaultDataSourceFactory(context, httpFactory);
     }
 
     @Override
     public DataSource createDataSource() {
-        // 创建 HttpDataSource 工厂 - 必须实现所有 5 个方法
-        HttpDataSource.Factory httpFactory = new HttpDataSource.Factory() {
-            @Override
-            public HttpDataSource createDataSource() {
-                DefaultHttpDataSource dataSource = new DefaultHttpDataSource(userAgent);
-                return new AuthenticatedHttpDataSource(context, dataSource);
-            }
-            
-            @Override
-            public HttpDataSource.RequestProperties getDefaultRequestProperties() {
-                return null;
-            }
-            
-            @Override
-            public void setDefaultRequestProperty(String name, String value) {
-                // Deprecated in 2.11.8, no-op
-            }
-            
-            @Override
-            public void clearDefaultRequestProperty(String name) {
-                // Deprecated in 2.11.8, no-op
-            }
-            
-            @Override
-            public void clearAllDefaultRequestProperties() {
-                // Deprecated in 2.11.8, no-op
-            }
-        };
-
-        // 使用 DefaultDataSourceFactory 包装
-        return new DefaultDataSourceFactory(context, httpFactory).createDataSource();
+        return delegate.createDataSource();
     }
 
     /**
-     * 包装 DefaultHttpDataSource，在打开连接时添加认证头
+     * 共享客户端的派生实例：连接池和调度器与 Retrofit、Glide 相同，只多一个添加认证头的拦截器
      */
-    private static class AuthenticatedHttpDataSource implements HttpDataSource {
-
-        private final Context context;
-        private final DefaultHttpDataSource delegate;
-
-        AuthenticatedHttpDataSource(Context context, DefaultHttpDataSource delegate) {
-            this.context = context;
-            this.delegate = delegate;
-        }
-
-        @Override
-        public long open(com.google.android.exoplayer2.upstream.DataSpec dataSpec)
-                throws HttpDataSourceException {
-            // 获取 URL 并生成 authx
-            String url = dataSpec.uri.toString();
-            String path = url.replaceFirst("^https?://[^/]+", "");
-
-            SharedPreferences prefs = context.getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
-            String token = prefs.getString("api_token", "");
-            String authx = FnAuthUtils.generateAuthX(path, "GET", null);
-
-            // 设置认证头
-            delegate.setRequestProperty("accesstoken", token);
-            delegate.setRequestProperty("authx", authx);
-
-            return delegate.open(dataSpec);
-        }
-
-        @Override
-        public int read(byte[] buffer, int offset, int readLength) throws HttpDataSourceException {
-            return delegate.read(buffer, offset, readLength);
-        }
-
-        @Override
-        public void close() throws HttpDataSourceException {
-            delegate.close();
-        }
-
-        @Override
-        public void setRequestProperty(String name, String value) {
-            delegate.setRequestProperty(name, value);
-        }
-
-        @Override
-        public void clearRequestProperty(String name) {
-            delegate.clearRequestProperty(name);
-        }
-
-        @Override
-        public void clearAllRequestProperties() {
-            delegate.clearAllRequestProperties();
-        }
-
-        @Override
-        public Map<String, List<String>> getResponseHeaders() {
-            return delegate.getResponseHeaders();
-        }
-
-        @Override
-        public android.net.Uri getUri() {
-            return delegate.getUri();
-        }
-
-        @Override
-        public void addTransferListener(TransferListener transferListener) {
-            delegate.addTransferListener(transferListener);
-        }
-
-        @Override
-        public int getResponseCode() {
-            return delegate.getResponseCode();
-        }
+    static synchronized OkHttpClient getStreamClient(Context context) {
+        if (streamClient == null) {
+            final FnSession session = FnSession.getInstance(context);
+            streamClient = FnHttpClient.get().newBuilder()
+                    .addInterceptor(chain -> {
+                        Request request = chain.request();
+                        HttpUrl url = request.url();
+                        String path = url.encodedQuery() == null
+                                ? url.encodedPath() : url.encodedPath() + "?" + url.encodedQuery();
+                        return chain.proceed(request.newBuilder()
+                                .header("accesstoken", session.getToken())
+                                .header("authx", FnAuthUtils.generateAuthX(path, "GET", null))
+                                .build());
+                    })
+                    .build();
+        }
+        return streamClient;
     }
 }
@@ -0,0 +1,75 @@
+package com.fnphoto.tv.player;
+
+import android.media.MediaDataSource;
+import android.net.Uri;
+
+import androidx.annotation.RequiresApi;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+
+import java.io.IOException;
+
+/**
+ * 把 ExoPlayer 的 DataSource 适配为 MediaDataSource，供 MediaMetadataRetriever 读取：
+ * 经过视频磁盘缓存和共享的 OkHttp 客户端（认证、连接池），播放器已经下载的部分不再请求 NAS。
+ *
+ * 顺序读取时复用已打开的区间，跳到其他位置时重新打开。只在一个后台线程中使用。
+ */
+@RequiresApi(23)
+final class CachedMediaDataSource extends MediaDataSource {
+    private final DataSource dataSource;
+    private final Uri uri;
+    private boolean opened;
+    private long position;     // 已打开区间的当前读取位置
+    private long size = C.LENGTH_UNSET;
+
+    CachedMediaDataSource(DataSource.Factory factory, Uri uri) {
+        this.dataSource = factory.createDataSource();
+        this.uri = uri;
+    }
+
+    @Override
+    public int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+        if (size == 0) return 0;
+        if (this.size != C.LENGTH_UNSET && position >= this.size) return -1;
+        if (!opened || position != this.position) {
+            open(position);
+        }
+        int total = 0;
+        while (total < size) {
+            int read = dataSource.read(buffer, offset + total, size - total);
+            if (read == C.RESULT_END_OF_INPUT) break;
+            total += read;
+        }
+        this.position += total;
+        return total > 0 ? total : -1;
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        if (size == C.LENGTH_UNSET && !opened) {
+            open(0);
+        }
+        return size == C.LENGTH_UNSET ? -1 : size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (opened) {
+            opened = false;
+            dataSource.close();
+        }
+    }
+
+    private void open(long position) throws IOException {
+        close();
+        long length = dataSource.open(new DataSpec(uri, position, C.LENGTH_UNSET, null));
+        opened = true;
+        this.position = position;
+        if (size == C.LENGTH_UNSET && length != C.LENGTH_UNSET) {
+            size = position + length;
+        }
+    }
+}
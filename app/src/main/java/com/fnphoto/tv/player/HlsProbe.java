@@ -0,0 +1,57 @@
+package com.fnphoto.tv.player;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.ByteString;
+
+/**
+ * HLS 探测的判断：某个视频是否播放 HLS、是否还需要探测，以及探测响应是否是播放列表。
+ * 不依赖 Android，供 VideoSourceSelector 使用，也可以直接在 JVM 上测试。线程安全。
+ */
+final class HlsProbe {
+    static final int MAX_CONSECUTIVE_MISSES = 3;  // 连续多少次没有 HLS 后不再探测
+    private static final ByteString PLAYLIST_HEADER = ByteString.encodeUtf8("#EXTM3U");
+
+    // 媒体 id -> 是否有 HLS
+    private final Map<String, Boolean> results = new HashMap<>();
+    private int consecutiveMisses = 0;
+
+    /**
+     * @return 已有结论时返回是否播放 HLS；需要探测时返回 null
+     */
+    synchronized Boolean decide(String id, boolean hlsEnabled) {
+        if (!hlsEnabled) return false;
+        Boolean known = results.get(id);
+        if (known != null) return known;
+        return consecutiveMisses >= MAX_CONSECUTIVE_MISSES ? Boolean.FALSE : null;
+    }
+
+    /**
+     * 记录一次探测的结果，命中时重新开始计算连续未命中次数
+     */
+    synchronized void record(String id, boolean found) {
+        results.put(id, found);
+        consecutiveMisses = found ? 0 : consecutiveMisses + 1;
+    }
+
+    /**
+     * HLS 播放出错，这个视频之后播放原文件
+     */
+    synchronized void markFailed(String id) {
+        results.put(id, false);
+    }
+
+    /**
+     * 只读响应开头，确认是播放列表而不是错误页。会关闭响应体
+     */
+    static boolean isPlaylist(Response response) throws IOException {
+        try (ResponseBody body = response.body()) {
+            return response.isSuccessful() && body != null
+                    && body.source().rangeEquals(0, PLAYLIST_HEADER);
+        }
+    }
+}
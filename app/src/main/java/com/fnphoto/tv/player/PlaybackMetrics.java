@@ -0,0 +1,195 @@
+package com.fnphoto.tv.player;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import androidx.annotation.Nullable;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.source.MediaSourceEventListener;
+
+/**
+ * 播放过程的统计：首帧时间、卡顿次数和时长、实际下载码率、丢帧和错误，按视频汇总后写入 AppMetrics。
+ *
+ * 播放器在页面内复用，每个视频开始准备时调用 {@link #beginItem}，上一个视频的统计随之结束。
+ * 视频可能只是预先准备、用户没有播放就离开了，这种视频不写入汇总，只统计调用过 {@link #onPlayRequested} 的视频。
+ * 必须在主线程使用（ExoPlayer 的回调也在主线程）。
+ */
+public class PlaybackMetrics implements AnalyticsListener {
+    private static final String TAG = "PlaybackMetrics";
+
+    private String itemId;
+    private boolean played;           // 用户是否播放过当前视频
+    private boolean adaptive;
+    private long playRequestedAt;     // 开始播放的时间，首帧或可以播放后清零
+    private boolean awaitingReady;
+    private boolean firstFrameRendered;
+    private boolean wasReady;         // 开始播放后是否已进入过 READY，之后再缓冲才算卡顿
+    private long rebufferStartedAt;
+    private int rebufferCount;
+    private long rebufferMs;
+    private long bytesLoaded;
+    private long loadMs;
+    private int droppedFrames;
+    private int formatBitrate = Format.NO_VALUE;
+
+    /**
+     * 开始统计一个视频（结束上一个）
+     */
+    public void beginItem(String id) {
+        endItem();
+        this.itemId = id;
+    }
+
+    /**
+     * 播放源选定后调用
+     * @param adaptive 是否为 HLS 源
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * 用户开始播放（预先准备好的视频此时可能已经解码出首帧）
+     */
+    public void onPlayRequested(int playbackState) {
+        if (itemId == null) return;
+        played = true;
+        playRequestedAt = SystemClock.elapsedRealtime();
+        if (playbackState == Player.STATE_READY) {
+            AppMetrics.recordTiming("video.time_to_ready", 0);
+            wasReady = true;
+        } else {
+            awaitingReady = true;
+        }
+        if (firstFrameRendered) {
+            AppMetrics.recordTiming("video.ttff", 0);
+            playRequestedAt = 0;
+        }
+    }
+
+    /**
+     * 结束当前视频的统计并写入汇总
+     */
+    public void endItem() {
+        if (itemId == null) return;
+        if (rebufferStartedAt > 0) {
+            rebufferMs += SystemClock.elapsedRealtime() - rebufferStartedAt;
+        }
+        if (played && bytesLoaded > 0 && loadMs > 0) {
+            long kbps = bytesLoaded * 8 / loadMs;
+            AppMetrics.setGauge("video.achieved_kbps", kbps);
+            AppMetrics.add("video.bytes_loaded", bytesLoaded);
+            Log.d(TAG, "Playback " + itemId + (adaptive ? " (HLS)" : "") + ": rebuffers=" + rebufferCount
+                    + " (" + rebufferMs + "ms), achieved=" + kbps + "kbps, format="
+                    + (formatBitrate == Format.NO_VALUE ? "?" : formatBitrate / 1000 + "kbps")
+                    + ", dropped=" + droppedFrames);
+        }
+        if (wasReady) {
+            AppMetrics.recordTiming("video.rebuffer_per_item", rebufferMs);
+        }
+        itemId = null;
+        played = false;
+        playRequestedAt = 0;
+        awaitingReady = false;
+        firstFrameRendered = false;
+        wasReady = false;
+        rebufferStartedAt = 0;
+        rebufferCount = 0;
+        rebufferMs = 0;
+        bytesLoaded = 0;
+        loadMs = 0;
+        droppedFrames = 0;
+        formatBitrate = Format.NO_VALUE;
+    }
+
+    @Override
+    public void onPlayerStateChanged(EventTime eventTime, boolean playWhenReady, int playbackState) {
+        if (itemId == null) return;
+        long now = SystemClock.elapsedRealtime();
+        if (playbackState == Player.STATE_READY) {
+            if (awaitingReady && playRequestedAt > 0) {
+                AppMetrics.recordTiming("video.time_to_ready", now - playRequestedAt);
+            }
+            awaitingReady = false;
+            if (rebufferStartedAt > 0) {
+                long stalled = now - rebufferStartedAt;
+                rebufferMs += stalled;
+                AppMetrics.recordTiming("video.rebuffer", stalled);
+                rebufferStartedAt = 0;
+            }
+            if (playWhenReady) {
+                wasReady = true;
+            }
+        } else if (playbackState == Player.STATE_BUFFERING && playWhenReady && wasReady && rebufferStartedAt == 0) {
+            // 播放中缓冲区耗尽（跳转后的缓冲也计入）
+            rebufferCount++;
+            rebufferStartedAt = now;
+            AppMetrics.increment("video.rebuffers");
+        }
+    }
+
+    @Override
+    public void onRenderedFirstFrame(EventTime eventTime, @Nullable Surface surface) {
+        firstFrameRendered = true;
+        if (itemId != null && playRequestedAt > 0) {
+            AppMetrics.recordTiming("video.ttff", SystemClock.elapsedRealtime() - playRequestedAt);
+            playRequestedAt = 0;
+        }
+    }
+
+    @Override
+    public void onLoadCompleted(EventTime eventTime, MediaSourceEventListener.LoadEventInfo loadEventInfo,
+                                MediaSourceEventListener.MediaLoadData mediaLoadData) {
+        // 只统计当前视频从网络下载的部分，预先准备期间的下载也计入，没有播放时在 endItem 中丢弃；
+        // 从磁盘缓存读取时 CacheDataSource 不返回响应头，这部分速度是磁盘速度，不计入码率
+        if (itemId == null || loadEventInfo.responseHeaders.isEmpty()) return;
+        bytesLoaded += loadEventInfo.bytesLoaded;
+        loadMs += loadEventInfo.loadDurationMs;
+    }
+
+    @Override
+    public void onBandwidthEstimate(EventTime eventTime, int totalLoadTimeMs, long totalBytesLoaded,
+                                    long bitrateEstimate) {
+        AppMetrics.setGauge("video.bandwidth_estimate_kbps", bitrateEstimate / 1000);
+    }
+
+    @Override
+    public void onDownstreamFormatChanged(EventTime eventTime, MediaSourceEventListener.MediaLoadData mediaLoadData) {
+        Format format = mediaLoadData.trackFormat;
+        if (format == null || format.bitrate == Format.NO_VALUE || format.height == Format.NO_VALUE) return;
+        if (formatBitrate != Format.NO_VALUE && formatBitrate != format.bitrate) {
+            AppMetrics.increment("video.variant_switches");
+        }
+        formatBitrate = format.bitrate;
+        AppMetrics.setGauge("video.format_kbps", format.bitrate / 1000);
+    }
+
+    @Override
+    public void onDroppedVideoFrames(EventTime eventTime, int count, long elapsedMs) {
+        droppedFrames += count;
+        AppMetrics.add("video.dropped_frames", count);
+    }
+
+    @Override
+    public void onPlayerError(EventTime eventTime, ExoPlaybackException error) {
+        AppMetrics.increment("video.errors");
+        switch (error.type) {
+            case ExoPlaybackException.TYPE_SOURCE:
+                AppMetrics.increment("video.errors_source");
+                break;
+            case ExoPlaybackException.TYPE_RENDERER:
+                AppMetrics.increment("video.errors_renderer");
+                break;
+            default:
+                AppMetrics.increment("video.errors_other");
+                break;
+        }
+        Log.w(TAG, "Playback error for " + itemId + ": " + error.getMessage());
+    }
+}
@@ -0,0 +1,271 @@
+package com.fnphoto.tv.player;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.fnphoto.tv.api.FnAuthUtils;
+import com.fnphoto.tv.api.FnSession;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.google.android.exoplayer2.upstream.DataSource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 拖动进度时的预览缩略图：后台用 MediaMetadataRetriever 按固定间隔取关键帧（通过 HTTP 区间请求读取，
+ * 不下载整个文件），拼成一张横向的缩略图条保存到磁盘，之后再看同一个视频时直接读取。
+ *
+ * API 23 起通过 MediaDataSource 读取，与播放器共用视频磁盘缓存和 OkHttp 客户端，已缓冲的部分不再下载；
+ * 更早的系统只能把地址和认证头交给 MediaMetadataRetriever 自己的 HTTP 实现。
+ *
+ * 帧按由粗到细的顺序提取（先取间隔较大的帧），提取过程中拖动也能看到最接近的画面。
+ * 除后台提取外，其余方法都在主线程调用。
+ */
+public class ScrubThumbnailLoader {
+    private static final String TAG = "ScrubThumbnailLoader";
+    private static final String CACHE_DIR = "scrub";
+    private static final int MAX_CACHE_FILES = 200;
+    public static final int FRAME_WIDTH = 256;
+    public static final int FRAME_HEIGHT = 144;
+    private static final long MIN_INTERVAL_MS = 5000;  // 两帧之间至少间隔 5 秒
+    private static final int MAX_FRAMES = 40;
+    private static final long MIN_DURATION_MS = 20000; // 更短的视频不需要预览
+
+    public interface Listener {
+        void onFrameAvailable();
+    }
+
+    private final File cacheDir;
+    private final Context appContext;
+    private final DataSource.Factory dataSourceFactory;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService extractExecutor = Executors.newSingleThreadExecutor();
+
+    private String videoId;
+    private long intervalMs;
+    private Bitmap[] frames;          // 下标 i 对应 i * intervalMs 处的帧，未提取时为 null
+    private volatile int generation;  // 切换视频后旧的提取任务停止
+
+    public ScrubThumbnailLoader(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.cacheDir = new File(appContext.getCacheDir(), CACHE_DIR);
+        this.dataSourceFactory = VideoCache.getInstance(appContext)
+                .wrap(new AuthenticatedHttpDataSourceFactory(appContext, "ExoPlayer"));
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+    }
+
+    /**
+     * 为视频加载预览条：已缓存时读取磁盘，否则在后台提取。同一个视频重复调用无效
+     * @param streamUrl 原文件的地址（HLS 播放列表无法用 MediaMetadataRetriever 读取）
+     */
+    public void load(final String id, final String streamUrl, long durationMs, final Listener listener) {
+        if (id.equals(videoId) || durationMs < MIN_DURATION_MS) return;
+        clear();
+        videoId = id;
+        final int count = (int) Math.min(MAX_FRAMES, durationMs / MIN_INTERVAL_MS + 1);
+        intervalMs = durationMs / count;
+        frames = new Bitmap[count];
+        final Bitmap[] target = frames;
+        final long interval = intervalMs;
+        final int submitted = ++generation;
+        final File stripFile = new File(cacheDir, id + "_" + count + ".jpg");
+
+        extractExecutor.execute(() -> {
+            if (readStrip(stripFile, target, submitted, listener)) {
+                AppMetrics.increment("scrub.strip_cache_hits");
+                return;
+            }
+            extract(streamUrl, target, interval, submitted, listener, stripFile);
+        });
+    }
+
+    /**
+     * 最接近 positionMs（不晚于该位置）的已提取帧，没有时返回 null
+     */
+    public Bitmap getFrame(long positionMs) {
+        if (frames == null || intervalMs <= 0) return null;
+        int index = (int) Math.min(frames.length - 1, Math.max(0, positionMs / intervalMs));
+        for (int i = index; i >= 0; i--) {
+            if (frames[i] != null) return frames[i];
+        }
+        return null;
+    }
+
+    /**
+     * 切换到其他项时调用，停止提取并释放帧
+     */
+    public void clear() {
+        generation++;
+        videoId = null;
+        frames = null;
+        intervalMs = 0;
+    }
+
+    public void release() {
+        clear();
+        extractExecutor.shutdownNow();
+    }
+
+    private boolean readStrip(File stripFile, Bitmap[] target, int submitted, Listener listener) {
+        if (!stripFile.exists()) return false;
+        Bitmap strip = BitmapFactory.decodeFile(stripFile.getAbsolutePath());
+        if (strip == null || strip.getWidth() < FRAME_WIDTH * target.length) {
+            stripFile.delete();
+            return false;
+        }
+        stripFile.setLastModified(System.currentTimeMillis());
+        for (int i = 0; i < target.length; i++) {
+            final int index = i;
+            final Bitmap frame = Bitmap.createBitmap(strip, i * FRAME_WIDTH, 0, FRAME_WIDTH, strip.getHeight());
+            mainHandler.post(() -> {
+                if (submitted == generation) target[index] = frame;
+            });
+        }
+        mainHandler.post(() -> {
+            if (submitted == generation) listener.onFrameAvailable();
+        });
+        return true;
+    }
+
+    private void extract(String streamUrl, Bitmap[] target, long interval, int submitted,
+                         Listener listener, File stripFile) {
+        long start = SystemClock.elapsedRealtime();
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        Closeable source = null;
+        Bitmap[] extracted = new Bitmap[target.length];
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                CachedMediaDataSource cached = new CachedMediaDataSource(dataSourceFactory, Uri.parse(streamUrl));
+                source = cached;
+                retriever.setDataSource(cached);
+            } else {
+                retriever.setDataSource(streamUrl, authHeaders(streamUrl));
+            }
+            for (int index : extractionOrder(target.length)) {
+                if (submitted != generation) {
+                    AppMetrics.increment("scrub.extract_cancelled");
+                    return;
+                }
+                // 只取关键帧，不需要从关键帧解码到精确位置
+                Bitmap frame = retriever.getFrameAtTime(index * interval * 1000,
+                        MediaMetadataRetriever.OPTION_CLOSEST_SYNC);
+                if (frame == null) continue;
+                Bitmap scaled = Bitmap.createScaledBitmap(frame, FRAME_WIDTH, FRAME_HEIGHT, true);
+                if (scaled != frame) frame.recycle();
+                extracted[index] = scaled;
+                final int i = index;
+                mainHandler.post(() -> {
+                    if (submitted != generation) return;
+                    target[i] = scaled;
+                    listener.onFrameAvailable();
+                });
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to extract frames: " + streamUrl, e);
+            AppMetrics.increment("scrub.extract_failed");
+            return;
+        } finally {
+            try {
+                retriever.release();
+            } catch (RuntimeException ignored) {
+            }
+            if (source != null) {
+                try {
+                    source.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        AppMetrics.recordTiming("scrub.extract", SystemClock.elapsedRealtime() - start);
+        saveStrip(stripFile, extracted);
+    }
+
+    /**
+     * 由粗到细：先取 0、1/2、1/4、3/4 ... 处的帧，提取到一半时整个进度条也已有较均匀的预览
+     */
+    private static int[] extractionOrder(int count) {
+        int[] order = new int[count];
+        boolean[] added = new boolean[count];
+        int n = 0;
+        for (int step = Integer.highestOneBit(Math.max(1, count)); step >= 1; step /= 2) {
+            for (int i = 0; i < count; i += step) {
+                if (!added[i]) {
+                    added[i] = true;
+                    order[n++] = i;
+                }
+            }
+        }
+        return order;
+    }
+
+    private Map<String, String> authHeaders(String url) {
+        Map<String, String> headers = new HashMap<>();
+        Uri uri = Uri.parse(url);
+        headers.put("accesstoken", FnSession.getInstance(appContext).getToken());
+        headers.put("authx", FnAuthUtils.generateAuthX(uri.getEncodedPath(), "GET", null));
+        return headers;
+    }
+
+    /**
+     * 所有帧都提取成功时才保存，缺帧的预览条下次重新提取
+     */
+    private void saveStrip(File stripFile, Bitmap[] extracted) {
+        for (Bitmap frame : extracted) {
+            if (frame == null) return;
+        }
+        Bitmap strip = Bitmap.createBitmap(FRAME_WIDTH * extracted.length, FRAME_HEIGHT, Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(strip);
+        Rect dst = new Rect();
+        for (int i = 0; i < extracted.length; i++) {
+            dst.set(i * FRAME_WIDTH, 0, (i + 1) * FRAME_WIDTH, FRAME_HEIGHT);
+            canvas.drawBitmap(extracted[i], null, dst, null);
+        }
+        File temp = new File(cacheDir, stripFile.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            strip.compress(Bitmap.CompressFormat.JPEG, 80, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save strip: " + stripFile, e);
+            temp.delete();
+            return;
+        } finally {
+            strip.recycle();
+        }
+        if (!temp.renameTo(stripFile)) {
+            temp.delete();
+            return;
+        }
+        ensureCacheSize();
+    }
+
+    /**
+     * 超出文件数上限时删除最久未使用的预览条
+     */
+    private void ensureCacheSize() {
+        File[] files = cacheDir.listFiles();
+        if (files == null || files.length <= MAX_CACHE_FILES) return;
+        Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+        for (int i = 0; i < files.length - MAX_CACHE_FILES; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.fnphoto.tv.player;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.google.android.exoplayer2.database.ExoDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 视频流的磁盘缓存（ExoPlayer SimpleCache）：重播和向后拖动时从本地读取已下载的部分，不再请求 NAS。
+ * 按总大小限制，超出时淘汰最久未使用的片段。
+ *
+ * 缓存 key 只取视频流的路径（/p/api/v1/stream/v/{id}），与服务器地址和认证头无关，
+ * token 刷新或切换访问地址后缓存仍然有效。HLS 的播放列表和分片同样按路径缓存。
+ */
+public class VideoCache {
+    private static final String TAG = "VideoCache";
+    private static final String CACHE_DIR = "video";
+    private static final long MAX_CACHE_SIZE = 256L * 1024 * 1024; // 256MB
+    private static final String STREAM_PATH = "/p/api/v1/stream/v/";
+
+    private static VideoCache instance;
+
+    private final Context appContext;
+    private final SimpleCache cache;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * key 去掉协议和主机，只保留路径和查询参数
+     */
+    private static final CacheKeyFactory KEY_FACTORY = dataSpec -> {
+        if (dataSpec.key != null) return dataSpec.key;
+        return cacheKeyOf(dataSpec.uri.toString());
+    };
+
+    static String cacheKeyOf(String url) {
+        return url.replaceFirst("^https?://[^/]+", "");
+    }
+
+    public static synchronized VideoCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new VideoCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private VideoCache(Context context) {
+        this.appContext = context;
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+        cache = new SimpleCache(cacheDir, new LeastRecentlyUsedCacheEvictor(MAX_CACHE_SIZE),
+                new ExoDatabaseProvider(context));
+    }
+
+    /**
+     * 用缓存包装上游的 DataSource 工厂：命中的部分从本地文件读取，其余从上游下载并同时写入缓存。
+     * 缓存出错时直接读取上游，不影响播放
+     */
+    public DataSource.Factory wrap(DataSource.Factory upstreamFactory) {
+        return () -> {
+            DataSource upstream = upstreamFactory.createDataSource();
+            upstream.addTransferListener(NETWORK_BYTES);
+            return new CacheDataSource(cache, upstream, new FileDataSource(),
+                    new CacheDataSink(cache, CacheDataSink.DEFAULT_FRAGMENT_SIZE),
+                    CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR, CACHE_EVENTS, KEY_FACTORY);
+        };
+    }
+
+    /**
+     * 删除某个视频的缓存（服务端已修改或删除）：原文件的流，以及 HLS 的播放列表和分片
+     */
+    public void invalidate(String videoId) {
+        final String progressiveKey = STREAM_PATH + videoId;
+        final String hlsPrefix = VideoSourceSelector.hlsCacheKeyPrefix(appContext, videoId);
+        ioExecutor.execute(() -> {
+            try {
+                for (String key : new ArrayList<>(cache.getKeys())) {
+                    if (key.equals(progressiveKey) || key.startsWith(hlsPrefix)) {
+                        for (CacheSpan span : new ArrayList<>(cache.getCachedSpans(key))) {
+                            cache.removeSpan(span);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to invalidate video " + videoId, e);
+            }
+        });
+    }
+
+    /**
+     * 更新命中率（按字节，千分比）
+     */
+    private static void updateHitRatio() {
+        long cached = AppMetrics.getCounter("video_cache.cached_bytes");
+        long network = AppMetrics.getCounter("video_cache.network_bytes");
+        long total = cached + network;
+        if (total > 0) {
+            AppMetrics.setGauge("video_cache.hit_ratio_permille", cached * 1000 / total);
+        }
+    }
+
+    private static final CacheDataSource.EventListener CACHE_EVENTS = new CacheDataSource.EventListener() {
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+            AppMetrics.add("video_cache.cached_bytes", cachedBytesRead);
+            AppMetrics.setGauge("video_cache.size_bytes", cacheSizeBytes);
+            updateHitRatio();
+        }
+
+        @Override
+        public void onCacheIgnored(int reason) {
+            AppMetrics.increment("video_cache.ignored");
+        }
+    };
+
+    /**
+     * 统计从网络读取的字节数
+     */
+    private static final TransferListener NETWORK_BYTES = new TransferListener() {
+        @Override
+        public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+            if (isNetwork) {
+                AppMetrics.add("video_cache.network_bytes", bytesTransferred);
+            }
+        }
+
+        @Override
+        public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+            if (isNetwork) {
+                updateHitRatio();
+            }
+        }
+    };
+}
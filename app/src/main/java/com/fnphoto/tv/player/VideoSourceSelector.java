@@ -0,0 +1,199 @@
+package com.fnphoto.tv.player;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.fnphoto.tv.MediaItem;
+import com.fnphoto.tv.api.FnSession;
+import com.fnphoto.tv.metrics.AppMetrics;
+import com.fnphoto.tv.net.RequestScheduler;
+import com.fnphoto.tv.net.RequestScope;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.ProgressiveMediaSource;
+import com.google.android.exoplayer2.source.hls.HlsMediaSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 选择视频的播放源：NAS 提供转码的 HLS 时播放 HLS（按带宽自适应切换码率），否则播放原文件。
+ *
+ * NAS 没有公开 HLS 接口，默认不探测，直接播放原文件；确认服务器提供 HLS 后在偏好设置中打开（hls_enabled），
+ * 地址也可以配置（hls_base_url、hls_path），便于对着本地的 HLS 测试服务器调试。
+ * 打开后播放前先请求 HLS 播放列表探测，结果在进程内缓存；连续多次探测都没有 HLS 时认为服务器不支持，
+ * 之后直接播放原文件。
+ *
+ * 必须在主线程使用。
+ */
+public class VideoSourceSelector {
+    private static final String TAG = "VideoSourceSelector";
+    public static final String DEFAULT_HLS_PATH = "/p/api/v1/stream/v/{id}/hls/index.m3u8";
+    private static final String PROGRESSIVE_PATH = "/p/api/v1/stream/v/";
+    private static final long PROBE_TIMEOUT_MS = 2000;
+
+    public interface Callback {
+        void onSourceSelected(MediaSource source, boolean adaptive);
+    }
+
+    // 进程内缓存的探测结果
+    private static final HlsProbe probe = new HlsProbe();
+    private static OkHttpClient probeClient;
+
+    private final Context appContext;
+    private final RequestScope requestScope;
+    private final DataSource.Factory dataSourceFactory;
+    private final boolean hlsEnabled;
+    private final String hlsBaseUrl;
+    private final String hlsPath;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public VideoSourceSelector(Context context, RequestScope requestScope, DataSource.Factory dataSourceFactory) {
+        this.appContext = context.getApplicationContext();
+        this.requestScope = requestScope;
+        this.dataSourceFactory = dataSourceFactory;
+        SharedPreferences prefs = appContext.getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        this.hlsEnabled = prefs.getBoolean("hls_enabled", false);
+        this.hlsBaseUrl = prefs.getString("hls_base_url", "");
+        this.hlsPath = prefs.getString("hls_path", DEFAULT_HLS_PATH);
+    }
+
+    /**
+     * 为视频选择播放源。已知结果时同步回调，否则探测完成后回调；
+     * 同一时间只有一个探测，新的选择会取消尚未完成的探测
+     */
+    public void select(MediaItem item, Callback callback) {
+        final String id = item.getId();
+        Boolean hasHls = probe.decide(id, hlsEnabled);
+        if (hasHls != null) {
+            deliver(id, hasHls, callback);
+            return;
+        }
+
+        final String playlistUrl = hlsUrl(id);
+        final long start = SystemClock.elapsedRealtime();
+        requestScope.submit("hls-probe", RequestScheduler.Priority.VISIBLE, new RequestScheduler.Job() {
+            private Call call;
+
+            @Override
+            public void start(RequestScheduler.Task task) {
+                Request request = new Request.Builder().url(playlistUrl).build();
+                call = getProbeClient().newCall(request);
+                call.enqueue(new okhttp3.Callback() {
+                    @Override
+                    public void onFailure(Call c, IOException e) {
+                        finish(task, false);
+                    }
+
+                    @Override
+                    public void onResponse(Call c, Response response) {
+                        boolean found = false;
+                        try {
+                            found = HlsProbe.isPlaylist(response);
+                        } catch (IOException e) {
+                            Log.w(TAG, "Failed to read playlist: " + playlistUrl, e);
+                        }
+                        finish(task, found);
+                    }
+                });
+            }
+
+            @Override
+            public void cancel() {
+                if (call != null) {
+                    call.cancel();
+                }
+            }
+
+            private void finish(RequestScheduler.Task task, boolean found) {
+                mainHandler.post(() -> {
+                    task.finish();
+                    if (task.isCancelled()) return;
+                    AppMetrics.recordTiming("video.hls_probe", SystemClock.elapsedRealtime() - start);
+                    probe.record(id, found);
+                    deliver(id, found, callback);
+                });
+            }
+        });
+    }
+
+    /**
+     * HLS 播放出错时调用，之后这个视频改为播放原文件
+     */
+    public void markHlsFailed(String id) {
+        probe.markFailed(id);
+        AppMetrics.increment("video.hls_fallbacks");
+    }
+
+    public void cancel() {
+        requestScope.cancel("hls-probe");
+    }
+
+    private void deliver(String id, boolean hls, Callback callback) {
+        if (hls) {
+            AppMetrics.increment("video.source_hls");
+            Uri uri = Uri.parse(hlsUrl(id));
+            callback.onSourceSelected(new HlsMediaSource.Factory(dataSourceFactory)
+                    .setAllowChunklessPreparation(true)
+                    .createMediaSource(uri), true);
+        } else {
+            AppMetrics.increment("video.source_progressive");
+            Uri uri = Uri.parse(progressiveUrl(id));
+            callback.onSourceSelected(new ProgressiveMediaSource.Factory(dataSourceFactory)
+                    .createMediaSource(uri), false);
+        }
+    }
+
+    /**
+     * 原文件的流地址：/p/api/v1/stream/v/{id}
+     */
+    public String progressiveUrl(String id) {
+        return FnSession.getInstance(appContext).getBaseUrl() + PROGRESSIVE_PATH + id;
+    }
+
+    private String hlsUrl(String id) {
+        return hlsUrl(appContext, hlsBaseUrl, hlsPath, id);
+    }
+
+    private static String hlsUrl(Context context, String hlsBaseUrl, String hlsPath, String id) {
+        String base = hlsBaseUrl.isEmpty() ? FnSession.getInstance(context).getBaseUrl() : hlsBaseUrl;
+        return base + hlsPath.replace("{id}", id);
+    }
+
+    /**
+     * 视频的 HLS 播放列表和分片在磁盘缓存中的 key 前缀。分片地址相对于播放列表，
+     * 所在目录包含 id 时（默认的 .../v/{id}/hls/）整个目录都属于这个视频；
+     * 否则无法区分其他视频的分片，只返回播放列表本身的 key
+     */
+    static String hlsCacheKeyPrefix(Context context, String id) {
+        SharedPreferences prefs = context.getSharedPreferences("fn_photo_prefs", Context.MODE_PRIVATE);
+        String key = VideoCache.cacheKeyOf(hlsUrl(context, prefs.getString("hls_base_url", ""),
+                prefs.getString("hls_path", DEFAULT_HLS_PATH), id));
+        String directory = key.substring(0, key.lastIndexOf('/') + 1);
+        return directory.contains("/" + id + "/") ? directory : key;
+    }
+
+    /**
+     * 探测使用视频流的客户端（带认证头），但超时更短，探测慢时直接播放原文件
+     */
+    private OkHttpClient getProbeClient() {
+        synchronized (VideoSourceSelector.class) {
+            if (probeClient == null) {
+                probeClient = AuthenticatedHttpDataSourceFactory.getStreamClient(appContext).newBuilder()
+                        .callTimeout(PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                        .build();
+            }
+            return probeClient;
+        }
+    }
+}
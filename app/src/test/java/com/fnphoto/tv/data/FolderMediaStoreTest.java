@@ -0,0 +1,147 @@
+package com.fnphoto.tv.data;
+
+import com.fnphoto.tv.api.FnHttpApi;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FolderMediaStoreTest {
+
+    @Test
+    public void uuidRoundTrip() {
+        String[] uuids = {
+                "f47ac10b-58cc-4372-a567-0e02b2c3d479",   // 带连字符
+                "f47ac10b58cc4372a5670e02b2c3d479",       // 不带连字符
+                "00000000000000000000000000000000",
+                "ffffffffffffffffffffffffffffffff",
+                "F47AC10B-58CC-4372-A567-0E02B2C3D479",   // 大写，原样保存
+                "F47AC10B58CC4372A5670E02B2C3D479",
+                "abc",                                    // 长度不对
+                "f47ac10b58cc4372a5670e02b2c3d47",
+                "f47ac10b58cc4372a5670e02b2c3d4791",
+                "f47ac10b_58cc_4372_a567_0e02b2c3d479",   // 长度 36 但不是连字符
+                "g47ac10b58cc4372a5670e02b2c3d479",       // 非十六进制
+                "",
+                null,
+        };
+        FolderMediaStore store = new FolderMediaStore();
+        for (int i = 0; i < uuids.length; i++) {
+            store.add(item(i, "2023:05:01 12:00:00", uuids[i]));
+        }
+        for (int i = 0; i < uuids.length; i++) {
+            assertEquals(uuids[i], store.getPhotoUuid(i));
+        }
+    }
+
+    @Test
+    public void columnsRoundTrip() {
+        FolderMediaStore store = new FolderMediaStore();
+        FnHttpApi.FolderMediaItem video = item(42, "2023:05:01 12:00:00", "f47ac10b58cc4372a5670e02b2c3d479");
+        video.category = "video";
+        video.fileName = "clip.mp4";
+        video.fileSize = 5L * 1024 * 1024 * 1024;
+        store.add(video);
+        FnHttpApi.FolderMediaItem photo = item(7, null, null);
+        photo.category = null;
+        store.add(photo);
+
+        assertEquals(2, store.size());
+        assertEquals(42, store.getId(0));
+        assertEquals("clip.mp4", store.getFileName(0));
+        assertEquals(5L * 1024 * 1024 * 1024, store.getFileSize(0));
+        assertEquals("video", store.getCategory(0));
+        assertTrue(store.isVideo(0));
+        assertNull(store.getCategory(1));
+        assertFalse(store.isVideo(1));
+    }
+
+    @Test
+    public void nullDateMatchesOnlyNull() {
+        FolderMediaStore store = new FolderMediaStore();
+        store.add(item(1, null, null));
+        assertTrue(store.matchesPrefix(Collections.singletonList(item(1, null, null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, "", null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:00", null))));
+    }
+
+    @Test
+    public void datesCompareByDigits() {
+        FolderMediaStore store = new FolderMediaStore();
+        store.add(item(1, "2023:05:01 12:00:00", null));
+        assertTrue(store.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:00", null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:01", null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(2, "2023:05:01 12:00:00", null))));
+    }
+
+    @Test
+    public void overlongDatesStillCompare() {
+        String longDate = "2023:05:01 12:00:00.123456789";
+        FolderMediaStore store = new FolderMediaStore();
+        store.add(item(1, longDate, null));
+        assertTrue(store.matchesPrefix(Collections.singletonList(item(1, longDate, null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:00.123456788", null))));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:00", null))));
+    }
+
+    @Test
+    public void prefixLongerThanStoreDoesNotMatch() {
+        FolderMediaStore store = new FolderMediaStore();
+        assertTrue(store.matchesPrefix(Collections.<FnHttpApi.FolderMediaItem>emptyList()));
+        assertFalse(store.matchesPrefix(Collections.singletonList(item(1, null, null))));
+    }
+
+    @Test
+    public void snapshotUnaffectedByAdd() {
+        FolderMediaStore store = new FolderMediaStore();
+        store.add(item(1, "2023:05:01 12:00:00", "abc"));
+        FolderMediaStore snapshot = store.snapshot();
+        // 超过初始容量，数组会重新分配
+        for (int i = 2; i < 200; i++) {
+            store.add(item(i, "2023:05:01 12:00:00", "other-" + i));
+        }
+        assertEquals(1, snapshot.size());
+        assertEquals(1, snapshot.getId(0));
+        assertEquals("abc", snapshot.getPhotoUuid(0));
+        assertEquals(199, store.size());
+    }
+
+    @Test
+    public void snapshotUnaffectedByClear() {
+        FolderMediaStore store = new FolderMediaStore();
+        store.add(item(1, "2023:05:01 12:00:00", "abc"));
+        store.add(item(2, "2023:05:02 12:00:00", "f47ac10b58cc4372a5670e02b2c3d479"));
+        FolderMediaStore snapshot = store.snapshot();
+        store.clear();
+        store.add(item(9, "2024:01:01 00:00:00", "xyz"));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(1, snapshot.getId(0));
+        assertEquals("abc", snapshot.getPhotoUuid(0));
+        assertEquals(2, snapshot.getId(1));
+        assertEquals("f47ac10b58cc4372a5670e02b2c3d479", snapshot.getPhotoUuid(1));
+        assertTrue(snapshot.matchesPrefix(Collections.singletonList(item(1, "2023:05:01 12:00:00", null))));
+        assertEquals(1, store.size());
+        assertEquals("xyz", store.getPhotoUuid(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void snapshotIsReadOnly() {
+        new FolderMediaStore().snapshot().add(item(1, null, null));
+    }
+
+    private static FnHttpApi.FolderMediaItem item(int id, String dateTime, String uuid) {
+        FnHttpApi.FolderMediaItem item = new FnHttpApi.FolderMediaItem();
+        item.id = id;
+        item.dateTime = dateTime;
+        item.photoUUID = uuid;
+        item.category = "photo";
+        item.fileName = "IMG_" + id + ".jpg";
+        return item;
+    }
+}
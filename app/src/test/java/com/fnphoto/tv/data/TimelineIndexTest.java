@@ -0,0 +1,168 @@
+package com.fnphoto.tv.data;
+
+import com.fnphoto.tv.api.FnHttpApi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimelineIndexTest {
+
+    @Test
+    public void emptyTimeline() {
+        for (TimelineIndex index : new TimelineIndex[]{
+                TimelineIndex.EMPTY,
+                new TimelineIndex(Collections.<FnHttpApi.TimelineItem>emptyList())}) {
+            assertEquals(0, index.size());
+            assertEquals(0, index.getRowCount());
+            assertEquals(0, index.getYearCount());
+            assertEquals(-1, index.indexOf("2024-01-01"));
+        }
+    }
+
+    @Test
+    public void singleDay() {
+        TimelineIndex index = new TimelineIndex(timeline(day(2024, 3, 7, 12)));
+
+        assertEquals(1, index.size());
+        assertEquals(1, index.getRowCount());
+        assertEquals(1, index.getYearCount());
+        assertEquals(0, index.indexOf("2024-03-07"));
+        assertEquals("2024-03-07", index.getDateStr(0));
+        assertEquals(2024, index.getYear(0));
+        assertEquals(3, index.getMonth(0));
+        assertEquals(7, index.getDay(0));
+        assertEquals(12, index.getCount(0));
+        assertEquals(0, index.getRow(0));
+        assertEquals(0, index.getColumn(0));
+
+        assertEquals(202403L, index.getRowId(0));
+        assertEquals(0, index.getRowStart(0));
+        assertEquals(1, index.getRowSize(0));
+        assertEquals(12, index.getRowPhotoCount(0));
+
+        assertEquals(2024, index.getYearValue(0));
+        assertEquals(0, index.getYearFirstRow(0));
+        assertEquals(1, index.getYearRowCount(0));
+        assertEquals(12, index.getYearPhotoCount(0));
+        assertEquals(0, index.getYearIndexOfRow(0));
+        assertEquals(12, index.sumCounts(0, 0));
+    }
+
+    @Test
+    public void monthEdges() {
+        // 时间线从新到旧，相邻两天跨月时换行
+        TimelineIndex index = new TimelineIndex(timeline(
+                day(2024, 2, 1, 1),
+                day(2024, 1, 31, 2),
+                day(2024, 1, 1, 3),
+                day(2023, 12, 31, 4)));
+
+        assertEquals(3, index.getRowCount());
+        int[] expectedRows = {0, 1, 1, 2};
+        int[] expectedColumns = {0, 0, 1, 0};
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(expectedRows[i], index.getRow(i));
+            assertEquals(expectedColumns[i], index.getColumn(i));
+        }
+
+        assertEquals(0, index.getRowStart(0));
+        assertEquals(1, index.getRowStart(1));
+        assertEquals(3, index.getRowStart(2));
+        assertEquals(1, index.getRowSize(0));
+        assertEquals(2, index.getRowSize(1));
+        assertEquals(1, index.getRowSize(2));
+
+        assertEquals(202402L, index.getRowId(0));
+        assertEquals(202401L, index.getRowId(1));
+        assertEquals(202312L, index.getRowId(2));
+        assertEquals(2024, index.getRowYear(1));
+        assertEquals(1, index.getRowMonth(1));
+        assertEquals(1, index.getRowPhotoCount(0));
+        assertEquals(5, index.getRowPhotoCount(1));
+        assertEquals(4, index.getRowPhotoCount(2));
+
+        assertEquals(10, index.sumCounts(0, 3));
+        assertEquals(5, index.sumCounts(1, 2));
+        assertEquals(4, index.sumCounts(3, 3));
+    }
+
+    @Test
+    public void sameMonthInDifferentYearsIsNotMerged() {
+        TimelineIndex index = new TimelineIndex(timeline(
+                day(2024, 5, 1, 1),
+                day(2023, 5, 1, 1)));
+
+        assertEquals(2, index.getRowCount());
+        assertEquals(202405L, index.getRowId(0));
+        assertEquals(202305L, index.getRowId(1));
+        assertEquals(0, index.getColumn(1));
+    }
+
+    @Test
+    public void yearEdges() {
+        TimelineIndex index = new TimelineIndex(timeline(
+                day(2024, 1, 2, 1),
+                day(2024, 1, 1, 2),
+                day(2023, 12, 31, 3),
+                day(2023, 12, 1, 4),
+                day(2023, 11, 15, 5),
+                day(2021, 6, 1, 6)));
+
+        assertEquals(4, index.getRowCount());
+        assertEquals(3, index.getYearCount());
+
+        assertEquals(2024, index.getYearValue(0));
+        assertEquals(2023, index.getYearValue(1));
+        assertEquals(2021, index.getYearValue(2));
+
+        assertEquals(0, index.getYearFirstRow(0));
+        assertEquals(1, index.getYearFirstRow(1));
+        assertEquals(3, index.getYearFirstRow(2));
+        assertEquals(1, index.getYearRowCount(0));
+        assertEquals(2, index.getYearRowCount(1));
+        assertEquals(1, index.getYearRowCount(2));
+
+        assertEquals(3, index.getYearPhotoCount(0));
+        assertEquals(12, index.getYearPhotoCount(1));
+        assertEquals(6, index.getYearPhotoCount(2));
+
+        assertEquals(0, index.getYearIndexOfRow(0));
+        assertEquals(1, index.getYearIndexOfRow(1));
+        assertEquals(1, index.getYearIndexOfRow(2));
+        assertEquals(2, index.getYearIndexOfRow(3));
+    }
+
+    @Test
+    public void lookupOfMissingDate() {
+        TimelineIndex index = new TimelineIndex(timeline(
+                day(2024, 1, 2, 1),
+                day(2023, 12, 31, 1)));
+
+        assertEquals(0, index.indexOf("2024-01-02"));
+        assertEquals(1, index.indexOf("2023-12-31"));
+        assertEquals(-1, index.indexOf("2024-01-01"));
+        assertEquals(-1, index.indexOf("2024-1-2"));   // 月和日不足两位时补零
+        assertEquals(-1, index.indexOf(""));
+        assertEquals(-1, index.indexOf(null));
+    }
+
+    private static List<FnHttpApi.TimelineItem> timeline(FnHttpApi.TimelineItem... items) {
+        List<FnHttpApi.TimelineItem> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        return list;
+    }
+
+    private static FnHttpApi.TimelineItem day(int year, int month, int day, int count) {
+        FnHttpApi.TimelineItem item = new FnHttpApi.TimelineItem();
+        item.year = year;
+        item.month = month;
+        item.day = day;
+        item.itemCount = count;
+        return item;
+    }
+}
@@ -0,0 +1,122 @@
+package com.fnphoto.tv.player;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HlsProbeTest {
+    private MockWebServer server;
+    private final OkHttpClient client = new OkHttpClient();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void playlistIsDetected() throws IOException {
+        server.enqueue(new MockResponse().setBody(fixture("hls/index.m3u8")));
+        assertTrue(HlsProbe.isPlaylist(get("/p/api/v1/stream/v/1/hls/index.m3u8")));
+    }
+
+    @Test
+    public void errorStatusIsNotPlaylist() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("#EXTM3U"));
+        assertFalse(HlsProbe.isPlaylist(get("/missing.m3u8")));
+    }
+
+    @Test
+    public void errorPageWithOkStatusIsNotPlaylist() throws IOException {
+        server.enqueue(new MockResponse().setBody("<html><body>login</body></html>"));
+        assertFalse(HlsProbe.isPlaylist(get("/index.m3u8")));
+    }
+
+    @Test
+    public void shortBodyIsNotPlaylist() throws IOException {
+        server.enqueue(new MockResponse().setBody("#EXT"));
+        assertFalse(HlsProbe.isPlaylist(get("/index.m3u8")));
+    }
+
+    @Test
+    public void disabledNeverProbes() {
+        HlsProbe probe = new HlsProbe();
+        probe.record("1", true);
+        assertEquals(Boolean.FALSE, probe.decide("1", false));
+        assertEquals(Boolean.FALSE, probe.decide("2", false));
+    }
+
+    @Test
+    public void unknownVideoNeedsProbe() {
+        assertNull(new HlsProbe().decide("1", true));
+    }
+
+    @Test
+    public void resultIsCached() {
+        HlsProbe probe = new HlsProbe();
+        probe.record("1", true);
+        probe.record("2", false);
+        assertEquals(Boolean.TRUE, probe.decide("1", true));
+        assertEquals(Boolean.FALSE, probe.decide("2", true));
+    }
+
+    @Test
+    public void stopsProbingAfterConsecutiveMisses() {
+        HlsProbe probe = new HlsProbe();
+        for (int i = 0; i < HlsProbe.MAX_CONSECUTIVE_MISSES - 1; i++) {
+            probe.record("miss" + i, false);
+        }
+        assertNull(probe.decide("next", true));
+        probe.record("last", false);
+        assertEquals(Boolean.FALSE, probe.decide("next", true));
+    }
+
+    @Test
+    public void hitResetsMissCount() {
+        HlsProbe probe = new HlsProbe();
+        for (int i = 0; i < HlsProbe.MAX_CONSECUTIVE_MISSES - 1; i++) {
+            probe.record("miss" + i, false);
+        }
+        probe.record("hit", true);
+        probe.record("miss", false);
+        assertNull(probe.decide("next", true));
+    }
+
+    @Test
+    public void playbackFailureFallsBackToProgressive() {
+        HlsProbe probe = new HlsProbe();
+        probe.record("1", true);
+        probe.markFailed("1");
+        assertEquals(Boolean.FALSE, probe.decide("1", true));
+    }
+
+    private Response get(String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+
+    private Buffer fixture(String name) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+            return new Buffer().readFrom(in);
+        }
+    }
+}